@@ -5,10 +5,17 @@
 
 package scala.tools.eclipse.contribution.weaving.jdt.indexerprovider;
 
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.core.search.SearchDocument;
 import org.eclipse.jdt.internal.core.search.indexing.AbstractIndexer;
 
 @SuppressWarnings("restriction")
 public interface IIndexerFactory {
   public AbstractIndexer createIndexer(SearchDocument document);
+
+  /**
+   * Called after the JDT discarded the index of the project or library at
+   * <code>containerPath</code>, or all its indexes if it is <code>null</code>.
+   */
+  public void indexDiscarded(IPath containerPath);
 }
@@ -8,6 +8,8 @@ import org.scalaide.core.classpath.ClasspathTests
 import org.scalaide.core.classpath.DesiredScalaInstallationTests
 import org.scalaide.core.compiler.NamePrinterTest
 import org.scalaide.core.compiler.PresentationCompilerActivityListenerTest
+import org.scalaide.core.compiler.PresentationCompilerPoolTest
+import org.scalaide.core.compiler.PresentationCompilerProxyTest
 import org.scalaide.core.compiler.settings.CompilerSettingsTest
 import org.scalaide.core.completion.CompletionTests
 import org.scalaide.core.completion.ScalaJavaCompletionTests
@@ -25,10 +27,14 @@ import org.scalaide.core.pc.DeclarationPrinterTest
 import org.scalaide.core.pc.PresentationCompilerDocTest
 import org.scalaide.core.pc.PresentationCompilerRefreshTest
 import org.scalaide.core.pc.PresentationCompilerTest
+import org.scalaide.core.pc.RequestSchedulerTest
 import org.scalaide.core.project.DirectoryScalaInstallationTest
 import org.scalaide.core.project.ScalaInstallationTest
+import org.scalaide.core.sbtbuilder.AnalysisCacheTest
 import org.scalaide.core.sbtbuilder.BuildScopeUnitsTest
+import org.scalaide.core.sbtbuilder.DependencySchedulerTest
 import org.scalaide.core.sbtbuilder.DeprecationWarningsTests
+import org.scalaide.core.sbtbuilder.JarClassIndexTest
 import org.scalaide.core.sbtbuilder.JavaDependsOnScalaBothAreOkTest
 import org.scalaide.core.sbtbuilder.JavaDependsOnScalaTest
 import org.scalaide.core.sbtbuilder.MultiScalaVersionTest
@@ -48,7 +54,10 @@ import org.scalaide.core.sbtbuilder.ScalaProjectDependedOnJavaProjectTest
 import org.scalaide.core.sbtbuilder.ScopeCompileConfigurationTest
 import org.scalaide.core.sbtbuilder.ScopeCompileTest
 import org.scalaide.core.sbtbuilder.TodoBuilderTest
+import org.scalaide.core.search.IndexParserTest
+import org.scalaide.core.search.SourceIndexCacheTest
 import org.scalaide.core.semantic.HighlightingTestsSuite
+import org.scalaide.core.semantichighlighting.PositionsTrackerTest
 import org.scalaide.core.semantichighlighting.SemanticHighlightingPositionsTest
 import org.scalaide.core.semantichighlighting.classifier.SymbolClassifierTestSuite
 import org.scalaide.core.structurebuilder.ScalaJavaMapperTest
@@ -72,6 +81,11 @@ import org.scalaide.core.sbtbuilder.SourcePathFinderTest
 import org.scalaide.core.scalaelements.ScalaElementsNameTest
 import org.scalaide.core.compiler.ResidentCompilerTest
 import org.scalaide.core.internal.jdt.model.ScalaClassFileDescriberTest
+import org.scalaide.core.internal.project.ClasspathCacheTest
+import org.scalaide.core.internal.project.SourceInventoryTest
+import org.scalaide.core.sbtbuilder.ApiHashesTest
+import org.scalaide.core.completion.CompletionSessionTest
+import org.scalaide.core.search.TypeNameIndexTest
 
 @RunWith(classOf[Suite])
 @Suite.SuiteClasses(
@@ -95,7 +109,10 @@ import org.scalaide.core.internal.jdt.model.ScalaClassFileDescriberTest
     classOf[PresentationCompilerRefreshTest],
     classOf[PresentationCompilerDocTest],
     classOf[PresentationCompilerTest],
+    classOf[RequestSchedulerTest],
     classOf[PresentationCompilerActivityListenerTest],
+    classOf[PresentationCompilerPoolTest],
+    classOf[PresentationCompilerProxyTest],
     classOf[MultipleErrorsTest],
     classOf[NestedProjectsTest],
     classOf[OccurrencesFinderTest],
@@ -107,6 +124,7 @@ import org.scalaide.core.internal.jdt.model.ScalaClassFileDescriberTest
     classOf[ScalaJavaDepTest],
     classOf[TodoBuilderTest],
     classOf[HighlightingTestsSuite],
+    classOf[PositionsTrackerTest],
     classOf[SemanticHighlightingPositionsTest],
     classOf[SymbolClassifierTestSuite],
     classOf[StructureBuilderTest],
@@ -145,6 +163,16 @@ import org.scalaide.core.internal.jdt.model.ScalaClassFileDescriberTest
     classOf[ScalaElementsNameTest],
     classOf[Scala211Compilation],
     classOf[ResidentCompilerTest],
-    classOf[ScalaClassFileDescriberTest]
+    classOf[ScalaClassFileDescriberTest],
+    classOf[AnalysisCacheTest],
+    classOf[JarClassIndexTest],
+    classOf[DependencySchedulerTest],
+    classOf[SourceIndexCacheTest],
+    classOf[IndexParserTest],
+    classOf[ClasspathCacheTest],
+    classOf[SourceInventoryTest],
+    classOf[ApiHashesTest],
+    classOf[CompletionSessionTest],
+    classOf[TypeNameIndexTest]
 ))
 class TestsSuite
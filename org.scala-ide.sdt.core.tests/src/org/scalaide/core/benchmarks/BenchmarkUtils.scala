@@ -0,0 +1,23 @@
+package org.scalaide.core.benchmarks
+
+/** Helpers for the benchmarks in this package.
+ *
+ *  Benchmarks are not part of the regular test suite, they are run with the
+ *  `benchmarks` profile and report their numbers in the test log.
+ */
+object BenchmarkUtils {
+
+  /** Run `body` `warmup` times, then `iterations` times, and return the median running time in nanoseconds. */
+  def medianNanos(warmup: Int, iterations: Int)(body: => Unit): Long = {
+    for (_ <- 1 to warmup) body
+    val times = for (_ <- 1 to iterations) yield {
+      val start = System.nanoTime
+      body
+      System.nanoTime - start
+    }
+    times.sorted.apply(times.size / 2)
+  }
+
+  def millis(nanos: Long): String =
+    f"${nanos / 1000000.0}%.2fms"
+}
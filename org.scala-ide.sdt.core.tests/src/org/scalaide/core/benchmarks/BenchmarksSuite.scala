@@ -0,0 +1,15 @@
+package org.scalaide.core.benchmarks
+
+import org.junit.runner.RunWith
+import org.junit.runners.Suite
+
+@RunWith(classOf[Suite])
+@Suite.SuiteClasses(
+  Array(
+    classOf[BuildCompilerCacheBenchmark],
+    classOf[DocumentPartitionerBenchmark],
+    classOf[PartitionLookupBenchmark],
+    classOf[SemanticHighlightingBenchmark],
+    classOf[SourceIndexBenchmark]
+))
+class BenchmarksSuite
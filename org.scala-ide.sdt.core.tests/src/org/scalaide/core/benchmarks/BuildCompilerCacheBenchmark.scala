@@ -0,0 +1,66 @@
+package org.scalaide.core
+package benchmarks
+
+import org.eclipse.core.resources.IncrementalProjectBuilder
+import org.eclipse.core.runtime.NullProgressMonitor
+import org.junit.Assert
+import org.junit.Test
+import org.scalaide.core.internal.ScalaPlugin
+import org.scalaide.core.testsetup.SDTTestUtils
+import org.scalaide.core.testsetup.TestProjectSetup
+import org.scalaide.logging.HasLogger
+import org.scalaide.ui.internal.preferences.ResourcesPreferences
+
+object builderProject extends TestProjectSetup("builder")
+
+/** Compares incremental build times of the `builder` test project with a fresh
+ *  compiler for every build (cold) and with a resident compiler (warm).
+ */
+class BuildCompilerCacheBenchmark extends HasLogger {
+  import builderProject._
+
+  private final val Warmup = 3
+  private final val Iterations = 15
+
+  private def incrementalBuild(i: Int): Unit = {
+    SDTTestUtils.changeContentOfFile(file("src/test/sc/ClassA.scala"),
+      s"""package test.sc
+         |
+         |class ClassA {
+         |  def callMe(): Unit = {
+         |    println("Hello, world from Scala $i")
+         |  }
+         |}
+         |""".stripMargin)
+    project.underlying.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, new NullProgressMonitor)
+  }
+
+  private def withCompilerCacheSize[A](size: Int)(thunk: => A): A = {
+    val store = ScalaPlugin().getPreferenceStore
+    val previous = store.getInt(ResourcesPreferences.BUILDER_COMPILER_CACHE_SIZE)
+    store.setValue(ResourcesPreferences.BUILDER_COMPILER_CACHE_SIZE, size)
+    try thunk finally store.setValue(ResourcesPreferences.BUILDER_COMPILER_CACHE_SIZE, previous)
+  }
+
+  @Test def coldVersusWarmIncrementalBuild(): Unit = {
+    SDTTestUtils.enableAutoBuild(false)
+    project.underlying.build(IncrementalProjectBuilder.FULL_BUILD, new NullProgressMonitor)
+    var i = 0
+    def nextBuild(): Unit = { i += 1; incrementalBuild(i) }
+
+    val cold = withCompilerCacheSize(0) {
+      BenchmarkUtils.medianNanos(Warmup, Iterations)(nextBuild())
+    }
+
+    val cache = ScalaPlugin().buildCompilerCache
+    cache.clear()
+    val warm = withCompilerCacheSize(4) {
+      BenchmarkUtils.medianNanos(Warmup, Iterations)(nextBuild())
+    }
+    val (hits, misses) = cache.getStats
+
+    logger.info(s"Incremental build of `builder`: cold ${BenchmarkUtils.millis(cold)}, warm ${BenchmarkUtils.millis(warm)} " +
+      s"(compiler cache: $hits hits, $misses misses)")
+    Assert.assertTrue("Warm builds reuse the compiler", hits > 0)
+  }
+}
@@ -0,0 +1,64 @@
+package org.scalaide.core
+package benchmarks
+
+import org.eclipse.jface.text.Document
+import org.eclipse.jface.text.DocumentEvent
+import org.junit.Assert
+import org.junit.Test
+import org.scalaide.core.lexical.ScalaCodePartitioner
+import org.scalaide.logging.HasLogger
+
+object DocumentPartitionerBenchmark {
+
+  /** A generated source of about `lines` lines, with all kinds of partitions. */
+  def generatedSource(lines: Int): String = {
+    val member =
+      """  /** Returns the value number %1$d. */
+        |  def value%1$d: String = s"value ${%1$d + 1}" // the value
+        |  val char%1$d = 'c'
+        |  val xml%1$d = <a href="%1$d">{ value%1$d }</a>
+        |""".stripMargin
+    (1 to lines / 4).map(member.format(_)).mkString("class Generated {\n", "", "}\n")
+  }
+}
+
+/** Compares the cost of typing one character in the middle of documents of increasing size,
+ *  with the incremental partitioner and with a full partitioning of the document.
+ */
+class DocumentPartitionerBenchmark extends HasLogger {
+  import DocumentPartitionerBenchmark._
+
+  private final val Warmup = 200
+  private final val Iterations = 1000
+
+  private def keystroke(doc: Document, offset: Int)(partition: DocumentEvent => Unit): Unit = {
+    val event = new DocumentEvent(doc, offset, 0, "x")
+    doc.replace(offset, 0, "x")
+    partition(event)
+    val undo = new DocumentEvent(doc, offset, 1, "")
+    doc.replace(offset, 1, "")
+    partition(undo)
+  }
+
+  @Test def keystrokeVersusFileSize(): Unit = {
+    val results = for (lines <- Seq(1000, 5000, 10000)) yield {
+      val doc = new Document(generatedSource(lines))
+      val offset = doc.getLineOffset(doc.getNumberOfLines / 2) + 4
+
+      val partitioner = ScalaCodePartitioner.documentPartitioner()
+      partitioner.connect(doc)
+      val incremental = BenchmarkUtils.medianNanos(Warmup, Iterations) {
+        keystroke(doc, offset)(event => partitioner.documentChanged2(event))
+      }
+      val full = BenchmarkUtils.medianNanos(Warmup / 10, Iterations / 10) {
+        keystroke(doc, offset)(_ => ScalaCodePartitioner.partition(doc.get))
+      }
+
+      logger.info(s"Keystroke in a document of $lines lines: incremental ${BenchmarkUtils.millis(incremental)}, full ${BenchmarkUtils.millis(full)}")
+      (incremental, full)
+    }
+
+    val (incremental, full) = results.last
+    Assert.assertTrue("Incremental partitioning is faster than a full one on large documents", incremental < full)
+  }
+}
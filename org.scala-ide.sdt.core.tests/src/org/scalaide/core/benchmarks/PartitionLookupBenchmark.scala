@@ -0,0 +1,52 @@
+package org.scalaide.core
+package benchmarks
+
+import scala.util.Random
+
+import org.eclipse.jface.text.Document
+import org.junit.Assert
+import org.junit.Test
+import org.scalaide.core.lexical.ScalaCodePartitioner
+import org.scalaide.logging.HasLogger
+
+/** Measures the partition lookups done by the presentation reconciler, auto-edit strategies and
+ *  the indenter, on documents of increasing size. Each lookup should take about the same time,
+ *  whatever the size of the document.
+ */
+class PartitionLookupBenchmark extends HasLogger {
+  import DocumentPartitionerBenchmark.generatedSource
+
+  private final val Warmup = 20
+  private final val Iterations = 100
+  private final val LookupsPerIteration = 10000
+  private final val ViewportLength = 4000
+
+  private def nanosPerLookup(iterationNanos: Long): Long = iterationNanos / LookupsPerIteration
+
+  @Test def lookupsVersusFileSize(): Unit = {
+    val results = for (lines <- Seq(1000, 10000, 50000)) yield {
+      val doc = new Document(generatedSource(lines))
+      val partitioner = ScalaCodePartitioner.documentPartitioner()
+      partitioner.connect(doc)
+      val random = new Random(lines)
+      val offsets = Array.fill(LookupsPerIteration)(random.nextInt(doc.getLength - ViewportLength))
+
+      var sink = 0
+      val contentType = nanosPerLookup(BenchmarkUtils.medianNanos(Warmup, Iterations) {
+        offsets foreach (offset => sink += partitioner.getContentType(offset).length)
+      })
+      val partition = nanosPerLookup(BenchmarkUtils.medianNanos(Warmup, Iterations) {
+        offsets foreach (offset => sink += partitioner.getPartition(offset).getLength)
+      })
+      val viewport = nanosPerLookup(BenchmarkUtils.medianNanos(Warmup, Iterations) {
+        offsets foreach (offset => sink += partitioner.computePartitioning(offset, ViewportLength).length)
+      })
+
+      logger.info(s"Partition lookups in a document of $lines lines (checksum $sink): getContentType ${contentType}ns, " +
+        s"getPartition ${partition}ns, computePartitioning of ${ViewportLength} characters ${viewport}ns")
+      partition
+    }
+
+    Assert.assertTrue("Lookups don't grow linearly with the size of the document", results.last < results.head * 10)
+  }
+}
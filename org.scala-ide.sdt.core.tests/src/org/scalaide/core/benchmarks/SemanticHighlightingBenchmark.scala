@@ -0,0 +1,101 @@
+package org.scalaide.core
+package benchmarks
+
+import scala.reflect.internal.util.BatchSourceFile
+
+import org.eclipse.core.runtime.NullProgressMonitor
+import org.junit.After
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.scalaide.core.compiler.IScalaPresentationCompiler.Implicits._
+import org.scalaide.core.internal.decorators.semantichighlighting.classifier.RoundTripSymbolClassification
+import org.scalaide.core.internal.decorators.semantichighlighting.classifier.SymbolClassification
+import org.scalaide.core.internal.decorators.semantichighlighting.classifier.SymbolInfo
+import org.scalaide.core.testsetup.SDTTestUtils
+import org.scalaide.logging.HasLogger
+
+object SemanticHighlightingBenchmark {
+
+  /** A source of about `lines` lines, with the constructs covered by the symbol classifier tests. */
+  def generatedSource(lines: Int): String = {
+    val member =
+      """trait T%1$d[A] {
+        |  def abstractMethod(param: A): A
+        |}
+        |case class CC%1$d(field: Int, other: String)
+        |case object CO%1$d
+        |object O%1$d extends T%1$d[Int] {
+        |  import scala.collection.mutable.ListBuffer
+        |  type Alias = List[Int]
+        |  val templateVal = CC%1$d(%1$d, "value")
+        |  var templateVar: Alias = Nil
+        |  lazy val lazyTemplateVal = templateVal.field + 1
+        |  @deprecated("use abstractMethod", "1.0") def deprecatedMethod = 0
+        |  def abstractMethod(param: Int): Int = param
+        |  def method[B](byName: => B, param: Int): B = {
+        |    val localVal = param
+        |    var localVar = localVal + deprecatedMethod
+        |    lazy val lazyLocalVal = new ListBuffer[Int]
+        |    for (x <- templateVar) localVar += x
+        |    println(s"$localVar and ${lazyLocalVal.size} in $templateVal")
+        |    byName
+        |  }
+        |}
+        |""".stripMargin
+    val count = lines / member.count(_ == '\n')
+    (1 to count).map(member.format(_)).mkString("package benchmark\n\n", "\n", "")
+  }
+}
+
+/** Compares the classification of the symbols of a large unit, done as a single compiler task,
+ *  with the traversal it replaced, which made a round trip to the compiler thread for each symbol
+ *  query. Both run on the same typed tree. The times and their ratio are reported in the log.
+ */
+class SemanticHighlightingBenchmark extends HasLogger {
+  import SemanticHighlightingBenchmark._
+
+  private final val Warmup = 3
+  private final val Iterations = 10
+
+  private var project: IScalaProject = _
+
+  @Before
+  def createProject(): Unit = {
+    project = SDTTestUtils.createProjectInWorkspace("semantic-highlighting-benchmark", true)
+  }
+
+  @After
+  def deleteProject(): Unit = {
+    SDTTestUtils.deleteProjects(project)
+  }
+
+  @Test def singleTaskVersusRoundTrips(): Unit = {
+    val sourceFile = new BatchSourceFile("Generated.scala", generatedSource(3000))
+    project.presentationCompiler { compiler =>
+      val loaded = new compiler.Response[Unit]
+      compiler.askReload(List(sourceFile), loaded)
+      loaded.get
+      compiler.askLoadedTyped(sourceFile, true).get
+      val monitor = new NullProgressMonitor
+
+      var classified = List.empty[SymbolInfo]
+      val singleTask = BenchmarkUtils.medianNanos(Warmup, Iterations) {
+        classified = new SymbolClassification(sourceFile, compiler, useSyntacticHints = false).classifySymbols(monitor)
+      }
+
+      val roundTripClassification = new RoundTripSymbolClassification(sourceFile, compiler)
+      var roundTripped = Seq.empty[SymbolInfo]
+      val roundTrips = BenchmarkUtils.medianNanos(Warmup, Iterations) {
+        roundTripped = roundTripClassification.rawSymbolInfos(monitor)
+      }
+
+      // pruning moves a region to another symbol type, it doesn't remove it
+      Assert.assertEquals("Both classifications find the same symbol occurrences",
+        roundTripped.flatMap(_.regions).toSet, classified.flatMap(_.regions).toSet)
+      logger.info(s"Semantic highlighting of ${sourceFile.content.length} chars: " +
+        s"single task ${BenchmarkUtils.millis(singleTask)}, one round trip per query ${BenchmarkUtils.millis(roundTrips)}, " +
+        f"ratio ${roundTrips.toDouble / (singleTask max 1)}%.1f")
+    }
+  }
+}
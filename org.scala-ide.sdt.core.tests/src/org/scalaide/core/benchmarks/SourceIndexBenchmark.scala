@@ -0,0 +1,90 @@
+package org.scalaide.core
+package benchmarks
+
+import org.eclipse.core.resources.IFile
+import org.junit.After
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.scalaide.core.internal.ScalaPlugin
+import org.scalaide.core.internal.jdt.model.ScalaSourceFile
+import org.scalaide.core.internal.jdt.search.IndexParserPool
+import org.scalaide.core.internal.jdt.search.ScalaSourceIndexer
+import org.scalaide.core.internal.jdt.search.SourceIndexCache
+import org.scalaide.core.testsetup.SDTTestUtils
+import org.scalaide.core.testsetup.TestSearchDocuments.UnindexedDocument
+import org.scalaide.logging.HasLogger
+
+/** Compares the time taken to index the sources of a project when they are parsed with the
+ *  time taken when their entries are replayed from the source index cache, as after a
+ *  workspace restart, and the time taken by the initial indexing with one parser thread and
+ *  with one parser thread per core.
+ */
+class SourceIndexBenchmark extends HasLogger {
+
+  private final val Warmup = 2
+  private final val Iterations = 5
+  private final val Sources = 100
+
+  private var project: IScalaProject = _
+  private var files: Seq[IFile] = _
+
+  @Before
+  def createProject(): Unit = {
+    SDTTestUtils.enableAutoBuild(false)
+    project = SDTTestUtils.createProjectInWorkspace("source-index-benchmark", true)
+    files = for (i <- 1 to Sources) yield {
+      val source = SemanticHighlightingBenchmark.generatedSource(300).replace("package benchmark", s"package benchmark.p$i")
+      SDTTestUtils.addFileToProject(project.underlying, s"src/benchmark/p$i/Generated.scala", source)
+    }
+  }
+
+  @After
+  def deleteProject(): Unit = {
+    SDTTestUtils.deleteProjects(project)
+  }
+
+  private def indexAll(): Unit =
+    files foreach { file =>
+      new ScalaSourceIndexer(new UnindexedDocument(file.getFullPath.toString)).indexDocument()
+    }
+
+  private def indexAllWith(threads: Int): Unit = {
+    val pool = new IndexParserPool(threads, new SourceIndexCache(None))
+    val root = Some(project.underlying.getFolder("src"))
+    try files foreach { file =>
+      val path = file.getFullPath.toString
+      val source = ScalaSourceFile.createFromPath(path).get.lastSourceMap().sourceFile
+      pool.index(path, source, root, new ScalaSourceIndexer(new UnindexedDocument(path)))
+    } finally pool.shutdown()
+  }
+
+  @Test def parsedVersusReplayedIndexing(): Unit = {
+    val cache = ScalaPlugin().sourceIndexCache
+
+    val parsed = BenchmarkUtils.medianNanos(Warmup, Iterations) {
+      cache.clear()
+      indexAll()
+    }
+
+    val (hitsBefore, _) = cache.getStats
+    val replayed = BenchmarkUtils.medianNanos(Warmup, Iterations)(indexAll())
+    val (hitsAfter, _) = cache.getStats
+
+    logger.info(s"Indexing of $Sources sources: parsed ${BenchmarkUtils.millis(parsed)}, replayed ${BenchmarkUtils.millis(replayed)}, " +
+      s"ratio ${parsed / (replayed max 1)}")
+    Assert.assertEquals("All the sources are replayed", Sources * (Warmup + Iterations), hitsAfter - hitsBefore)
+    Assert.assertTrue("Replaying is faster than parsing", replayed < parsed)
+  }
+
+  @Test def sequentialVersusParallelIndexing(): Unit = {
+    val cores = Runtime.getRuntime.availableProcessors
+    val sequential = BenchmarkUtils.medianNanos(Warmup, Iterations)(indexAllWith(1))
+    val parallel = BenchmarkUtils.medianNanos(Warmup, Iterations)(indexAllWith(cores))
+
+    logger.info(s"Initial indexing of $Sources sources: 1 thread ${BenchmarkUtils.millis(sequential)}, $cores threads ${BenchmarkUtils.millis(parallel)}, " +
+      s"ratio ${sequential / (parallel max 1)}")
+    if (cores > 1)
+      Assert.assertTrue("Parallel indexing is faster", parallel < sequential)
+  }
+}
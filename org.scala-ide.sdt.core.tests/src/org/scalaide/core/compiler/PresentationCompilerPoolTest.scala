@@ -0,0 +1,40 @@
+package org.scalaide.core.compiler
+
+import org.junit.Assert._
+import org.junit.Test
+import org.scalaide.core.internal.compiler.PresentationCompilerPool.Candidate
+import org.scalaide.core.internal.compiler.PresentationCompilerPool.toEvict
+
+class PresentationCompilerPoolTest {
+
+  private def candidate(name: String, lastActivity: Long, retainedBytes: Long = 0L, hasOpenEditors: Boolean = false) =
+    Candidate(name, lastActivity, retainedBytes, hasOpenEditors)
+
+  private def evicted(candidates: Seq[Candidate[String]], maxLive: Int = 0, budgetBytes: Long = 0L): Seq[String] =
+    toEvict(candidates, maxLive, budgetBytes).map(_.member)
+
+  @Test
+  def noLimitsEvictsNothing(): Unit = {
+    assertEquals(Nil, evicted(Seq(candidate("a", 1), candidate("b", 2), candidate("c", 3))))
+  }
+
+  @Test
+  def leastRecentlyActiveAreEvictedFirst(): Unit = {
+    val candidates = Seq(candidate("recent", 3), candidate("oldest", 1), candidate("old", 2))
+    assertEquals(Seq("oldest"), evicted(candidates, maxLive = 2))
+    assertEquals(Seq("oldest", "old"), evicted(candidates, maxLive = 1))
+  }
+
+  @Test
+  def openEditorsAndMostRecentAreProtected(): Unit = {
+    val candidates = Seq(candidate("edited", 1, hasOpenEditors = true), candidate("idle", 2), candidate("recent", 3))
+    assertEquals("Protected candidates are kept, even over the limit", Seq("idle"), evicted(candidates, maxLive = 1))
+  }
+
+  @Test
+  def heapBudgetUsesRetainedSizes(): Unit = {
+    val candidates = Seq(candidate("small", 1, retainedBytes = 10), candidate("big", 2, retainedBytes = 100), candidate("recent", 3, retainedBytes = 50))
+    assertEquals(Seq("small", "big"), evicted(candidates, budgetBytes = 100))
+    assertEquals(Seq("small"), evicted(candidates, budgetBytes = 150))
+  }
+}
@@ -0,0 +1,99 @@
+package org.scalaide.core.compiler
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import scala.tools.nsc.Settings
+
+import org.junit.After
+import org.junit.Assert._
+import org.junit.Before
+import org.junit.Test
+import org.scalaide.core.compiler.IScalaPresentationCompiler.Implicits._
+import org.scalaide.core.internal.ScalaPlugin
+import org.scalaide.core.internal.compiler.PresentationCompilerProxy
+import org.scalaide.core.internal.compiler.ScalaPresentationCompiler
+import org.scalaide.core.internal.project.ScalaProject
+import org.scalaide.core.testsetup.SDTTestUtils
+import org.scalaide.ui.internal.preferences.ResourcesPreferences
+
+class PresentationCompilerProxyTest {
+
+  private var project: ScalaProject = _
+  private var proxy: PresentationCompilerProxy = _
+
+  /** The number of compilers created by `proxy`. */
+  private val created = new AtomicInteger
+
+  @Before
+  def setUp(): Unit = {
+    project = SDTTestUtils.createProjectInWorkspace("pc-proxy", true).asInstanceOf[ScalaProject]
+    ScalaPlugin().getPreferenceStore.setValue(ResourcesPreferences.PRES_COMP_RESTART_IN_BACKGROUND, true)
+  }
+
+  @After
+  def tearDown(): Unit = {
+    if (proxy ne null) proxy.shutdown()
+    ScalaPlugin().getPreferenceStore.setToDefault(ResourcesPreferences.PRES_COMP_RESTART_IN_BACKGROUND)
+    SDTTestUtils.deleteProjects(project)
+  }
+
+  /** A proxy on the settings of `project`, where `standby` runs before the settings of a restarted compiler are created. */
+  private def newProxy(standby: => Unit): PresentationCompilerProxy = {
+    proxy = new PresentationCompilerProxy("pc-proxy", { () =>
+      if (created.incrementAndGet() > 1) standby
+      val settings = ScalaPresentationCompiler.defaultScalaSettings()
+      project.initializeCompilerSettings(settings, _ => true)
+      settings
+    })
+    proxy
+  }
+
+  private def currentCompiler: ScalaPresentationCompiler =
+    proxy.internal(pc => pc).orNull
+
+  private def answers(): Boolean =
+    proxy(_.asyncExec(1 + 1).getOption()).flatten == Some(2)
+
+  @Test
+  def requestsAreAnsweredDuringBackgroundRestart(): Unit = {
+    val preparing, release = new CountDownLatch(1)
+    newProxy {
+      preparing.countDown()
+      release.await(30, TimeUnit.SECONDS)
+    }
+    assertTrue(answers())
+    val oldPc = currentCompiler
+
+    proxy.askRestart()
+    assertTrue("The old compiler answers while the new one is prepared", answers())
+    assertTrue(preparing.await(30, TimeUnit.SECONDS))
+    assertTrue(answers())
+    assertSame(oldPc, currentCompiler)
+
+    release.countDown()
+    SDTTestUtils.waitUntil(30000)(proxy.backgroundRestartStats.count == 1)
+    assertEquals(1, proxy.backgroundRestartStats.count)
+    assertNotSame("The new compiler is swapped in", oldPc, currentCompiler)
+    assertTrue(answers())
+  }
+
+  @Test
+  def failedBackgroundRestartKeepsTheOldCompiler(): Unit = {
+    newProxy(throw new IllegalStateException("standby compiler failed"))
+    assertTrue(answers())
+    val oldPc = currentCompiler
+
+    proxy.askRestart()
+    assertTrue(answers())
+    SDTTestUtils.waitUntil(30000)(created.get == 2)
+    // the failed standby is discarded, a later restart prepares another one
+    SDTTestUtils.waitUntil(30000) { proxy.askRestart(); answers(); created.get == 3 }
+
+    assertEquals(3, created.get)
+    assertSame("The old compiler stays active", oldPc, currentCompiler)
+    assertTrue(answers())
+    assertEquals(0, proxy.backgroundRestartStats.count)
+  }
+}
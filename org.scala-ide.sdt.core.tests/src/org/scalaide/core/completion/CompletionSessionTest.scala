@@ -0,0 +1,49 @@
+package org.scalaide.core.completion
+
+import org.junit.Assert._
+import org.junit.Test
+import org.scalaide.core.internal.jdt.model.ScalaSourceFile
+import org.scalaide.core.testsetup.TestProjectSetup
+import org.scalaide.util.ScalaWordFinder
+
+object CompletionSessionTest extends TestProjectSetup("completion")
+
+class CompletionSessionTest {
+  import CompletionSessionTest._
+
+  private def completeAfter(completions: ScalaCompletions, unit: ScalaSourceFile, word: String): List[String] = {
+    val contents = unit.getContents
+    val position = contents.mkString.lastIndexOf(word) + word.length
+    completions.findCompletions(ScalaWordFinder.findWord(contents, position), position, unit).map(_.display).sorted
+  }
+
+  /** Type `text` right after the last occurrence of `word`, as the editor would. */
+  private def typeAfter(unit: ScalaSourceFile, word: String, text: String): Unit = {
+    unit.getBuffer.replace(unit.getContents.mkString.lastIndexOf(word) + word.length, 0, text)
+    project.presentationCompiler { _.askReload(unit, unit.sourceMap(unit.getContents).sourceFile) }
+  }
+
+  private def assertRefinedLikeFresh(unit: ScalaSourceFile, word: String, typed: String): Unit = {
+    val completions = new ScalaCompletions
+    val before = completeAfter(completions, unit, word)
+
+    typeAfter(unit, word, typed)
+    val refined = completeAfter(completions, unit, word + typed)
+    val fresh = completeAfter(new ScalaCompletions, unit, word + typed)
+
+    assertEquals("Refined completions", fresh, refined)
+    assertTrue(s"Completions for '${word + typed}' should be fewer than for '$word'", refined.size < before.size)
+  }
+
+  @Test
+  def refinedMemberCompletionsAreTheSameAsFreshOnes(): Unit = {
+    createSourceFile("session", "Members.scala")("package session\nobject Members {\n  List(1).fo\n}\n")
+    assertRefinedLikeFresh(open("session/Members.scala"), "List(1).fo", "l")
+  }
+
+  @Test
+  def refinedScopeCompletionsAreTheSameAsFreshOnes(): Unit = {
+    createSourceFile("session", "Scope.scala")("package session\nobject Scope {\n  val x = Arr\n}\n")
+    assertRefinedLikeFresh(open("session/Scope.scala"), "= Arr", "ayB")
+  }
+}
@@ -0,0 +1,75 @@
+package org.scalaide.core.internal.decorators.semantichighlighting.classifier
+
+import scala.reflect.internal.util.SourceFile
+
+import org.eclipse.core.runtime.IProgressMonitor
+import org.eclipse.jface.text.IRegion
+import org.eclipse.jface.text.Region
+import org.scalaide.core.compiler.IScalaPresentationCompiler
+import org.scalaide.core.compiler.IScalaPresentationCompiler.Implicits._
+import org.scalaide.core.internal.decorators.semantichighlighting.classifier.SymbolTypes._
+
+/** The traversal of `SymbolClassification` as it was before it ran as a single compiler task:
+ *  the typed tree is traversed on the calling thread, and each symbol query is a round trip to
+ *  the compiler thread. It is the baseline of `SemanticHighlightingBenchmark`.
+ */
+class RoundTripSymbolClassification(file: SourceFile, compiler: IScalaPresentationCompiler)
+  extends SymbolClassification(file, compiler, useSyntacticHints = false) {
+
+  import global._
+
+  /** The symbol infos found in the typed tree of the unit, before they are pruned. */
+  def rawSymbolInfos(progressMonitor: IProgressMonitor): Seq[SymbolInfo] = {
+    val tree = global.askLoadedTyped(sourceFile, true).get.fold(identity, _ => EmptyTree)
+
+    def getSymbolInfo(symbolType: SymbolType, sym: Symbol, region: Option[IRegion]): SymbolInfo = {
+      // isDeprecated may trigger type completion for annotations
+      val deprecated = sym.annotations.nonEmpty && global.asyncExec(sym.isDeprecated).getOrElse(false)()
+      SymbolInfo(symbolType, region.toList, deprecated, inInterpolatedString = false)
+    }
+
+    def findDynamicInfo(t: Tree): Option[SymbolInfo] =
+      findDynamicMethodCall(t) map {
+        case (symbolType, pos) =>
+          val sym = global.asyncExec(t.symbol).getOrElse(NoSymbol)()
+          getSymbolInfo(symbolType, sym, Some(new Region(pos.start, pos.end - pos.start)))
+      }
+
+    def getRefinedSymbolType(sym: Symbol, t: Tree): SymbolType = {
+      val symType = getSymbolType(sym)
+      if (symType == CallByNameParameter && t.isDef) Param else symType
+    }
+
+    def findSymbolInfo(t: Tree): List[SymbolInfo] =
+      safeSymbol(t) collect {
+        case (sym, pos) if canBeReferencedInSource(sym) =>
+          getSymbolInfo(getRefinedSymbolType(sym, t), sym, occurrenceRegion(sym, pos))
+      }
+
+    var symbolInfos = IndexedSeq.empty[SymbolInfo]
+    new Traverser {
+      override def traverse(t: Tree): Unit = {
+        def symExists = global.asyncExec(t.symbol != NoSymbol).getOrElse(false)()
+
+        if (!progressMonitor.isCanceled() && isSourceTree(t) && (t.hasSymbolField || t.isType || symExists)) {
+          val ds = findDynamicInfo(t)
+          symbolInfos ++= (if (ds.isEmpty) findSymbolInfo(t) else ds.toList)
+        }
+        super.traverse(t)
+      }
+    }.traverse(tree)
+    symbolInfos
+  }
+
+  private def canBeReferencedInSource(sym: Symbol): Boolean =
+    !sym.isAnonymousFunction && !sym.isAnonymousClass && !(sym.isSynthetic && sym.isValueParameter)
+
+  private def occurrenceRegion(sym: Symbol, pos: Position): Option[IRegion] =
+    if (!pos.isRange) None
+    else {
+      val text = new String(sourceFile.content, pos.start, pos.end - pos.start)
+      val symName = sym.nameString
+      if (symName.startsWith(text) || text == "`" + symName + "`") Some(new Region(pos.start, pos.end - pos.start))
+      else None
+    }
+}
@@ -0,0 +1,39 @@
+package org.scalaide.core.internal.project
+
+import org.eclipse.core.resources.IProject
+import org.junit.Assert
+import org.junit.Test
+import org.mockito.Mockito._
+
+class ClasspathCacheTest {
+
+  private val a, b, c = mock(classOf[IProject])
+
+  private def cacheWith(values: (IProject, Set[IProject])*): ClasspathCache[String] = {
+    val cache = new ClasspathCache[String]
+    for ((project, dependencies) <- values)
+      cache.put(project, project.toString, dependencies, cache.generation)
+    cache
+  }
+
+  @Test
+  def invalidationDropsDependentProjects(): Unit = {
+    val cache = cacheWith(a -> Set(a), b -> Set(b, a), c -> Set(c))
+    cache.invalidate(a)
+
+    Assert.assertEquals(None, cache.get(a))
+    Assert.assertEquals(None, cache.get(b))
+    Assert.assertEquals(Some(c.toString), cache.get(c))
+    Assert.assertEquals((1, 2), cache.getStats)
+  }
+
+  @Test
+  def valuesComputedDuringAnInvalidationAreNotCached(): Unit = {
+    val cache = new ClasspathCache[String]
+    val generation = cache.generation
+    cache.invalidate(b)
+    cache.put(a, "stale", Set(a), generation)
+
+    Assert.assertEquals(None, cache.get(a))
+  }
+}
@@ -0,0 +1,51 @@
+package org.scalaide.core.internal.project
+
+import org.eclipse.core.runtime.NullProgressMonitor
+import org.junit.After
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.scalaide.core.testsetup.SDTTestUtils
+
+class SourceInventoryTest {
+
+  private var project: ScalaProject = _
+
+  @Before
+  def createProject(): Unit = {
+    SDTTestUtils.enableAutoBuild(false)
+    project = SDTTestUtils.internalCreateProjectInWorkspace("source-inventory", true)
+    SDTTestUtils.addFileToProject(project.underlying, "src/p/A.scala", "package p\nclass A")
+  }
+
+  @After
+  def deleteProject(): Unit = {
+    SDTTestUtils.deleteProjects(project)
+  }
+
+  private def names: Set[String] = project.allFilesInSourceDirs().map(_.getProjectRelativePath.toString)
+
+  @Test
+  def changesAreAppliedWithoutWalkingTheSourceFolders(): Unit = {
+    Assert.assertEquals(Set("src/p/A.scala"), names)
+    val (walks, _) = project.sourceInventoryStats
+
+    SDTTestUtils.addFileToProject(project.underlying, "src/p/B.scala", "package p\nclass B")
+    SDTTestUtils.addFileToProject(project.underlying, "src/q/r/C.scala", "package q.r\nclass C")
+    project.underlying.getFile("src/p/A.scala").delete(true, new NullProgressMonitor)
+    Assert.assertEquals(Set("src/p/B.scala", "src/q/r/C.scala"), names)
+
+    project.underlying.getFolder("src/q").delete(true, new NullProgressMonitor)
+    Assert.assertEquals(Set("src/p/B.scala"), names)
+
+    Assert.assertEquals("No new walk of the source folders", walks, project.sourceInventoryStats._1)
+  }
+
+  @Test
+  def filesOutsideOfSourceFoldersAreIgnored(): Unit = {
+    Assert.assertEquals(Set("src/p/A.scala"), names)
+
+    SDTTestUtils.addFileToProject(project.underlying, "other/D.scala", "class D")
+    Assert.assertEquals(Set("src/p/A.scala"), names)
+  }
+}
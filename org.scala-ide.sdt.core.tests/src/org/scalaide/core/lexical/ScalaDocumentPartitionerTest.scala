@@ -2,7 +2,9 @@ package org.scalaide.core.lexical
 
 import org.junit.Assert._
 import org.junit.Test
+import org.eclipse.jdt.ui.text.IJavaPartitions._
 import org.eclipse.jface.text._
+import org.eclipse.jface.text.IDocument.DEFAULT_CONTENT_TYPE
 
 class ScalaDocumentPartitionerTest {
 
@@ -30,6 +32,62 @@ class ScalaDocumentPartitionerTest {
     check("""/* comment */ 42""", Deletion(start = 13, finish = 15), expectedRegion(13, 0))
   }
 
+  @Test
+  def incremental_partitioning_matches_full_partitioning(): Unit = {
+    val source = """package foo
+      |/** Scaladoc {{{ val code = 1 }}} */
+      |class A {
+      |  val s = s"interpolated $x and ${y + "nested"} string"
+      |  val c = '"'
+      |  val x = <a href="link">{ "embedded" }</a>
+      |  /* multi /* nested */ line */
+      |  val m = QQQmulti
+      |    lineQQQ // comment
+      |}
+      |""".stripMargin.replace("QQQ", "\"\"\"")
+    val edits = Seq(
+      Insertion(point = 0, text = "/*"),
+      Deletion(start = 0, finish = 1),
+      Insertion(point = 60, text = "\""),
+      Insertion(point = 61, text = "\""),
+      Replace(start = 90, finish = 95, text = "<b>"),
+      Insertion(point = 120, text = "'"),
+      Deletion(start = 30, finish = 80),
+      Insertion(point = source.length - 60, text = "\"\"\""),
+      Insertion(point = 5, text = "{ <x>"))
+
+    val doc = new Document(source)
+    val partitioner = ScalaCodePartitioner.documentPartitioner()
+    partitioner.connect(doc)
+    for (edit <- edits) {
+      val event = edit.docEvent(doc)
+      if (event.getOffset + event.getLength <= doc.getLength) {
+        doc.replace(event.getOffset, event.getLength, event.getText)
+        partitioner.documentChanged2(event)
+        assertEquals(s"After $edit", ScalaCodePartitioner.partition(doc.get), partitioner.computePartitioning(0, doc.getLength).toList)
+      }
+    }
+  }
+
+  @Test
+  def partition_lookups(): Unit = {
+    //                        000000000011111111112222222222333333333344444444445
+    //                        012345678901234567890123456789012345678901234567890
+    val doc = new Document("""/* comment */ "foo" /* comment */""")
+    val partitioner = ScalaCodePartitioner.documentPartitioner()
+    partitioner.connect(doc)
+
+    assertEquals(new TypedRegion(14, 5, JAVA_STRING), partitioner.getPartition(16))
+    assertEquals(new TypedRegion(13, 1, DEFAULT_CONTENT_TYPE), partitioner.getPartition(13))
+    assertEquals(JAVA_MULTI_LINE_COMMENT, partitioner.getContentType(0))
+    assertEquals(DEFAULT_CONTENT_TYPE, partitioner.getContentType(doc.getLength))
+    assertEquals(
+      List(new TypedRegion(10, 3, JAVA_MULTI_LINE_COMMENT), new TypedRegion(13, 1, DEFAULT_CONTENT_TYPE), new TypedRegion(14, 2, JAVA_STRING)),
+      partitioner.computePartitioning(10, 6).toList)
+    assertEquals(List(new TypedRegion(20, 13, JAVA_MULTI_LINE_COMMENT)), partitioner.computePartitioning(20, 100).toList)
+    assertEquals(Nil, partitioner.computePartitioning(doc.getLength, 10).toList)
+  }
+
   private def expectedRegion(offset: Int, length: Int) = new Region(offset, length)
 
   private def expectedNoRegion: IRegion = null
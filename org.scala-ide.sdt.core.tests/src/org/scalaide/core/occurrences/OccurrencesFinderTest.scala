@@ -14,7 +14,7 @@ object OccurrencesFinderTest extends TestProjectSetup("occurrences-hyperlinking"
 class OccurrencesFinderTest {
   import OccurrencesFinderTest._
 
-  @Test def typeOccurrences(): Unit = {
+  private def loadedUnit(): ScalaCompilationUnit = {
     val unit = compilationUnit("occ/DummyOccurrences.scala").asInstanceOf[ScalaCompilationUnit];
 
     // first, 'open' the file by telling the compiler to load it
@@ -23,6 +23,11 @@ class OccurrencesFinderTest {
 
       compiler.askLoadedTyped(src, false).get
     }
+    unit
+  }
+
+  @Test def typeOccurrences(): Unit = {
+    val unit = loadedUnit()
 
     val contents = unit.getContents
     val positions = SDTTestUtils.markersOf(contents, "<")
@@ -34,9 +39,28 @@ class OccurrencesFinderTest {
       val region = ScalaWordFinder.findWord(contents, pos - 1)
       val word = new String(contents.slice(region.getOffset(), region.getOffset() + region.getLength()))
       println("using word region: " + region)
-      val occurrences = new ScalaOccurrencesFinder(unit).findOccurrences(region, 1)
+      val finder = new ScalaOccurrencesFinder(unit)
+      val occurrences = try finder.findOccurrences(region, 1) finally finder.dispose()
       assertTrue("No occurrences of %s".format(word), occurrences.isDefined)
       assertEquals("Not enough occurrences (%s): expected: %d, found: %d".format(word, count, occurrences.get.locations.size), count, occurrences.get.locations.size)
     }
   }
-}
\ No newline at end of file
+
+  @Test def occurrencesAreTheSameWhenTheIndexIsReused(): Unit = {
+    val unit = loadedUnit()
+    val contents = unit.getContents
+    val (pos, _) = SDTTestUtils.markersOf(contents, "<").head
+    val region = ScalaWordFinder.findWord(contents, pos - 1)
+
+    val finder, other = new ScalaOccurrencesFinder(unit)
+    val first = finder.findOccurrences(region, 2)
+    val fromSameIndex = other.findOccurrences(region, 2)
+    val fromNewIndex = other.findOccurrences(region, 3)
+    finder.dispose()
+    other.dispose()
+
+    assertTrue("No occurrences", first.isDefined)
+    assertEquals(first, fromSameIndex)
+    assertEquals(first, fromNewIndex)
+  }
+}
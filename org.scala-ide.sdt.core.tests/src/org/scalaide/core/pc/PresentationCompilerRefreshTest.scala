@@ -1,6 +1,7 @@
 package org.scalaide.core
 package pc
 
+import org.junit.Assert
 import org.junit.Test
 import org.eclipse.core.resources.IFile
 import org.scalaide.util.eclipse.EclipseUtils
@@ -32,6 +33,22 @@ class PresentationCompilerRefreshTest {
     assertNoErrors(unitA)
   }
 
+  @Test def flushesWithinAShortWindowShareOneReload(): Unit = {
+    val unitA = scalaCompilationUnit("a/A.scala")
+
+    unitA.scalaProject.presentationCompiler { comp =>
+      comp.askReload(unitA, unitA.lastSourceMap().sourceFile).get // synchronize with the presentation compiler
+
+      comp.scheduleReload(unitA, unitA.lastSourceMap().sourceFile)
+      val first = comp.flushScheduledReloads()
+      val second = comp.flushScheduledReloads()
+
+      Assert.assertTrue("Flushes are merged into one reload", first eq second)
+      Assert.assertTrue("The merged reload completes", first.get.isLeft)
+      Assert.assertTrue("Flushing without scheduled units returns the last reload", comp.flushScheduledReloads() eq first)
+    }
+  }
+
   val new_A_scala = """
 package a
 import b._
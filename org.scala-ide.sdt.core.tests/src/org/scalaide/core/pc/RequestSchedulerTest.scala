@@ -0,0 +1,109 @@
+package org.scalaide.core.pc
+
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+import scala.reflect.internal.util.BatchSourceFile
+import scala.tools.nsc.interactive.Response
+
+import org.junit.Assert
+import org.junit.Test
+import org.scalaide.core.internal.compiler.RequestScheduler
+import org.scalaide.core.internal.compiler.RequestScheduler._
+
+class RequestSchedulerTest {
+
+  private val source = new BatchSourceFile("A.scala", "class A")
+
+  /** Submit a request that records `label` when posted, and completes when `complete` is called. */
+  private class Requests(scheduler: RequestScheduler) {
+    val posted = new LinkedBlockingQueue[String]
+    private var responses = Map[String, Response[Unit]]()
+
+    def submit(label: String, priority: Priority, obsolete: Boolean = false): Response[Unit] = {
+      val response = new Response[Unit]
+      responses += label -> response
+      scheduler.submit(priority, source, response, _ => obsolete)(posted.add(label))
+      response
+    }
+
+    def complete(label: String): Unit =
+      responses(label).set(())
+
+    def nextPosted(): String =
+      posted.poll(10, TimeUnit.SECONDS)
+  }
+
+  @Test
+  def urgentRequestsOvertakeWaitingOnes(): Unit = {
+    val requests = new Requests(new RequestScheduler("test"))
+    // nothing is more urgent, the scheduler waits for it
+    requests.submit("running", Completion)
+    Assert.assertEquals("running", requests.nextPosted())
+
+    requests.submit("background", Background)
+    requests.submit("hover", Hover)
+    requests.submit("completion", Completion)
+    requests.complete("running")
+
+    Assert.assertEquals("Completion comes first", "completion", requests.nextPosted())
+    requests.complete("completion")
+    Assert.assertEquals("Then the hover", "hover", requests.nextPosted())
+    requests.complete("hover")
+    Assert.assertEquals("Background last", "background", requests.nextPosted())
+  }
+
+  @Test
+  def obsoleteRequestsAreDropped(): Unit = {
+    val scheduler = new RequestScheduler("test")
+    val requests = new Requests(scheduler)
+    requests.submit("running", Hover)
+    Assert.assertEquals("running", requests.nextPosted())
+
+    val hover = requests.submit("hover", Hover, obsolete = true)
+    requests.submit("completion", Completion, obsolete = true)
+    requests.complete("running")
+
+    Assert.assertEquals("Completion is never dropped", "completion", requests.nextPosted())
+    Assert.assertTrue("Obsolete hover fails", hover.get.isRight)
+    Assert.assertEquals("One dropped request", 1, scheduler.stats.dropped)
+  }
+
+  @Test
+  def withPriorityOverridesTheDefault(): Unit = {
+    val requests = new Requests(new RequestScheduler("test"))
+    requests.submit("running", Completion)
+    Assert.assertEquals("running", requests.nextPosted())
+
+    requests.submit("hover", Hover)
+    RequestScheduler.withPriority(Completion)(requests.submit("urgent", Background))
+    requests.complete("running")
+
+    Assert.assertEquals("urgent", requests.nextPosted())
+  }
+
+  @Test
+  def urgentRequestIsPostedWithoutWaitingForBackgroundWork(): Unit = {
+    val requests = new Requests(new RequestScheduler("test"))
+    requests.submit("typecheck", Background)
+    Assert.assertEquals("typecheck", requests.nextPosted())
+
+    requests.submit("highlighting", Highlighting)
+    Assert.assertEquals("Highlighting doesn't wait for background work", "highlighting", requests.posted.poll(1, TimeUnit.SECONDS))
+  }
+
+  @Test
+  def obsoleteBackgroundRequestsAreNotDropped(): Unit = {
+    val scheduler = new RequestScheduler("test")
+    val requests = new Requests(scheduler)
+    requests.submit("running", Completion)
+    Assert.assertEquals("running", requests.nextPosted())
+
+    val highlighting = requests.submit("highlighting", Highlighting, obsolete = true)
+    requests.submit("background", Background, obsolete = true)
+    requests.complete("running")
+
+    Assert.assertEquals("Background requests are never dropped", "background", requests.nextPosted())
+    Assert.assertTrue("Obsolete highlighting fails", highlighting.get.isRight)
+  }
+}
@@ -0,0 +1,44 @@
+package org.scalaide.core.sbtbuilder
+
+import java.io.File
+
+import org.junit.Assert
+import org.junit.Test
+import org.scalaide.core.internal.builder.zinc.AnalysisCache
+import org.scalaide.core.internal.builder.zinc.AnalysisWriter
+
+import sbt.internal.inc.Analysis
+
+class AnalysisCacheTest {
+
+  private def missingCacheFile = new File(System.getProperty("java.io.tmpdir"), s"analysis-cache-test-${System.nanoTime}")
+
+  @Test
+  def firstAccessReadsFromDisk(): Unit = {
+    val cache = new AnalysisCache(missingCacheFile, new AnalysisWriter)
+    val (analysis, setup) = cache.get()
+
+    Assert.assertEquals("Missing cache file gives an empty analysis", Analysis.empty, analysis)
+    Assert.assertEquals("Missing cache file gives no setup", None, setup)
+    Assert.assertEquals("Zero hits and one miss", (0L, 1L), (cache.stats.hits, cache.stats.misses))
+  }
+
+  @Test
+  def secondAccessIsServedFromMemory(): Unit = {
+    val cache = new AnalysisCache(missingCacheFile, new AnalysisWriter)
+    cache.get()
+    cache.get()
+
+    Assert.assertEquals("One hit and one miss", (1L, 1L), (cache.stats.hits, cache.stats.misses))
+  }
+
+  @Test
+  def clearForcesRead(): Unit = {
+    val cache = new AnalysisCache(missingCacheFile, new AnalysisWriter)
+    cache.get()
+    cache.clear()
+    cache.get()
+
+    Assert.assertEquals("Zero hits and two misses", (0L, 2L), (cache.stats.hits, cache.stats.misses))
+  }
+}
@@ -0,0 +1,24 @@
+package org.scalaide.core.sbtbuilder
+
+import org.junit.Assert
+import org.junit.Test
+import org.scalaide.core.internal.builder.zinc.ApiHashes
+
+class ApiHashesTest {
+
+  @Test
+  def changedClassesIncludeAddedAndRemovedOnes(): Unit = {
+    val before = ApiHashes(Map("p.A" -> 1, "p.B" -> 2, "p.C" -> 3))
+    val after = ApiHashes(Map("p.A" -> 1, "p.B" -> 4, "p.D" -> 5))
+
+    Assert.assertEquals(Set("p.B", "p.C", "p.D"), before.changedIn(after))
+  }
+
+  @Test
+  def sameHashesMeanNoChange(): Unit = {
+    val api = ApiHashes(Map("p.A" -> 1))
+
+    Assert.assertEquals(Set.empty, api.changedIn(ApiHashes(Map("p.A" -> 1))))
+    Assert.assertEquals(Set.empty, ApiHashes.Empty.changedIn(ApiHashes.Empty))
+  }
+}
@@ -25,4 +25,15 @@ class CompilerBridgeStoreTest {
     Assert.assertTrue("Second try successful", store.compilerBridgeFor(platformInstallation)(null).isRight)
     Assert.assertEquals("One hit and one miss", (1, 1), store.getStats)
   }
+
+  @Test
+  def prebuiltCompilerBridgeIsAHit(): Unit = {
+    val store = ScalaPlugin().compilerBridgeStore
+    store.purgeCache()
+
+    store.prebuild(Seq(platformInstallation, platformInstallation))(null)
+    Assert.assertTrue("Prebuilt bridge is found", store.compilerBridgeFor(platformInstallation)(null).isRight)
+    val stats = store.stats
+    Assert.assertEquals("One hit, one miss and no failure", (1, 1, 0), (stats.hits, stats.misses, stats.failures))
+  }
 }
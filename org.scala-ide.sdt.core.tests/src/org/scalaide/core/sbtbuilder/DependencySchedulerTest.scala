@@ -0,0 +1,72 @@
+package org.scalaide.core.sbtbuilder
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+import scala.collection.mutable.ListBuffer
+
+import org.junit.Assert
+import org.junit.Test
+import org.scalaide.core.internal.builder.DependencyScheduler
+
+class DependencySchedulerTest {
+
+  private def runAll[A](upstream: Map[A, Set[A]], parallelism: Int)(work: A => Unit): Seq[A] = {
+    val order = ListBuffer[A]()
+    new DependencyScheduler(upstream).run(parallelism, () => false)(work)(order += _)
+    order.toList
+  }
+
+  @Test
+  def upstreamFinishesBeforeDownstream(): Unit = {
+    val upstream = Map("a" -> Set[String](), "b" -> Set("a"), "c" -> Set("a"), "d" -> Set("b", "c"))
+    val order = runAll(upstream, parallelism = 4)(_ => ())
+
+    Assert.assertEquals("All nodes are run", upstream.keySet, order.toSet)
+    for ((node, deps) <- upstream; dep <- deps)
+      Assert.assertTrue(s"$dep finishes before $node", order.indexOf(dep) < order.indexOf(node))
+  }
+
+  @Test
+  def independentNodesRunInParallel(): Unit = {
+    val bothStarted = new CountDownLatch(2)
+    val order = runAll(Map("a" -> Set[String](), "b" -> Set[String]()), parallelism = 2) { _ =>
+      bothStarted.countDown()
+      Assert.assertTrue("Independent nodes run at the same time", bothStarted.await(10, TimeUnit.SECONDS))
+    }
+
+    Assert.assertEquals("Both nodes are run", Set("a", "b"), order.toSet)
+  }
+
+  @Test
+  def cyclesAndUnknownDependenciesDoNotBlock(): Unit = {
+    val upstream = Map("a" -> Set("b", "unknown"), "b" -> Set("a"), "c" -> Set("a", "b"))
+    val order = runAll(upstream, parallelism = 2)(_ => ())
+
+    Assert.assertEquals("All nodes are run", upstream.keySet, order.toSet)
+    Assert.assertEquals("Downstream of the cycle runs last", "c", order.last)
+  }
+
+  @Test
+  def failingWorkCountsAsFinished(): Unit = {
+    val order = runAll(Map("a" -> Set[String](), "b" -> Set("a")), parallelism = 1) { node =>
+      if (node == "a") throw new IllegalStateException("expected")
+    }
+
+    Assert.assertEquals("Downstream runs after a failure", List("a", "b"), order)
+  }
+
+  @Test
+  def cancellationStopsNewWork(): Unit = {
+    val canceled = new AtomicBoolean
+    val run = ListBuffer[String]()
+    val notRun = new DependencyScheduler(Map("a" -> Set[String](), "b" -> Set("a"))).run(1, () => canceled.get) { node =>
+      run += node
+      canceled.set(true)
+    }(_ => ())
+
+    Assert.assertEquals("Only the first node is run", List("a"), run.toList)
+    Assert.assertEquals("The other node is reported", Set("b"), notRun)
+  }
+}
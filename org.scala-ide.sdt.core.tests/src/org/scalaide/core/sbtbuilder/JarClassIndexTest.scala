@@ -0,0 +1,129 @@
+package org.scalaide.core.sbtbuilder
+
+import java.io.File
+import java.io.FileOutputStream
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import org.junit.After
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.scalaide.core.internal.builder.zinc.JarClassIndex
+import org.scalaide.core.testsetup.SDTTestUtils
+
+class JarClassIndexTest {
+
+  private var dir: File = _
+
+  @Before
+  def createDir(): Unit = {
+    dir = SDTTestUtils.createTempDir("jarClassIndex")
+    dir.mkdirs()
+  }
+
+  @After
+  def deleteDir(): Unit = {
+    SDTTestUtils.deleteRecursive(dir)
+  }
+
+  private def createJar(name: String, entries: String*): File = {
+    val jar = new File(dir, name)
+    val out = new ZipOutputStream(new FileOutputStream(jar))
+    try entries foreach { entry =>
+      out.putNextEntry(new ZipEntry(entry))
+      out.closeEntry()
+    } finally out.close()
+    jar
+  }
+
+  @Test
+  def findsClassesOfJar(): Unit = {
+    val jar = createJar("a.jar", "p/", "p/A.class", "p/q/B$.class", "META-INF/MANIFEST.MF")
+    val names = new JarClassIndex(None).classNames(jar)
+
+    Assert.assertTrue("p.A is defined", names.contains("p.A"))
+    Assert.assertTrue("p.q.B$ is defined", names.contains("p.q.B$"))
+    Assert.assertFalse("p.B is not defined", names.contains("p.B"))
+    Assert.assertEquals("Directories are not indexed", 3, names.size)
+  }
+
+  @Test
+  def reusesScanOfUnchangedJar(): Unit = {
+    val jar = createJar("a.jar", "p/A.class")
+    val index = new JarClassIndex(None)
+
+    Assert.assertSame("Unchanged jar is scanned once", index.classNames(jar), index.classNames(jar))
+  }
+
+  @Test
+  def rescansChangedJar(): Unit = {
+    val jar = createJar("a.jar", "p/A.class")
+    val index = new JarClassIndex(None)
+    index.classNames(jar)
+
+    createJar("a.jar", "p/A.class", "p/B.class")
+    jar.setLastModified(jar.lastModified + 2000)
+
+    Assert.assertTrue("New class is found", index.classNames(jar).contains("p.B"))
+  }
+
+  @Test
+  def restoresSavedIndex(): Unit = {
+    val jar = createJar("a.jar", "p/A.class")
+    val store = new File(dir, "index")
+    val index = new JarClassIndex(Some(store))
+    index.classNames(jar)
+    index.save()
+
+    Assert.assertTrue("Index was saved", store.isFile)
+    Assert.assertTrue("Restored index knows p.A", new JarClassIndex(Some(store)).classNames(jar).contains("p.A"))
+  }
+
+  @Test
+  def corruptStoreIsIgnored(): Unit = {
+    val jar = createJar("a.jar", "p/A.class")
+    val store = new File(dir, "index")
+    val out = new FileOutputStream(store)
+    try out.write(Array[Byte](0, 0, 0, 1, 0x7f, 0, 0, 0, 0, 1))
+    finally out.close()
+
+    Assert.assertTrue("Jar is scanned again", new JarClassIndex(Some(store)).classNames(jar).contains("p.A"))
+  }
+
+  @Test
+  def failedSaveIsRetried(): Unit = {
+    val jar = createJar("a.jar", "p/A.class")
+    val storeDir = new File(dir, "store")
+    val store = new File(storeDir, "index")
+    val index = new JarClassIndex(Some(store))
+    index.classNames(jar)
+    index.save()
+    Assert.assertFalse("Index can't be saved in a missing folder", store.exists)
+
+    storeDir.mkdirs()
+    index.save()
+    Assert.assertTrue("Index is saved once the folder exists", store.isFile)
+  }
+
+  @Test
+  def deletedJarsArePrunedOnSave(): Unit = {
+    val jar = createJar("a.jar", "p/A.class")
+    val deleted = createJar("b.jar", "p/B.class")
+    val store = new File(dir, "index")
+    val index = new JarClassIndex(Some(store))
+    index.classNames(jar)
+    index.classNames(deleted)
+    index.save()
+
+    deleted.delete()
+    index.save()
+
+    // the jars of the restored index are all checked when it is saved
+    var restored = List[String]()
+    val other = new JarClassIndex(Some(store), { file => restored :+= file.getName; true })
+    other.classNames(jar)
+    other.save()
+    Assert.assertEquals("Only the existing jar is saved", List("a.jar"), restored)
+  }
+}
@@ -294,6 +294,40 @@ class SbtBuilderTest {
     }
   }
 
+  @Test def traitPrivateMemberChange_recompiles_implementations_in_dependent_project(): Unit = {
+    import SDTTestUtils._
+    import Implicits.TestableProject
+
+    val Seq(prjLib, prjClient) = createProjects("trait-lib", "trait-client")
+    try {
+      prjClient onlyDependsOn prjLib
+      val traitUnit = createSourcePackage("lib")(prjLib).createCompilationUnit("T.scala",
+        "package lib\ntrait T {\n  private val a = 1\n  def sum = a\n}\n", true, null)
+      createSourcePackage("client")(prjClient).createCompilationUnit("C.scala",
+        "package client\nclass C extends lib.T\n", true, null)
+      workspace.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null)
+      Assert.assertEquals("Before the change", 1, sumOfC(prjLib, prjClient))
+
+      // the public API of `T` is unchanged, but `C` must now hold the field `b`
+      changeContentOfFile(traitUnit.getResource.asInstanceOf[IFile],
+        "package lib\ntrait T {\n  private val a = 1\n  private val b = 2\n  def sum = a + b\n}\n")
+      workspace.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null)
+      Assert.assertEquals("After the change", 3, sumOfC(prjLib, prjClient))
+    } finally {
+      deleteProjects(prjLib, prjClient)
+    }
+  }
+
+  /** Instantiates `client.C` from the output folders of the projects and returns its `sum`. */
+  private def sumOfC(projects: IScalaProject*): Int = {
+    val outputs = projects map (p => EclipseUtils.workspaceRoot.findMember(p.javaProject.getOutputLocation).getLocation.toFile.toURI.toURL)
+    val loader = new java.net.URLClassLoader(outputs.toArray, getClass.getClassLoader)
+    try {
+      val c = loader.loadClass("client.C")
+      c.getMethod("sum").invoke(c.newInstance()).asInstanceOf[Int]
+    } finally loader.close()
+  }
+
   @Test def checkClosedProject(): Unit = {
     closedProject.closeProject()
     Assert.assertEquals("exportedDependencies", Nil, closedProject.project.exportedDependencies)
@@ -12,6 +12,7 @@ import org.eclipse.jdt.core.ICompilationUnit
 import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
+import org.scalaide.core.internal.ScalaPlugin
 import org.scalaide.core.testsetup.SDTTestUtils
 import org.scalaide.core.util.when
 
@@ -47,6 +48,8 @@ class Scala210Compilation {
       }
       val root = project.javaProject.getResource.getLocation.makeAbsolute.toFile
       val cacheMain = new File(root.getAbsolutePath + File.separator + ".cache-main")
+      // analyses are written in the background
+      ScalaPlugin().analysisWriter.flush(cacheMain)
       assertTrue("Expected 2.10 scala installation, found: " + project.effectiveScalaInstallation.version.unparse, version == "2.10")
       assertTrue("No build errors expected, found: " + markersMessages(problems), problems.isEmpty)
       assertTrue("Expected .cache-main but not found", cacheMain.exists)
@@ -0,0 +1,62 @@
+package org.scalaide.core.search
+
+import scala.reflect.internal.util.BatchSourceFile
+
+import org.junit.Assert
+import org.junit.Test
+import org.scalaide.core.internal.jdt.search.IndexParser
+import org.scalaide.core.internal.jdt.search.IndexParserPool
+import org.scalaide.core.internal.jdt.search.ScalaSourceIndexer
+import org.scalaide.core.internal.jdt.search.SourceIndexCache
+import org.scalaide.core.testsetup.TestSearchDocuments.RecordingDocument
+
+class IndexParserTest {
+
+  private def indexEntriesOf(source: String): Seq[String] = {
+    val document = new RecordingDocument
+    IndexParser().index(new BatchSourceFile("A.scala", source), new ScalaSourceIndexer(document))
+    document.entries
+  }
+
+  @Test
+  def indexesDeclarationsAndReferences(): Unit = {
+    val entries = indexEntriesOf(
+      """package p
+        |@deprecated class A extends B {
+        |  def foo(x: Int) = bar(x, 1)
+        |}
+        |""".stripMargin)
+
+    Assert.assertTrue("Class declaration", entries.exists(e => e.startsWith("typeDecl:") && e.contains("A")))
+    Assert.assertTrue("Method declaration", entries.exists(_.startsWith("methodDecl:foo")))
+    Assert.assertTrue("Method reference", entries.exists(_.startsWith("methodRef:bar")))
+    Assert.assertTrue("Annotation reference", entries.exists(_ == "annotationRef:deprecated"))
+  }
+
+  @Test
+  def poolParsesOffTheCallingThread(): Unit = {
+    val pool = new IndexParserPool(1, new SourceIndexCache(None))
+    val document = new RecordingDocument
+    try pool.index(document.getPath, new BatchSourceFile("A.scala", "class A"), None, new ScalaSourceIndexer(document))
+    finally pool.shutdown()
+
+    Assert.assertTrue("Class declaration", document.entries.exists(e => e.startsWith("typeDecl:") && e.contains("A")))
+  }
+
+  @Test
+  def shutdownPoolDoesNotBlockIndexing(): Unit = {
+    val pool = new IndexParserPool(1, new SourceIndexCache(None))
+    pool.shutdown()
+    val document = new RecordingDocument
+    pool.index(document.getPath, new BatchSourceFile("A.scala", "class A"), None, new ScalaSourceIndexer(document))
+
+    Assert.assertTrue("Nothing is indexed", document.entries.isEmpty)
+  }
+
+  @Test
+  def indexesSourcesWithSyntaxErrors(): Unit = {
+    val entries = indexEntriesOf("class A { def foo = ")
+
+    Assert.assertTrue("Class declaration", entries.exists(e => e.startsWith("typeDecl:") && e.contains("A")))
+  }
+}
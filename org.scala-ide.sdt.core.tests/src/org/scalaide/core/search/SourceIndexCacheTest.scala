@@ -0,0 +1,104 @@
+package org.scalaide.core.search
+
+import java.io.File
+import java.io.FileOutputStream
+
+import org.junit.After
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.scalaide.core.internal.jdt.search.ScalaSourceIndexer
+import org.scalaide.core.internal.jdt.search.SourceIndexCache
+import org.scalaide.core.testsetup.SDTTestUtils
+import org.scalaide.core.testsetup.TestSearchDocuments.RecordingDocument
+
+class SourceIndexCacheTest {
+
+  private var dir: File = _
+
+  @Before
+  def createDir(): Unit = {
+    dir = SDTTestUtils.createTempDir("sourceIndexCache")
+    dir.mkdirs()
+  }
+
+  @After
+  def deleteDir(): Unit = {
+    SDTTestUtils.deleteRecursive(dir)
+  }
+
+  @Test
+  def replayedEntriesMatchIndexedEntries(): Unit = {
+    val indexed = new RecordingDocument
+    val indexer = new ScalaSourceIndexer(indexed)
+    indexer.addClassDeclaration(0, "p".toCharArray, "A".toCharArray, Array.empty, Array.empty, Array("B".toCharArray, "C".toCharArray), Array.empty, true)
+    indexer.addMethodDeclaration("foo".toCharArray, Array("Int".toCharArray), "String".toCharArray, Array.empty)
+    indexer.addMethodReference("bar".toCharArray, 2)
+    indexer.addTypeReference("List".toCharArray)
+    indexer.addFieldReference("baz".toCharArray)
+    indexer.addAnnotationTypeReference("deprecated".toCharArray)
+
+    val replayed = new RecordingDocument
+    new ScalaSourceIndexer(replayed).replay(indexer.recordedEntries)
+
+    Assert.assertTrue("Entries were added", indexed.entries.nonEmpty)
+    Assert.assertEquals(indexed.entries, replayed.entries)
+  }
+
+  @Test
+  def changedContentIsNotReplayed(): Unit = {
+    val cache = new SourceIndexCache(None)
+    cache.put("/p/src/A.scala", SourceIndexCache.contentHash("class A".toCharArray), Array[Byte](1, 2, 3))
+
+    Assert.assertTrue("Unchanged content is replayed", cache.get("/p/src/A.scala", SourceIndexCache.contentHash("class A".toCharArray)).isDefined)
+    Assert.assertFalse("Changed content is not replayed", cache.get("/p/src/A.scala", SourceIndexCache.contentHash("class B".toCharArray)).isDefined)
+    Assert.assertEquals((1, 1), cache.getStats)
+  }
+
+  @Test
+  def restoresSavedCacheOfExistingSources(): Unit = {
+    val store = new File(dir, "cache")
+    val hash = SourceIndexCache.contentHash("class A".toCharArray)
+    val cache = new SourceIndexCache(Some(store), _ != "/p/src/Deleted.scala")
+    cache.put("/p/src/A.scala", hash, Array[Byte](1, 2, 3))
+    cache.put("/p/src/Deleted.scala", hash, Array[Byte](4))
+    cache.save()
+
+    val restored = new SourceIndexCache(Some(store))
+    Assert.assertArrayEquals(Array[Byte](1, 2, 3), restored.get("/p/src/A.scala", hash).get)
+    Assert.assertFalse("Deleted sources are not saved", restored.get("/p/src/Deleted.scala", hash).isDefined)
+  }
+
+  @Test
+  def savedEntriesAreReadFromTheStore(): Unit = {
+    val store = new File(dir, "cache")
+    val hash = SourceIndexCache.contentHash("class A".toCharArray)
+    val cache = new SourceIndexCache(Some(store))
+    cache.put("/p/src/A.scala", hash, Array[Byte](1, 2, 3))
+    cache.save()
+    Assert.assertArrayEquals("Read back from the store", Array[Byte](1, 2, 3), cache.get("/p/src/A.scala", hash).get)
+
+    // the entries that are only in the store are copied to the new one
+    cache.put("/p/src/B.scala", hash, Array[Byte](4))
+    cache.save()
+    cache.close()
+
+    val restored = new SourceIndexCache(Some(store))
+    Assert.assertArrayEquals(Array[Byte](1, 2, 3), restored.get("/p/src/A.scala", hash).get)
+    Assert.assertArrayEquals(Array[Byte](4), restored.get("/p/src/B.scala", hash).get)
+    restored.close()
+  }
+
+  @Test
+  def corruptStoreIsIgnored(): Unit = {
+    val store = new File(dir, "cache")
+    val out = new FileOutputStream(store)
+    try out.write(Array[Byte](0, 0, 0, 2, 0, 0, 0, 1, 0, 3, 'a', 'b'))
+    finally out.close()
+
+    val restored = new SourceIndexCache(Some(store))
+    Assert.assertFalse("Nothing is restored from a truncated store", restored.contains("ab", ""))
+    restored.put("/p/src/A.scala", "hash", Array[Byte](1))
+    Assert.assertTrue("The cache is still usable", restored.contains("/p/src/A.scala", "hash"))
+  }
+}
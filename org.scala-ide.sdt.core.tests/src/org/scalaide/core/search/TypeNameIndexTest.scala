@@ -0,0 +1,76 @@
+package org.scalaide.core.search
+
+import org.junit.After
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.scalaide.core.internal.jdt.search.TypeNameIndex
+import org.scalaide.core.internal.project.ScalaProject
+import org.scalaide.core.internal.quickassist.searchForTypes
+import org.scalaide.core.testsetup.SDTTestUtils
+
+class TypeNameIndexTest {
+
+  private var project: ScalaProject = _
+
+  @Before
+  def createProject(): Unit = {
+    SDTTestUtils.enableAutoBuild(false)
+    project = SDTTestUtils.internalCreateProjectInWorkspace("type-name-index", true)
+    SDTTestUtils.addFileToProject(project.underlying, "src/p/Alpha.scala", "package p\nclass Alpha\nclass Alphabet\nclass Beta")
+  }
+
+  @After
+  def deleteProject(): Unit = {
+    SDTTestUtils.deleteProjects(project)
+  }
+
+  private def find(name: String, prefixMatch: Boolean, caseSensitive: Boolean = false, packageName: Option[String] = None): Set[String] =
+    project.typeNameIndex.find(name, prefixMatch, caseSensitive, packageName).getOrElse(Nil).map(_.fullyQualifiedName).toSet
+
+  @Test
+  def findTypesByPrefixIgnoringCase(): Unit = {
+    Assert.assertEquals(Set("p.Alpha", "p.Alphabet"), find("alp", prefixMatch = true, packageName = Some("p")))
+  }
+
+  @Test
+  def findTypesByExactName(): Unit = {
+    Assert.assertEquals(Set("p.Alpha"), find("Alpha", prefixMatch = false, caseSensitive = true))
+    Assert.assertEquals(Set.empty, find("alpha", prefixMatch = false, caseSensitive = true))
+  }
+
+  @Test
+  def findLibraryTypes(): Unit = {
+    Assert.assertEquals(Set("java.lang.String"), find("String", prefixMatch = false, caseSensitive = true, packageName = Some("java.lang")))
+  }
+
+  @Test
+  def addedSourcesAreIndexed(): Unit = {
+    Assert.assertEquals(Set("p.Alpha", "p.Alphabet"), find("alp", prefixMatch = true, packageName = Some("p")))
+
+    SDTTestUtils.addFileToProject(project.underlying, "src/p/Alps.scala", "package p\nclass Alps")
+    Assert.assertEquals(Set("p.Alpha", "p.Alphabet", "p.Alps"), find("alp", prefixMatch = true, packageName = Some("p")))
+  }
+
+  @Test
+  def libraryTypesAreSharedBetweenProjects(): Unit = {
+    find("String", prefixMatch = false)
+    val other = SDTTestUtils.internalCreateProjectInWorkspace("type-name-index-other", true)
+    try {
+      val (_, reusesBefore) = TypeNameIndex.libraryStats
+      Assert.assertTrue(other.typeNameIndex.find("String", prefixMatch = false).isDefined)
+      val (_, reusesAfter) = TypeNameIndex.libraryStats
+      Assert.assertTrue("The JRE types are searched once", reusesAfter > reusesBefore)
+    } finally {
+      SDTTestUtils.deleteProjects(other)
+    }
+  }
+
+  @Test
+  def indexedMatchesAreResolvedOnDemand(): Unit = {
+    val Seq(alpha) = searchForTypes(project.javaProject, "Alpha")
+    Assert.assertEquals("p.Alpha", alpha.getFullyQualifiedName)
+    Assert.assertEquals("p", alpha.getPackageName)
+    Assert.assertEquals("p.Alpha", alpha.getType.getFullyQualifiedName)
+  }
+}
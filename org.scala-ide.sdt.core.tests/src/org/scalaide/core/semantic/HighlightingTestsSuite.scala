@@ -16,5 +16,6 @@ import org.junit.runners.Suite
     classOf[ImplicitsHighlightingTest],
     classOf[CustomMethodHighlightingTest],
     classOf[CustomClassHighlightingTest],
-    classOf[CustomAnnotationHighlightingTest]))
+    classOf[CustomAnnotationHighlightingTest],
+    classOf[SharedTraversalTest]))
 class HighlightingTestsSuite
@@ -0,0 +1,92 @@
+package org.scalaide.core
+package semantic
+
+import scala.reflect.internal.util.SourceFile
+
+import org.eclipse.jface.text.Position
+import org.eclipse.jface.text.source.Annotation
+import org.junit.Assert._
+import org.junit.Before
+import org.junit.Test
+import org.scalaide.core.compiler.IScalaPresentationCompiler
+import org.scalaide.core.compiler.IScalaPresentationCompiler.Implicits._
+import org.scalaide.core.internal.compiler.ScalaPresentationCompiler
+import org.scalaide.core.internal.jdt.model.ScalaCompilationUnit
+import org.scalaide.core.testsetup.TestProjectSetup
+import org.scalaide.ui.internal.editor.decorators.SemanticActionPipeline
+import org.scalaide.ui.internal.editor.decorators.TreeAnnotationCollector
+import org.scalaide.ui.internal.editor.decorators.TreeSemanticAction
+import org.scalaide.ui.internal.editor.decorators.implicits.ImplicitHighlightingPresenter
+import org.scalaide.ui.internal.preferences.ImplicitsPreferencePage
+
+object SharedTraversalTest extends TestProjectSetup("implicits-highlighting")
+
+class SharedTraversalTest extends HighlightingTestHelpers(SharedTraversalTest) {
+
+  @Before
+  def setPreferences(): Unit = {
+    IScalaPlugin().getPreferenceStore.setValue(ImplicitsPreferencePage.PConversionsOnly, false)
+  }
+
+  private def texts(annotations: Map[Annotation, Position]): List[String] =
+    annotations.toList.map { case (ann, p) => ann.getText() + " [" + p.getOffset() + ", " + p.getLength() + "]" }.sorted
+
+  @Test
+  def collectorsSharingATraversalFindTheSameAnnotations(): Unit = {
+    withCompilationUnitAndCompiler("implicit-highlighting/Implicits.scala") { (compiler, scu) =>
+      val sourceFile = scu.lastSourceMap().sourceFile
+      val alone = ImplicitHighlightingPresenter.findAllImplicitConversions(compiler, scu, sourceFile)
+
+      val failing = new TreeAnnotationCollector {
+        var visited = 0
+        override def collect(tree: IScalaPresentationCompiler#Tree): Unit = {
+          visited += 1
+          throw new IllegalStateException("failing collector")
+        }
+        override def annotations = Map.empty
+      }
+      val tree = compiler.askLoadedTyped(sourceFile, false).get.left.get
+      val Seq(first, second, broken) = compiler.asyncExec {
+        TreeAnnotationCollector.traverse(compiler)(tree, Seq(
+          ImplicitHighlightingPresenter.implicitConversionsCollector(compiler, sourceFile),
+          ImplicitHighlightingPresenter.implicitConversionsCollector(compiler, sourceFile),
+          failing))
+      }.getOption().get
+
+      assertSameLists(texts(alone), texts(first.annotations))
+      assertSameLists(texts(alone), texts(second.annotations))
+      assertEquals("A failing collector is dropped from the traversal", 1, failing.visited)
+      assertTrue(broken.annotations.isEmpty)
+    }
+  }
+
+  /** Counts the nodes it is handed, and the annotations it is updated with. */
+  private class CountingAction extends TreeSemanticAction {
+    @volatile var nodes = 0
+    @volatile var updates = 0
+    override def collector(compiler: ScalaPresentationCompiler, scu: ScalaCompilationUnit, sourceFile: SourceFile): Option[TreeAnnotationCollector] =
+      Some(new TreeAnnotationCollector {
+        override def collect(tree: IScalaPresentationCompiler#Tree): Unit = nodes += 1
+        override def annotations = Map.empty
+      })
+    override def update(annotations: Map[Annotation, Position]): Unit = updates += 1
+    override def apply(scu: ScalaCompilationUnit): Unit = ()
+    override def dispose(): Unit = ()
+  }
+
+  @Test
+  def pipelineRunsTreeActionsInOneTraversalAndTimesThem(): Unit = {
+    withCompilationUnitAndCompiler("implicit-highlighting/Implicits.scala") { (compiler, scu) =>
+      compiler.askLoadedTyped(scu.lastSourceMap().sourceFile, false).get
+      val first, second = new CountingAction
+      val pipeline = new SemanticActionPipeline(Seq(first, second))
+      pipeline(scu)
+
+      assertTrue("The tree was traversed", first.nodes > 0)
+      assertEquals("Both actions see the same nodes", first.nodes, second.nodes)
+      assertEquals("Both actions are updated once", (1, 1), (first.updates, second.updates))
+      assertEquals("The actions are timed", Set(classOf[CountingAction].getName), pipeline.timings.keySet)
+      pipeline.dispose()
+    }
+  }
+}
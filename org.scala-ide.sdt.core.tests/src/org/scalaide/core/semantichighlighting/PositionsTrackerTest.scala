@@ -0,0 +1,55 @@
+package org.scalaide.core
+package semantichighlighting
+
+import org.eclipse.jface.text.Region
+import org.junit.Assert._
+import org.junit.Test
+import org.scalaide.core.internal.decorators.semantichighlighting.Position
+import org.scalaide.core.internal.decorators.semantichighlighting.PositionsTracker
+import org.scalaide.core.internal.decorators.semantichighlighting.classifier.SymbolTypes._
+
+class PositionsTrackerTest {
+
+  private def pos(offset: Int, length: Int, kind: SymbolType = LocalVal) =
+    new Position(offset, length, kind, deprecated = false, inInterpolatedString = false)
+
+  private def trackerWith(positions: Position*): PositionsTracker = {
+    val tracker = new PositionsTracker
+    tracker.swapPositions(positions.toArray)
+    tracker
+  }
+
+  @Test
+  def unchangedPositionsAreNeitherAddedNorRemoved(): Unit = {
+    val tracker = trackerWith(pos(0, 3), pos(10, 2), pos(20, 5))
+    val change = tracker.createPositionsChange(Array(pos(0, 3), pos(10, 2), pos(20, 5)))
+    assertEquals(Nil, change.toAdd)
+    assertEquals(Nil, change.toRemove)
+  }
+
+  @Test
+  def changedPositionsAreMergedByOffset(): Unit = {
+    val tracker = trackerWith(pos(0, 3), pos(10, 2), pos(20, 5))
+    val change = tracker.createPositionsChange(Array(pos(0, 3), pos(10, 2, Method), pos(15, 1), pos(20, 5)))
+    assertEquals(List(pos(10, 2, Method), pos(15, 1)), change.toAdd)
+    assertEquals(List(pos(10, 2)), change.toRemove)
+    assertEquals(new Region(10, 6), change.affectedRegion())
+  }
+
+  @Test
+  def deletedPositionsAreIgnored(): Unit = {
+    val deleted = pos(10, 2)
+    deleted.delete()
+    val tracker = trackerWith(pos(0, 3), deleted)
+    val change = tracker.createPositionsChange(Array(pos(0, 3)))
+    assertEquals(Nil, change.toAdd)
+    assertEquals(Nil, change.toRemove)
+  }
+
+  @Test
+  def onlyThePositionsOfTheRegionAreReplaced(): Unit = {
+    val tracker = trackerWith(pos(0, 3), pos(10, 2), pos(20, 5), pos(30, 1))
+    val replaced = tracker.positionsWithRegionReplaced(new Region(8, 20), Array(pos(0, 2), pos(12, 4, Method), pos(40, 1)))
+    assertEquals(List(pos(0, 3), pos(12, 4, Method), pos(30, 1)), replaced.toList)
+  }
+}
@@ -0,0 +1,99 @@
+package org.scalaide.core.semantichighlighting.classifier
+
+import scala.reflect.internal.util.BatchSourceFile
+
+import org.eclipse.core.runtime.NullProgressMonitor
+import org.junit.After
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.scalaide.core.IScalaProject
+import org.scalaide.core.internal.decorators.semantichighlighting.classifier._
+import org.scalaide.core.internal.decorators.semantichighlighting.classifier.SymbolTypes._
+import org.scalaide.core.testsetup.SDTTestUtils
+
+class ClassificationCacheTest {
+
+  private var project: IScalaProject = _
+
+  @Before
+  def createProject(): Unit = {
+    project = SDTTestUtils.createProjectInWorkspace("classification-cache", true)
+  }
+
+  @After
+  def deleteProject(): Unit = {
+    SDTTestUtils.deleteProjects(project)
+  }
+
+  /** Classify `source` with `cache`, and return the type of the symbol at the last occurrence of `name`. */
+  private def classifyLast(source: String, name: String, cache: ClassificationCache): Option[SymbolType] =
+    classifyAt(source, source.lastIndexOf(name), cache)
+
+  /** Classify `source` with `cache`, and return the type of the symbol at `offset`. */
+  private def classifyAt(source: String, offset: Int, cache: ClassificationCache): Option[SymbolType] = {
+    val sourceFile = new BatchSourceFile("A.scala", source)
+    project.presentationCompiler { compiler =>
+      val loaded = new compiler.Response[Unit]
+      compiler.askReload(List(sourceFile), loaded)
+      loaded.get
+
+      val symbolInfos = new SymbolClassification(sourceFile, compiler, useSyntacticHints = false, cache).classifySymbols(new NullProgressMonitor)
+      symbolInfos collectFirst {
+        case info if info.regions.exists(_.getOffset == offset) => info.symbolType
+      }
+    }.flatten
+  }
+
+  @Test
+  def unchangedDefinitionIsReclassifiedWhenNestedMemberChangesKind(): Unit = {
+    val cache = new ClassificationCache
+    val before = """
+      |object A {
+      |  object Inner {
+      |    def x = 1
+      |  }
+      |  def use = Inner.x
+      |}""".stripMargin
+    Assert.assertEquals(Some(Method), classifyLast(before, "x", cache))
+
+    val after = before.replace("def x", "val x")
+    Assert.assertEquals("The reference follows the new kind of the member", Some(TemplateVal), classifyLast(after, "x", cache))
+  }
+
+  @Test
+  def unchangedDefinitionsAreReused(): Unit = {
+    val cache = new ClassificationCache
+    val before = """
+      |object A {
+      |  def x = 1
+      |  def use = x
+      |}""".stripMargin
+    classifyLast(before, "x", cache)
+    val (hits, _) = cache.getStats
+
+    Assert.assertEquals(Some(Method), classifyLast(before.replace("= 1", "= 2"), "x", cache))
+    Assert.assertTrue("The unchanged definition is reused", cache.getStats._1 > hits)
+  }
+
+  @Test
+  def sameDefinitionInAnotherOwnerIsNotReused(): Unit = {
+    val cache = new ClassificationCache
+    val source = """
+      |object A {
+      |  val foo = 1
+      |  def use = foo
+      |}
+      |object B {
+      |  def foo = 1
+      |  def use = foo
+      |}""".stripMargin
+    val referenceInA = source.indexOf("= foo") + 2
+    Assert.assertEquals(Some(TemplateVal), classifyAt(source, referenceInA, cache))
+    Assert.assertEquals(Some(Method), classifyLast(source, "foo", cache))
+
+    // `A.use` and `B.use` have the same text, and are both unchanged
+    Assert.assertEquals("The reference of A is not classified as the one of B", Some(TemplateVal), classifyAt(source, referenceInA, cache))
+    Assert.assertEquals(Some(Method), classifyLast(source, "foo", cache))
+  }
+}
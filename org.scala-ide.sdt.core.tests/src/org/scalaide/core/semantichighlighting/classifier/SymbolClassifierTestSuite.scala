@@ -26,5 +26,6 @@ import org.junit.runners.Suite
   classOf[TypeParameterTest],
   classOf[TypeTest],
   classOf[DynamicTest],
-  classOf[CallByNameParameterTest]))
+  classOf[CallByNameParameterTest],
+  classOf[ClassificationCacheTest]))
 class SymbolClassifierTestSuite
\ No newline at end of file
@@ -0,0 +1,24 @@
+package org.scalaide.core.testsetup
+
+import scala.collection.mutable.ListBuffer
+
+import org.eclipse.jdt.core.search.SearchDocument
+
+/** Search documents for the tests of the source indexer, which is given the sources directly. */
+object TestSearchDocuments {
+
+  /** A document that is not part of any index, so that only the indexer is exercised. */
+  class UnindexedDocument(path: String) extends SearchDocument(path, null) {
+    override def getByteContents(): Array[Byte] = null
+    override def getCharContents(): Array[Char] = null
+    override def getEncoding(): String = null
+  }
+
+  /** A document that remembers the index entries added to it, as `category:key`. */
+  class RecordingDocument(path: String = "/p/src/A.scala") extends UnindexedDocument(path) {
+    val entries = ListBuffer[String]()
+
+    override def addIndexEntry(category: Array[Char], key: Array[Char]): Unit =
+      entries += new String(category) + ":" + new String(key)
+  }
+}
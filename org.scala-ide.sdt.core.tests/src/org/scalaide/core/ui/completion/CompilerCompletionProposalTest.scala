@@ -0,0 +1,92 @@
+package org.scalaide.core.ui.completion
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import scala.collection.mutable.ListBuffer
+
+import org.junit.Assert._
+import org.junit.Test
+import org.scalaide.core.CompilerTestUtils
+import org.scalaide.core.compiler.IScalaPresentationCompiler
+import org.scalaide.core.compiler.IScalaPresentationCompiler.Implicits._
+import org.scalaide.core.completion.CompletionContext
+import org.scalaide.core.completion.CompletionProposal
+import org.scalaide.core.testsetup.TestProjectSetup
+
+object CompilerCompletionProposalTest extends TestProjectSetup("decl-printer") {
+  val unit = scalaCompilationUnit("/pack/Target.scala")
+
+  val compUtils = new CompilerTestUtils(unit)
+}
+
+class CompilerCompletionProposalTest {
+  import CompilerCompletionProposalTest._
+
+  private val source = """|package pack
+                          |
+                          |trait Foo {
+                          |  def target1(i: Int)(s: String): Int
+                          |  def target2(f: Int => Int)(implicit ord: Ordering[Int]): Int
+                          |  class target3
+                          |}
+                          |""".stripMargin
+
+  /** Make the proposals of the `target` members of `src` in a single compiler task, like completion does. */
+  private def proposals(src: String): List[CompletionProposal] = {
+    val targets = ListBuffer[IScalaPresentationCompiler#Tree]()
+    compUtils.withTargetTrees(src)(targets += _)
+
+    unit.scalaProject.presentationCompiler { compiler =>
+      compiler.asyncExec {
+        for (target <- targets.toList) yield {
+          val sym = target.symbol.asInstanceOf[compiler.Symbol]
+          sym.initialize
+          compiler.mkCompletionProposal("target", 0, sym, sym.tpe, inherited = false, compiler.NoSymbol,
+            CompletionContext.DefaultContext, unit.scalaProject)
+        }
+      }.getOption()
+    }.flatten.getOrElse(Nil)
+  }
+
+  @Test
+  def proposalsHaveTheSignatureAndExplicitParameters(): Unit = {
+    val Seq(p1, p2, p3) = proposals(source)
+
+    assertEquals("target1", p1.completion)
+    assertEquals("def target1(i: Int)(s: String): Int", p1.display)
+    assertEquals(List(List("Int"), List("String")), p1.paramTypes)
+    assertEquals("(i: Int)(s: String)", p1.tooltip)
+
+    assertEquals("the implicit section is not a parameter to complete", List(List("Int => Int")), p2.paramTypes)
+    assertEquals("(f: Int => Int)", p2.tooltip)
+
+    assertEquals("target3", p3.display)
+    assertEquals(Nil, p3.paramTypes)
+  }
+
+  @Test
+  def proposalsOfOneTaskAreComputedTogether(): Unit = {
+    val ps = proposals(source)
+    assertEquals(3, ps.size)
+    ps.head.display
+
+    // keep the compiler busy: details that were not computed with the first ones can't be computed now
+    val started, release = new CountDownLatch(1)
+    @volatile var released = false
+    unit.scalaProject.presentationCompiler { compiler =>
+      compiler.asyncExec {
+        started.countDown()
+        release.await(10, TimeUnit.SECONDS)
+        released = true
+      }
+    }
+    assertTrue(started.await(10, TimeUnit.SECONDS))
+    try {
+      assertEquals(List("def target1", "def target2", "target3"),
+        ps.map(_.display.takeWhile(_ != '(')))
+      assertEquals(List(List(List("Int"), List("String")), List(List("Int => Int")), Nil), ps.map(_.paramTypes))
+      assertFalse("the details of all the proposals are computed by the first compiler task", released)
+    } finally release.countDown()
+  }
+}
@@ -11,6 +11,8 @@ import org.junit.runners.Suite
     classOf[ParameterCompletionTests],
     classOf[TypeCompletionTests],
     classOf[CompletionOrderTests],
-    classOf[ProposalRelevanceCalculatorTest]
+    classOf[ProposalRelevanceCalculatorTest],
+    classOf[LazyCompletionProposalTest],
+    classOf[CompilerCompletionProposalTest]
 ))
 class CompletionTestSuite
@@ -6,6 +6,7 @@ import org.scalaide.core.ui.CompilerSupport
 import org.scalaide.core.ui.TextEditTests
 import org.scalaide.util.ScalaWordFinder
 import org.scalaide.core.completion.CompletionProposal
+import org.scalaide.core.internal.ScalaPlugin
 import org.scalaide.core.internal.jdt.search.ScalaIndexBuilder
 import org.scalaide.core.testsetup.SDTTestUtils
 import org.eclipse.core.runtime.NullProgressMonitor
@@ -61,15 +62,15 @@ abstract class CompletionTests extends TextEditTests with CompilerSupport {
         path.split("/").last
       }
 
-      def lastIndexBuilderTraversals: Seq[String] = withCompiler {
-        case indexBuilder: ScalaIndexBuilder => indexBuilder.lastIndexBuilderTraversals
-      }.get
+      def lastIndexBuilderTraversals: Seq[String] = ScalaIndexBuilder.lastIndexBuilderTraversals
 
       def loadCompilationUnit(input: String) = {
         val unit = mkScalaCompilationUnit(input)
         unit
       }
 
+      // the preloaded sources must be parsed, not replayed from an earlier test
+      ScalaPlugin().sourceIndexCache.clear()
       val preloadedUnits = sourcesToPreload.map(loadCompilationUnit)
       val unit = loadCompilationUnit(source)
       val filesToIndex = preloadedUnits.map(_.file.canonicalPath).toSet
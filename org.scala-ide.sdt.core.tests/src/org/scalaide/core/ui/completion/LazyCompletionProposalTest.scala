@@ -0,0 +1,95 @@
+package org.scalaide.core.ui.completion
+
+import java.util.Arrays
+
+import org.eclipse.jdt.ui.text.java.CompletionProposalComparator
+import org.eclipse.jface.text.contentassist.ICompletionProposal
+import org.junit.Assert._
+import org.junit.Test
+import org.scalaide.core.completion.CompletionContext
+import org.scalaide.core.completion.CompletionProposal
+import org.scalaide.core.completion.MemberKind
+import org.scalaide.ui.completion.ScalaCompletionProposal
+
+class LazyCompletionProposalTest {
+
+  private var computed = List[String]()
+
+  /** Whether the compiler times out, in which case the display string and the parameters are not known. */
+  private var timedOut = false
+
+  private def proposal(name: String = "foo") = new CompletionProposal(
+    MemberKind.Def,
+    CompletionContext.DefaultContext,
+    0,
+    () => { computed :+= "completion"; name },
+    () => { computed :+= "display"; if (timedOut) None else Some(s"$name(i: Int): Int") },
+    "p.A",
+    50,
+    false,
+    () => if (timedOut) None else Some(List(List("i"))),
+    () => { computed :+= "paramTypes"; if (timedOut) None else Some(List(List("Int"))) },
+    "p.A.foo",
+    false,
+    () => None)
+
+  @Test
+  def nothingIsComputedUpfront(): Unit = {
+    val p = proposal()
+    assertEquals(50, p.relevance)
+    assertEquals("p.A.foo", p.fullyQualifiedName)
+    assertEquals(Nil, computed)
+  }
+
+  @Test
+  def eachPartIsComputedOnce(): Unit = {
+    val p = proposal()
+    assertEquals("foo(i: Int): Int", p.display)
+    assertEquals("foo(i: Int): Int", p.display)
+    assertEquals("(i: Int)", p.tooltip)
+    assertEquals(List("display", "paramTypes"), computed)
+  }
+
+  @Test
+  def timedOutPartsAreComputedAgain(): Unit = {
+    val p = proposal()
+    timedOut = true
+    assertEquals("the completion is displayed until the signature is known", "foo", p.display)
+    assertEquals(Nil, p.paramTypes)
+    assertEquals("", p.tooltip)
+
+    timedOut = false
+    assertEquals("foo(i: Int): Int", p.display)
+    assertEquals("(i: Int)", p.tooltip)
+    assertEquals(List("display", "completion", "paramTypes", "paramTypes", "display", "paramTypes"), computed)
+  }
+
+  @Test
+  def sortingDoesNotComputeTheSignatures(): Unit = {
+    val proposals = Array[ICompletionProposal](
+      ScalaCompletionProposal(proposal("foo")),
+      ScalaCompletionProposal(proposal("bar")),
+      ScalaCompletionProposal(proposal("baz")))
+    // proposals of equal relevance are sorted by their display string
+    Arrays.sort(proposals, new CompletionProposalComparator)
+
+    assertEquals(List("bar - p.A", "baz - p.A", "foo - p.A"), proposals.toList.map(_.getDisplayString))
+    assertFalse("the signatures are computed when the proposals are shown", computed.exists(_ != "completion"))
+  }
+
+  @Test
+  def proposalsWithTheSameValuesAreEqual(): Unit = {
+    val noParams = () => List[List[String]]()
+    val noDoc = () => None
+    def typeProposal(name: String) = CompletionProposal(MemberKind.Object, CompletionContext.DefaultContext, 0,
+      name, name, "p", 50, true, noParams, Nil, s"p.$name", true, noDoc)
+
+    assertEquals(typeProposal("A"), typeProposal("A"))
+    assertEquals(typeProposal("A").hashCode, typeProposal("A").hashCode)
+    assertEquals(2, Set(typeProposal("A"), typeProposal("A"), typeProposal("B")).size)
+
+    val p = proposal()
+    assertEquals(p, p)
+    assertEquals("equality doesn't compute the signature", List("completion"), computed)
+  }
+}
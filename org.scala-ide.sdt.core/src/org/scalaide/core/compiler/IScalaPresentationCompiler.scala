@@ -18,6 +18,7 @@ import org.scalaide.core.internal.compiler.InternalCompilerServices
 import org.scalaide.core.IScalaProject
 import scala.tools.nsc.doc.base.comment.Comment
 import org.scalaide.core.internal.compiler.ScalaPresentationCompiler
+import org.scalaide.core.internal.compiler.RequestScheduler
 import org.eclipse.jface.text.IRegion
 import org.eclipse.jface.text.hyperlink.IHyperlink
 
@@ -169,6 +170,9 @@ trait IScalaPresentationCompiler extends Global with CompilerApiExtensions with
    *
    *  Unlike `askReloadManagedUnits`, this one causes a reload of only units that have
    *  changes that were not yet re-type-checked.
+   *
+   *  This method does not block. Flushes within a short window are merged into a single reload,
+   *  and the returned `Response` is set once the compiler has reloaded the units.
    */
   def flushScheduledReloads(): Response[Unit]
 
@@ -320,7 +324,8 @@ object IScalaPresentationCompiler extends HasLogger {
        *  a response is never completed (for example, when the presentation compiler restarts).
        *
        *  Failures are logged:
-       *   - TypeError and FreshRunReq are printed to stdout, all the others are logged in the platform error log.
+       *   - TypeError and FreshRunReq are printed to stdout, obsolete requests dropped by the scheduler are only
+       *     logged in debug mode, all the others are logged in the platform error log.
        */
       def getOrElse[B >: A](default: => B)(timeout: Duration = AskTimeout): B = {
         getOption(timeout).getOrElse(default)
@@ -332,7 +337,8 @@ object IScalaPresentationCompiler extends HasLogger {
        *  a response is never completed (for example, when the presentation compiler restarts).
        *
        *  Failures are logged:
-       *   - TypeError and FreshRunReq are printed to stdout, all the others are logged in the platform error log.
+       *   - TypeError and FreshRunReq are printed to stdout, obsolete requests dropped by the scheduler are only
+       *     logged in debug mode, all the others are logged in the platform error log.
        */
       def getOption(timeout: Duration = AskTimeout): Option[A] = {
         val res = if (IScalaPlugin().noTimeoutMode) Some(resp.get) else resp.get(timeout.toMillis)
@@ -370,6 +376,11 @@ object IScalaPresentationCompiler extends HasLogger {
                 logger.info("FreshRunReq in ask:\n", f)
                 None
 
+              // the request was dropped by the scheduler, because its source changed in the meantime
+              case Right(o: RequestScheduler.ObsoleteRequestException) =>
+                logger.debug("Obsolete request in ask:\n", o)
+                None
+
               case Right(e: Throwable) =>
                 eclipseLog.error("Throwable during asyncExec", e)
                 None
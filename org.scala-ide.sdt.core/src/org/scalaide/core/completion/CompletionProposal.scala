@@ -30,34 +30,88 @@ object CompletionContext {
  *  display it to the user.
  *
  *  @note Parameter names are retrieved lazily, since the operation is potentially long-running.
+ *        The completion string, the display string and the parameter types are computed the
+ *        first time they are needed as well, so that the proposals the user never sees cost
+ *        nothing more than their name, kind and relevance. A display string or parameter list
+ *        that can't be computed yet, for instance because the compiler timed out, is `None`:
+ *        a fallback is used and the value is computed again the next time it is needed.
+ *  @note This used to be a case class. Two proposals are still equal when their known values
+ *        are equal and their values computed on demand come from the same functions, but the
+ *        case class `copy` and `unapply` are deprecated, as they compute all the values upfront.
  *  @see  ticket #1001560
  */
-case class CompletionProposal(
-  kind: MemberKind.Value,
-  context: CompletionContext.ContextType,
-  startPos: Int,             // position where the 'completion' string should be inserted
-  completion: String,        // the string to be inserted in the document
-  display: String,           // the display string in the completion list
-  displayDetail: String,     // additional details to be display in the completion list (like package for a class)
-  relevance: Int,
-  isJava: Boolean,
-  getParamNames: () => List[List[String]], // parameter names (excluding any implicit parameter sections)
-  paramTypes: List[List[String]],          // parameter types matching parameter names (excluding implicit parameter sections)
-  fullyQualifiedName: String, // for Class, Trait, Type, Objects: the fully qualified name
-  needImport: Boolean,        // for Class, Trait, Type, Objects: import statement has to be added
-  documentation: () => Option[BrowserInput]  // on-demand generated documentation HTML.
+class CompletionProposal(
+  val kind: MemberKind.Value,
+  val context: CompletionContext.ContextType,
+  val startPos: Int,             // position where the 'completion' string should be inserted
+  computeCompletion: () => String,   // the string to be inserted in the document
+  computeDisplay: () => Option[String], // the display string in the completion list
+  val displayDetail: String,     // additional details to be display in the completion list (like package for a class)
+  val relevance: Int,
+  val isJava: Boolean,
+  computeParamNames: () => Option[List[List[String]]], // parameter names (excluding any implicit parameter sections)
+  computeParamTypes: () => Option[List[List[String]]], // parameter types matching parameter names (excluding implicit parameter sections)
+  val fullyQualifiedName: String, // for Class, Trait, Type, Objects: the fully qualified name
+  val needImport: Boolean,        // for Class, Trait, Type, Objects: import statement has to be added
+  val documentation: () => Option[BrowserInput]  // on-demand generated documentation HTML.
 ) {
+  import CompletionProposal.Computed
 
-  /** `getParamNames` is expensive, save this result once computed.
-   *
-   *  @note This field is lazy to avoid unnecessary computation.
-   */
-  private lazy val explicitParamNames = getParamNames()
+  /** The string to be inserted in the document. */
+  lazy val completion: String = computeCompletion()
+
+  private val computedDisplay = new Computed(computeDisplay)
+  private val computedParamTypes = new Computed(computeParamTypes)
+  private val computedParamNames = new Computed(computeParamNames)
+
+  /** The display string in the completion list, or the completion string until it can be computed. */
+  def display: String = computedDisplay.getOrElse(completion)
+
+  /** Parameter types matching parameter names (excluding implicit parameter sections). */
+  def paramTypes: List[List[String]] = computedParamTypes.getOrElse(Nil)
+
+  /** `getParamNames` is expensive, save this result once computed. */
+  private def explicitParamNames: List[List[String]] = computedParamNames.getOrElse(Nil)
+
+  /** Parameter names (excluding any implicit parameter sections). */
+  @deprecated("Use `tooltip` or `linkedModeGroups`, the parameter names are computed when first needed", "4.7.1")
+  def getParamNames: () => List[List[String]] = () => explicitParamNames
+
+  /** Equality compares the functions computing the values on demand, so it computes none of them. */
+  private def equalityKey = (kind, context, startPos, completion, computeDisplay, displayDetail, relevance, isJava,
+    computeParamNames, computeParamTypes, fullyQualifiedName, needImport, documentation)
+
+  override def equals(other: Any): Boolean = other match {
+    case that: CompletionProposal => equalityKey == that.equalityKey
+    case _ => false
+  }
+
+  override def hashCode: Int = equalityKey.hashCode
+
+  override def toString: String = s"CompletionProposal($kind, $completion, $fullyQualifiedName, $relevance)"
+
+  @deprecated("CompletionProposal is no longer a case class, this computes the display string and the parameters", "4.7.1")
+  def copy(
+    kind: MemberKind.Value = this.kind,
+    context: CompletionContext.ContextType = this.context,
+    startPos: Int = this.startPos,
+    completion: String = this.completion,
+    display: String = this.display,
+    displayDetail: String = this.displayDetail,
+    relevance: Int = this.relevance,
+    isJava: Boolean = this.isJava,
+    getParamNames: () => List[List[String]] = () => explicitParamNames,
+    paramTypes: List[List[String]] = this.paramTypes,
+    fullyQualifiedName: String = this.fullyQualifiedName,
+    needImport: Boolean = this.needImport,
+    documentation: () => Option[BrowserInput] = this.documentation): CompletionProposal =
+    CompletionProposal(kind, context, startPos, completion, display, displayDetail, relevance, isJava,
+      getParamNames, paramTypes, fullyQualifiedName, needImport, documentation)
 
   /** Return the tooltip displayed once a completion has been activated. */
   def tooltip: String = {
     val contextInfo = for {
-      (names, tpes) <- getParamNames().zip(paramTypes)
+      (names, tpes) <- explicitParamNames.zip(paramTypes)
     } yield for { (name, tpe) <- names.zip(tpes) } yield "%s: %s".format(name, tpe)
 
     contextInfo.map(_.mkString("(", ", ", ")")).mkString("")
@@ -93,7 +147,7 @@ case class CompletionProposal(
    *    - non-argument higher order functions. The parameter is surrounded by braces and
    *      a dummy function `() => ???` is placed instead of the parameter name
    */
-  private lazy val completionData = {
+  private def completionData = {
     if (context == CompletionContext.ImportContext
         || (isJava && explicitParamNames == List(Nil) && completion.startsWith("get")))
       CompletionData(completion, IndexedSeq.empty)
@@ -116,7 +170,7 @@ case class CompletionProposal(
     }
   }
 
-  private val shouldInsertLambda =
+  private lazy val shouldInsertLambda =
     (context == CompletionContext.InfixMethodContext
         || ScalaPlugin().getPreferenceStore.getBoolean(EditorPreferencePage.P_ENABLE_HOF_COMPLETION))
 
@@ -246,6 +300,56 @@ case class CompletionProposal(
   }
 }
 
+object CompletionProposal {
+
+  /** A value computed the first time it is needed. A value that can't be computed is not
+   *  cached: it is computed again the next time it is needed.
+   */
+  private class Computed[A](compute: () => Option[A]) {
+    @volatile private var value: Option[A] = None
+
+    def getOrElse(fallback: => A): A = value getOrElse {
+      val computed = compute()
+      value = computed
+      computed getOrElse fallback
+    }
+  }
+
+  /** A value known upfront, equal to the same value known upfront. */
+  private case class Known[A](value: A) extends (() => Option[A]) {
+    override def apply(): Option[A] = Some(value)
+  }
+
+  /** A value computed by a function that always succeeds, equal to the value of the same function. */
+  private case class Always[A](compute: () => A) extends (() => Option[A]) {
+    override def apply(): Option[A] = Some(compute())
+  }
+
+  /** A proposal whose strings are all known upfront. */
+  def apply(
+    kind: MemberKind.Value,
+    context: CompletionContext.ContextType,
+    startPos: Int,
+    completion: String,
+    display: String,
+    displayDetail: String,
+    relevance: Int,
+    isJava: Boolean,
+    getParamNames: () => List[List[String]],
+    paramTypes: List[List[String]],
+    fullyQualifiedName: String,
+    needImport: Boolean,
+    documentation: () => Option[BrowserInput]): CompletionProposal =
+    new CompletionProposal(kind, context, startPos, () => completion, Known(display), displayDetail, relevance,
+      isJava, Always(getParamNames), Known(paramTypes), fullyQualifiedName, needImport, documentation)
+
+  @deprecated("CompletionProposal is no longer a case class, this computes the display string and the parameters", "4.7.1")
+  def unapply(p: CompletionProposal): Option[(MemberKind.Value, CompletionContext.ContextType, Int, String, String, String, Int,
+    Boolean, () => List[List[String]], List[List[String]], String, Boolean, () => Option[BrowserInput])] =
+    Some((p.kind, p.context, p.startPos, p.completion, p.display, p.displayDetail, p.relevance, p.isJava,
+      () => p.explicitParamNames, p.paramTypes, p.fullyQualifiedName, p.needImport, p.documentation))
+}
+
 /** The kind of a completion proposal. */
 object MemberKind extends Enumeration {
   val Class, Trait, Type, Object, Package, PackageObject, Def, Val, Var = Value
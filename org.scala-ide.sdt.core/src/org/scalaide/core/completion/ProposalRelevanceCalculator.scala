@@ -20,6 +20,12 @@ object ProposalRelevanceCalculator {
 class ProposalRelevanceCalculator(cfg: ProposalRelevanceCfg = CompletionPreferencePage.ProposalRelevanceCfg) extends HasLogger {
   import ProposalRelevanceCalculator._
 
+  // read the package patterns once per calculator, not once per proposal
+  private lazy val favoritePackages = cfg.favoritePackages
+  private lazy val preferredPackages = cfg.preferredPackages
+  private lazy val unpopularPackages = cfg.unpopularPackages
+  private lazy val shunnedPackages = cfg.shunnedPackages
+
   def forScala[CompilerT <: Global](pc: CompilerT)(prefix: String, name: String, sym: pc.Symbol, viaView: pc.Symbol, inherited: Option[Boolean]): Int = {
     // rudimentary relevance, place own members before inherited ones, and before view-provided ones
     var relevance = MaxInternalRelevance
@@ -72,12 +78,12 @@ class ProposalRelevanceCalculator(cfg: ProposalRelevanceCfg = CompletionPreferen
     }
 
     val bonus =
-       deltaForPrefix(3, cfg.favoritePackages) +
-       deltaForPrefix(1, cfg.preferredPackages)
+       deltaForPrefix(3, favoritePackages) +
+       deltaForPrefix(1, preferredPackages)
 
     val penalty =
-      deltaForPrefix(3, cfg.shunnedPackages) +
-      deltaForPrefix(1, cfg.unpopularPackages) +
+      deltaForPrefix(3, shunnedPackages) +
+      deltaForPrefix(1, unpopularPackages) +
       name.length*3 +
       nestingLevel
 
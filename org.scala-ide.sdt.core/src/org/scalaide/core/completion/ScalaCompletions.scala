@@ -14,6 +14,8 @@ import CompletionContext.ContextType
 import org.scalaide.core.compiler.IScalaPresentationCompiler
 import org.scalaide.core.compiler.IScalaPresentationCompiler.Implicits._
 import org.scalaide.util.internal.Commons
+import org.scalaide.core.internal.compiler.RequestScheduler
+import org.scalaide.core.internal.ScalaPlugin
 
 /** Base class for Scala completions. No UI dependency, can be safely used in a
  *  headless testing environment.
@@ -22,6 +24,10 @@ import org.scalaide.util.internal.Commons
  */
 class ScalaCompletions extends HasLogger {
   import org.eclipse.jface.text.IRegion
+  import ScalaCompletions._
+
+  /** The answers behind the last completion, reused while the user keeps typing the same word. */
+  @volatile private var session: Option[CompletionSession] = None
 
   /** Returns the list of possible completions, at the given position in the compilation unit,
    *  with the given region as completion prefix.
@@ -40,9 +46,20 @@ class ScalaCompletions extends HasLogger {
     val scalaContents = sourceMap.scalaSource
     val wordAtPosition = if (position <= wordStart) "" else scalaContents.slice(wordStart, position).mkString.trim
     val defaultContext = if (scalaContents(wordStart - 1) != '.') CompletionContext.InfixMethodContext else CompletionContext.DefaultContext
-    val pos = compiler.rangePos(sourceFile, position, position, position)
-    val typed = compiler.askTypeAt(pos)
-    val t1 = typed.getOption()
+
+    val current = session.filter(_.isRefinedBy(icu, compiler, wordStart, position, scalaContents)) match {
+      case Some(refined) =>
+        refined.moveTo(position, scalaContents)
+        refined
+      case None =>
+        val pos = compiler.rangePos(sourceFile, position, position, position)
+        val typed = RequestScheduler.withPriority(RequestScheduler.Completion)(compiler.askTypeAt(pos))
+        val fresh = new CompletionSession(icu, compiler, wordStart, position, scalaContents, typed.getOption())
+        session = Some(fresh)
+        fresh
+    }
+    // the session was created by this same compiler instance
+    val t1 = current.typed.asInstanceOf[Option[compiler.Tree]]
 
     val listedTypes = new mutable.HashMap[String, mutable.Set[CompletionProposal]] with MultiMap[String, CompletionProposal]
 
@@ -68,19 +85,20 @@ class ScalaCompletions extends HasLogger {
       }
 
       compiler.asyncExec {
+        // a symbol reached in several ways is proposed once, without printing its signature to find out
+        val listedSymbols = mutable.Set[compiler.Symbol]()
+
         for (completion <- completions) {
           val completionProposal = completion match {
-            case compiler.TypeMember(sym, tpe, true, inherited, viaView) if completionFilter(sym, viaView, Some(inherited)) =>
+            case compiler.TypeMember(sym, tpe, true, inherited, viaView) if completionFilter(sym, viaView, Some(inherited)) && listedSymbols.add(sym) =>
               Some(compiler.mkCompletionProposal(matchName, start, sym, tpe, inherited, viaView, contextType, icu.scalaProject))
-            case compiler.ScopeMember(sym, tpe, true, _) if completionFilter(sym) =>
+            case compiler.ScopeMember(sym, tpe, true, _) if completionFilter(sym) && listedSymbols.add(sym) =>
               Some(compiler.mkCompletionProposal(matchName, start, sym, tpe, false, compiler.NoSymbol, contextType, icu.scalaProject))
             case _ => None
           }
 
           completionProposal foreach { proposal =>
-            if (!isAlreadyListed(proposal.fullyQualifiedName, proposal.display)) {
-              listedTypes.addBinding(proposal.fullyQualifiedName, proposal)
-            }
+            listedTypes.addBinding(proposal.fullyQualifiedName, proposal)
           }
         }
       }.getOption()
@@ -88,21 +106,21 @@ class ScalaCompletions extends HasLogger {
 
     def fillTypeCompletions(pos: Int, contextType: ContextType,
       matchName: String = wordAtPosition, start: Int = wordStart, prefixMatch: Boolean = true): Unit = {
-      def typeCompletionsAt(pos: Int): List[compiler.Member] = {
+      def typeCompletionsAt(pos: Int): List[compiler.Member] = current.members("type", pos) {
         val cpos = compiler.rangePos(sourceFile, pos, pos, pos)
         val completed = compiler.askTypeCompletion(cpos)
         completed.getOrElse(Nil)()
-      }
+      }.asInstanceOf[List[compiler.Member]]
       addCompletions(typeCompletionsAt(pos), matchName, start, prefixMatch, contextType)
     }
 
     def fillScopeCompletions(pos: Int, contextType: ContextType,
       matchName: String = wordAtPosition, start: Int = wordStart, prefixMatch: Boolean = true): Unit = {
-      def scopeCompletionsAt(pos: Int): List[compiler.Member] = {
+      def scopeCompletionsAt(pos: Int): List[compiler.Member] = current.members("scope", pos) {
         val cpos = compiler.rangePos(sourceFile, pos, pos, pos)
         val completed = compiler.askScopeCompletion(cpos)
         completed.getOrElse(Nil)()
-      }
+      }.asInstanceOf[List[compiler.Member]]
 
       addCompletions(scopeCompletionsAt(pos), matchName, start, prefixMatch, contextType)
       // try and find type in the classpath as well
@@ -117,66 +135,45 @@ class ScalaCompletions extends HasLogger {
         if (length > matchName.length + 1 && content.find { c => !c.isUnicodeIdentifierPart && c != ',' } == None)
       } yield content.slice(0, content.length - matchName.length - 1)
 
-      logger.info(s"Search for: [${packageName.map(_.mkString)}].${matchName.mkString}")
       if (matchName.length > 0 || packageName.isDefined) {
-        // requestor receives JDT search results
-        val requestor = new TypeNameRequestor() {
-          override def acceptType(modifiers: Int, packageNameArray: Array[Char], simpleTypeName: Array[Char],
-            enclosingTypeName: Array[Array[Char]], path: String): Unit = {
-            val packageName = new String(packageNameArray)
-            def stripEndingDollar(str: String) = if (str.endsWith("$")) str.init else str
-            val enclosingName = for {
-              chars <- enclosingTypeName
-              name = new String(chars) if name != "package$"
-            } yield stripEndingDollar(name)
-            def addDots(parts: Seq[String]) = parts filter (_.nonEmpty) mkString "."
-            val packageWithEnclosing = addDots(packageName +: enclosingName)
-            val simpleName = stripEndingDollar(new String(simpleTypeName))
-            val fullyQualifiedName = addDots(packageName +: enclosingName :+ simpleName)
-
-            logger.info(s"Found type: $fullyQualifiedName")
-
-            if (simpleName.indexOf("$") < 0 && !isAlreadyListed(fullyQualifiedName, simpleName)) {
-              val relevanceCalc = new ProposalRelevanceCalculator
-              val relevance = relevanceCalc.forJdtType(packageWithEnclosing, simpleName)
-
-              logger.info(s"Adding type: $fullyQualifiedName")
-              listedTypes.addBinding(fullyQualifiedName, CompletionProposal(
-                MemberKind.Object,
-                contextType,
-                start,
-                simpleName,
-                simpleName,
-                packageWithEnclosing,
-                relevance,
-                true,
-                () => List(),
-                List(),
-                fullyQualifiedName,
-                true,
-                () => None))
-            }
-          }
+        val typeNames = current.typeNames(packageName.map(_.mkString), matchName, prefixMatch) {
+          logger.debug(s"Search for: [${packageName.map(_.mkString)}].${matchName.mkString}")
+          searchTypeNames(packageName, matchName, prefixMatch, icu)
         }
 
-        // launch the JDT search, for a type in the package, starting with the given prefix
-        new SearchEngine().searchAllTypeNames(
-          packageName.getOrElse(null),
-          SearchPattern.R_EXACT_MATCH,
-          matchName.toCharArray(),
-          if (prefixMatch) SearchPattern.R_PREFIX_MATCH else SearchPattern.R_EXACT_MATCH,
-          IJavaSearchConstants.TYPE,
-          SearchEngine.createJavaSearchScope(Array[IJavaElement](icu.scalaProject.javaProject), true),
-          requestor,
-          if (IScalaPlugin().noTimeoutMode) {
-            IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH
-          } else {
-            IJavaSearchConstants.FORCE_IMMEDIATE_SEARCH
-          },
-          null)
+        val relevanceCalc = new ProposalRelevanceCalculator
+        for (TypeName(packageWithEnclosing, simpleName, fullyQualifiedName) <- typeNames) {
+          if (!isAlreadyListed(fullyQualifiedName, simpleName)) {
+            val relevance = relevanceCalc.forJdtType(packageWithEnclosing, simpleName)
+
+            listedTypes.addBinding(fullyQualifiedName, CompletionProposal(
+              MemberKind.Object,
+              contextType,
+              start,
+              simpleName,
+              simpleName,
+              packageWithEnclosing,
+              relevance,
+              true,
+              () => List(),
+              List(),
+              fullyQualifiedName,
+              true,
+              () => None))
+          }
+        }
       }
     }
 
+    // the completions of these trees depend on the word itself, not only on its prefix
+    def endsInWord(tree: compiler.Tree) =
+      tree.pos.isDefined && tree.pos.end > wordStart
+    t1 match {
+      case Some(compiler.New(name)) if endsInWord(name) => session = None
+      case Some(compiler.Apply(fun, _)) if endsInWord(fun) => session = None
+      case _ =>
+    }
+
     t1 match {
       case Some(compiler.New(name)) =>
         fillTypeCompletions(name.pos.end, CompletionContext.NewContext,
@@ -207,3 +204,129 @@ class ScalaCompletions extends HasLogger {
     listedTypes.values.flatten.toList
   }
 }
+
+object ScalaCompletions {
+
+  /** A type found by the JDT search, as a completion proposal would show it. */
+  private case class TypeName(packageWithEnclosing: String, simpleName: String, fullyQualifiedName: String)
+
+  /** The type `simpleTypeName`, as completion shows it, unless it has no name in Scala. */
+  private def typeName(packageName: String, enclosingTypeNames: Seq[String], simpleTypeName: String): Option[TypeName] = {
+    def stripEndingDollar(str: String) = if (str.endsWith("$")) str.init else str
+    val enclosingName = enclosingTypeNames filter (_ != "package$") map stripEndingDollar
+    def addDots(parts: Seq[String]) = parts filter (_.nonEmpty) mkString "."
+    val packageWithEnclosing = addDots(packageName +: enclosingName)
+    val simpleName = stripEndingDollar(simpleTypeName)
+    val fullyQualifiedName = addDots(packageName +: enclosingName :+ simpleName)
+
+    if (simpleName.indexOf("$") < 0) Some(TypeName(packageWithEnclosing, simpleName, fullyQualifiedName))
+    else None
+  }
+
+  /** Returns the types of the classpath of `icu` in `packageName` whose name starts with
+   *  `matchName`, or is exactly `matchName` if `prefixMatch` is false.
+   *
+   *  The types come from the type name index of the project, or from a JDT search while the
+   *  index isn't built yet.
+   */
+  private def searchTypeNames(packageName: Option[Array[Char]], matchName: String, prefixMatch: Boolean, icu: InteractiveCompilationUnit): List[TypeName] = {
+    val index = ScalaPlugin().getScalaProject(icu.scalaProject.underlying).typeNameIndex
+    val indexed = index.find(matchName, prefixMatch, packageName = packageName.map(_.mkString)) map { types =>
+      types.toList flatMap (tpe => typeName(tpe.packageName, tpe.enclosingTypeNames, tpe.simpleTypeName))
+    }
+    indexed getOrElse {
+      val found = List.newBuilder[TypeName]
+
+      // requestor receives JDT search results
+      val requestor = new TypeNameRequestor() {
+        override def acceptType(modifiers: Int, packageNameArray: Array[Char], simpleTypeName: Array[Char],
+          enclosingTypeName: Array[Array[Char]], path: String): Unit =
+          found ++= typeName(new String(packageNameArray), enclosingTypeName.map(new String(_)), new String(simpleTypeName))
+      }
+
+      // launch the JDT search, for a type in the package, starting with the given prefix
+      new SearchEngine().searchAllTypeNames(
+        packageName.getOrElse(null),
+        SearchPattern.R_EXACT_MATCH,
+        matchName.toCharArray(),
+        if (prefixMatch) SearchPattern.R_PREFIX_MATCH else SearchPattern.R_EXACT_MATCH,
+        IJavaSearchConstants.TYPE,
+        SearchEngine.createJavaSearchScope(Array[IJavaElement](icu.scalaProject.javaProject), true),
+        requestor,
+        if (IScalaPlugin().noTimeoutMode) {
+          IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH
+        } else {
+          IJavaSearchConstants.FORCE_IMMEDIATE_SEARCH
+        },
+        null)
+
+      found.result()
+    }
+  }
+
+  /** What the compiler and the JDT answered for a completion started at `wordStart`.
+   *
+   *  While the user keeps typing the word being completed, the source is unchanged except for
+   *  the characters added at the end of the word. The tree at the completion position, the
+   *  members in scope or of the qualifier, and the types found on the classpath are then the
+   *  same, and only need to be filtered again with the longer prefix.
+   */
+  private class CompletionSession(
+      icu: InteractiveCompilationUnit,
+      compiler: IScalaPresentationCompiler,
+      wordStart: Int,
+      private var position: Int,
+      private var contents: Array[Char],
+      val typed: Option[IScalaPresentationCompiler#Tree]) {
+
+    private val membersCache = mutable.Map.empty[(String, Int), List[IScalaPresentationCompiler#Member]]
+    private val typeNamesCache = mutable.Map.empty[(Option[String], Boolean), (String, List[TypeName])]
+
+    /** Whether a completion at `newPosition` in `newContents` only adds characters to the word of this session. */
+    def isRefinedBy(newIcu: InteractiveCompilationUnit, newCompiler: IScalaPresentationCompiler, newWordStart: Int,
+      newPosition: Int, newContents: Array[Char]): Boolean = synchronized {
+      (newIcu eq icu) && (newCompiler eq compiler) && newWordStart == wordStart && newPosition >= position &&
+        newContents.length - newPosition == contents.length - position &&
+        sameChars(newContents, 0, contents, 0, position) &&
+        sameChars(newContents, newPosition, contents, position, contents.length - position) &&
+        newContents.slice(position, newPosition).forall(_.isUnicodeIdentifierPart)
+    }
+
+    private def sameChars(a: Array[Char], aFrom: Int, b: Array[Char], bFrom: Int, length: Int): Boolean = {
+      var i = 0
+      while (i < length && a(aFrom + i) == b(bFrom + i)) i += 1
+      i == length
+    }
+
+    def moveTo(newPosition: Int, newContents: Array[Char]): Unit = synchronized {
+      position = newPosition
+      contents = newContents
+    }
+
+    /** The members completed at `pos`, which follows the completion position when it is the position itself. */
+    def members(kind: String, pos: Int)(complete: => List[IScalaPresentationCompiler#Member]): List[IScalaPresentationCompiler#Member] = {
+      val key = (kind, if (pos == synchronized(position)) -1 else pos)
+      synchronized(membersCache.get(key)) getOrElse {
+        val completed = complete
+        synchronized(membersCache(key) = completed)
+        completed
+      }
+    }
+
+    /** The types named `matchName`, filtered from an earlier search for a shorter prefix when possible. */
+    def typeNames(packageName: Option[String], matchName: String, prefixMatch: Boolean)(search: => List[TypeName]): List[TypeName] = {
+      val key = (packageName, prefixMatch)
+      synchronized(typeNamesCache.get(key)) match {
+        case Some((searched, found)) if searched == matchName =>
+          found
+        case Some((searched, found)) if prefixMatch && matchName.regionMatches(true, 0, searched, 0, searched.length) =>
+          // the JDT prefix match ignores case
+          found filter (_.simpleName.regionMatches(true, 0, matchName, 0, matchName.length))
+        case _ =>
+          val found = search
+          synchronized(typeNamesCache(key) = (matchName, found))
+          found
+      }
+    }
+  }
+}
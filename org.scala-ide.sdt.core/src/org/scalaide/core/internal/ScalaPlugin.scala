@@ -8,9 +8,13 @@ import org.eclipse.core.resources.IResourceChangeEvent
 import org.eclipse.core.resources.IResourceChangeListener
 import org.eclipse.core.resources.IResourceDelta
 import org.eclipse.core.resources.IResourceDeltaVisitor
+import org.eclipse.core.resources.ISaveContext
+import org.eclipse.core.resources.ISaveParticipant
 import org.eclipse.core.resources.ResourcesPlugin
 import org.eclipse.core.runtime.Path
 import org.eclipse.core.runtime.Platform
+import org.eclipse.core.runtime.Status
+import org.eclipse.core.runtime.jobs.Job
 import org.eclipse.core.runtime.content.IContentType
 import org.eclipse.jdt.core.ElementChangedEvent
 import org.eclipse.jdt.core.IClassFile
@@ -27,10 +31,17 @@ import org.scalaide.core.IScalaInstallation
 import org.scalaide.core.IScalaPlugin
 import org.scalaide.core.ScalaIdeDataStore
 import org.scalaide.core.SdtConstants
+import org.scalaide.core.internal.builder.zinc.AnalysisWriter
+import org.scalaide.core.internal.builder.zinc.BuildCompilerCache
 import org.scalaide.core.internal.builder.zinc.CompilerBridgeStore
+import org.scalaide.core.internal.builder.zinc.JarClassIndex
+import org.scalaide.core.internal.compiler.PresentationCompilerPool
 import org.scalaide.core.internal.jdt.model.ScalaClassFile
 import org.scalaide.core.internal.jdt.model.ScalaCompilationUnit
 import org.scalaide.core.internal.jdt.model.ScalaSourceFile
+import org.scalaide.core.internal.jdt.search.IndexParserPool
+import org.scalaide.core.internal.jdt.search.SourceIndexCache
+import org.scalaide.core.internal.jdt.search.TypeNameIndex
 import org.scalaide.core.internal.project._
 import org.scalaide.core.internal.project.ScalaInstallation.platformInstallation
 import org.scalaide.logging.HasLogger
@@ -38,9 +49,11 @@ import org.scalaide.logging.PluginLogConfigurator
 import org.scalaide.ui.internal.diagnostic
 import org.scalaide.ui.internal.editor.ScalaDocumentProvider
 import org.scalaide.ui.internal.migration.RegistryExtender
+import org.scalaide.ui.internal.preferences.ResourcesPreferences
 import org.scalaide.ui.internal.templates.ScalaTemplateManager
 import org.scalaide.util.Utils.WithAsInstanceOfOpt
 import org.scalaide.core.internal.statistics.Statistics
+import org.scalaide.util.eclipse.EclipseUtils
 import org.scalaide.util.eclipse.OSGiUtils
 import org.scalaide.util.internal.CompilerUtils._
 import org.scalaide.util.internal.FixedSizeCache
@@ -103,15 +116,32 @@ class ScalaPlugin extends IScalaPlugin with PluginLogConfigurator with IResource
     }
     ResourcesPlugin.getWorkspace.addResourceChangeListener(this, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.POST_CHANGE)
     JavaCore.addElementChangedListener(this)
+    ResourcesPlugin.getWorkspace.addSaveParticipant(SdtConstants.PluginId, builderSaveParticipant)
     logger.info("Scala compiler bundle: " + platformInstallation.compiler.classJar.toOSString())
 
     // force creation of statistics tracker
     statistics
     logger.info("Statistics tracker started")
+
+    if (getPreferenceStore.getBoolean(ResourcesPreferences.BUILDER_PREBUILD_COMPILER_BRIDGES))
+      EclipseUtils.scheduleJob("Building Scala compiler-bridges", priority = Job.DECORATE) { monitor =>
+        compilerBridgeStore.prebuild(ScalaInstallation.availableInstallations)(monitor)
+        logger.info(s"Compiler-bridges prebuilt: ${compilerBridgeStore.stats}")
+        Status.OK_STATUS
+      }
   }
 
   override def stop(context: BundleContext) = {
     ResourcesPlugin.getWorkspace.removeResourceChangeListener(this)
+    ResourcesPlugin.getWorkspace.removeSaveParticipant(SdtConstants.PluginId)
+    // the services that were never used are not created just to be stopped
+    analysisWriterService ifCreated (_.shutdown())
+    indexParserPoolService ifCreated (_.shutdown())
+    jarClassIndexService ifCreated (_.save())
+    sourceIndexCacheService ifCreated { cache =>
+      cache.save()
+      cache.close()
+    }
     for {
       iProject <- ResourcesPlugin.getWorkspace.getRoot.getProjects
       if iProject.isOpen
@@ -124,6 +154,61 @@ class ScalaPlugin extends IScalaPlugin with PluginLogConfigurator with IResource
   /** The compiler-bridge store, located in user data area */
   lazy val compilerBridgeStore: CompilerBridgeStore = new CompilerBridgeStore(new Path(ScalaIdeDataStore.dataStoreLocation), this)
 
+  /** Resident compilers reused across builds, bounded by the user preference */
+  lazy val buildCompilerCache: BuildCompilerCache =
+    new BuildCompilerCache(getPreferenceStore.getInt(ResourcesPreferences.BUILDER_COMPILER_CACHE_SIZE))
+
+  /** A service created when it is first used, that is only flushed or stopped if it exists. */
+  private class Service[A](create: => A) {
+    @volatile private var created = false
+
+    lazy val instance: A = {
+      val service = create
+      created = true
+      service
+    }
+
+    def ifCreated(f: A => Unit): Unit = if (created) f(instance)
+  }
+
+  private val jarClassIndexService = new Service(new JarClassIndex(Some(getStateLocation.append("jarClassIndex").toFile)))
+
+  /** Classes defined by the jars on the classpath of all projects, kept in the plugin state location */
+  def jarClassIndex: JarClassIndex = jarClassIndexService.instance
+
+  private val sourceIndexCacheService = new Service(new SourceIndexCache(Some(getStateLocation.append("sourceIndexCache").toFile),
+    path => ResourcesPlugin.getWorkspace.getRoot.findMember(path) ne null))
+
+  /** Index entries of the Scala sources of all projects, kept in the plugin state location */
+  def sourceIndexCache: SourceIndexCache = sourceIndexCacheService.instance
+
+  private val indexParserPoolService = new Service(new IndexParserPool(Runtime.getRuntime.availableProcessors, sourceIndexCache))
+
+  /** Parses Scala sources for the JDT index, on all cores */
+  def indexParserPool: IndexParserPool = indexParserPoolService.instance
+
+  /** Shuts down presentation compilers beyond the limits set in the preferences */
+  lazy val presentationCompilerPool: PresentationCompilerPool = new PresentationCompilerPool(
+    getPreferenceStore.getInt(ResourcesPreferences.PRES_COMP_MAX_LIVE),
+    getPreferenceStore.getInt(ResourcesPreferences.PRES_COMP_HEAP_BUDGET_MB) * 1024L * 1024L)
+
+  private val analysisWriterService = new Service(new AnalysisWriter)
+
+  /** Writes zinc analyses of all projects in the background */
+  def analysisWriter: AnalysisWriter = analysisWriterService.instance
+
+  /** Writes pending analyses, the jar class index and the source index cache when the workspace is saved. */
+  private object builderSaveParticipant extends ISaveParticipant {
+    override def prepareToSave(context: ISaveContext): Unit = {}
+    override def saving(context: ISaveContext): Unit = {
+      analysisWriterService ifCreated (_.flushAll())
+      jarClassIndexService ifCreated (_.save())
+      sourceIndexCacheService ifCreated (_.save())
+    }
+    override def doneSaving(context: ISaveContext): Unit = {}
+    override def rollback(context: ISaveContext): Unit = {}
+  }
+
   /** A LRU cache of class loaders for Scala builders */
   lazy val classLoaderStore: FixedSizeCache[IScalaInstallation,ClassLoader] = new FixedSizeCache(initSize = 2, maxSize = 3)
 
@@ -192,6 +277,12 @@ class ScalaPlugin extends IScalaPlugin with PluginLogConfigurator with IResource
         disposeProject(project)
       case _ =>
     }
+    // keep the source inventories of the Scala projects we know about up to date
+    if (event.getType == IResourceChangeEvent.POST_CHANGE)
+      for {
+        projectDelta <- Option(event.getDelta()).toSeq.flatMap(_.getAffectedChildren)
+        scalaProject <- projects.synchronized(projects.get(projectDelta.getResource.getProject))
+      } scalaProject.sourcesChanged(projectDelta)
     Option(event.getDelta()) foreach (_.accept(new IResourceDeltaVisitor() {
       override def visit(delta: IResourceDelta): Boolean = {
         // This is obtained at project opening or closing, meaning the 'openness' state changed
@@ -235,6 +326,8 @@ class ScalaPlugin extends IScalaPlugin with PluginLogConfigurator with IResource
           innerDelta.getElement() match {
             // classpath change should only impact projects
             case javaProject: IJavaProject =>
+              // a Java project doesn't reset its classpath below, but Scala projects depending on it cache what it exports
+              ClasspathManagement.invalidate(javaProject.getProject)
               asScalaProject(javaProject.getProject()) foreach (_.classpathHasChanged(queue = false))
             case _ =>
           }
@@ -246,6 +339,9 @@ class ScalaPlugin extends IScalaPlugin with PluginLogConfigurator with IResource
     val buff = new ListBuffer[ScalaSourceFile]
     val changed = new ListBuffer[ICompilationUnit]
     val projectsToReset = new mutable.HashSet[ScalaProject]
+    // the package fragment roots whose content changed, and the projects whose sources changed
+    val changedRoots = new mutable.HashSet[String]
+    val changedSources = new mutable.HashSet[IProject]
 
     def findRemovedSources(delta: IJavaElementDelta): Unit = {
       val isChanged = delta.getKind == CHANGED
@@ -256,6 +352,15 @@ class ScalaPlugin extends IScalaPlugin with PluginLogConfigurator with IResource
 
       val elem = delta.getElement
 
+      // the types declared by the sources change when a source is saved, added or removed
+      if (event.getType == ElementChangedEvent.POST_CHANGE && (elem.getElementType == COMPILATION_UNIT || elem.getElementType == PACKAGE_FRAGMENT) &&
+        (isAdded || isRemoved || hasFlag(F_CONTENT)))
+        changedSources += elem.getJavaProject.getProject
+
+      // the classpath of dependent projects changes when a project appears or disappears
+      if (elem.getElementType == JAVA_PROJECT && (isAdded || isRemoved || hasFlag(F_OPENED | F_CLOSED)))
+        ClasspathManagement.invalidate(elem.getJavaProject.getProject)
+
       val processChildren: Boolean = elem.getElementType match {
         case JAVA_MODEL =>
           true
@@ -271,7 +376,10 @@ class ScalaPlugin extends IScalaPlugin with PluginLogConfigurator with IResource
           val hasContentChanged = isRemoved || hasFlag(F_REMOVED_FROM_CLASSPATH | F_ADDED_TO_CLASSPATH | F_ARCHIVE_CONTENT_CHANGED)
           if (hasContentChanged) {
             logger.info("package fragment root changed (resetting presentation compiler): " + elem.getElementName())
+            ClasspathManagement.invalidate(elem.getJavaProject.getProject)
             asScalaProject(elem.getJavaProject().getProject).foreach(projectsToReset += _)
+            changedRoots += elem.getPath.toString
+            changedSources += elem.getJavaProject.getProject
           }
           !hasContentChanged
 
@@ -311,6 +419,15 @@ class ScalaPlugin extends IScalaPlugin with PluginLogConfigurator with IResource
     }
     findRemovedSources(event.getDelta)
 
+    // roots may be exported to other projects, and sources are seen by the projects depending on them
+    changedRoots foreach TypeNameIndex.libraryRootChanged
+    if (changedRoots.nonEmpty || changedSources.nonEmpty)
+      for (scalaProject <- projects.synchronized(projects.values.toList)) {
+        scalaProject.typeNameIndex.invalidateLibraryRoots(changedRoots.toSet)
+        if (changedSources(scalaProject.underlying) || scalaProject.transitiveDependencies.exists(changedSources))
+          scalaProject.typeNameIndex.invalidateSources()
+      }
+
     // ask for the changed scala files to be refreshed in each project presentation compiler if needed
     if (changed.nonEmpty) {
       changed.toList groupBy (_.getJavaProject.getProject) foreach {
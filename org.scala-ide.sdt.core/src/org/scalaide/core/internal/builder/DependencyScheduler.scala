@@ -0,0 +1,92 @@
+package org.scalaide.core.internal.builder
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicInteger
+
+import scala.util.control.NonFatal
+
+import org.scalaide.logging.HasLogger
+
+/** Runs a piece of work for each node of a dependency graph on a bounded pool of threads.
+ *
+ *  `upstream` maps each node to the nodes it depends on. The work of a node is started only
+ *  once the work of all its upstream nodes is finished, independent nodes run at the same time.
+ *  Dependencies on nodes that are not keys of `upstream` are ignored. If the graph has a cycle,
+ *  the nodes of the cycle are run one after the other, starting with the one that waits for the
+ *  fewest nodes.
+ */
+class DependencyScheduler[A](upstream: Map[A, Set[A]]) extends HasLogger {
+  import DependencyScheduler._
+
+  /** Run `work` for all nodes, using at most `parallelism` threads.
+   *
+   *  `finished` is called on the calling thread each time the work of a node is done. Once
+   *  `isCanceled` returns `true` no more work is started, and this method returns as soon as
+   *  the work in progress is finished. An exception thrown by `work` is logged, and the
+   *  node counts as finished.
+   *
+   *  @return the nodes whose work was not run because of a cancellation
+   */
+  def run(parallelism: Int, isCanceled: () => Boolean)(work: A => Unit)(finished: A => Unit): Set[A] = {
+    val executor = Executors.newFixedThreadPool(parallelism max 1, workerThreads)
+    val completion = new ExecutorCompletionService[A](executor)
+    val dependencies = upstream map { case (node, deps) => node -> (deps filter (dep => dep != node && upstream.contains(dep))) }
+
+    var waiting = dependencies.keySet
+    var done = Set.empty[A]
+    var running = 0
+
+    def submit(node: A): Unit = {
+      completion.submit(new Callable[A] {
+        override def call(): A = {
+          try work(node)
+          catch {
+            case NonFatal(e) => eclipseLog.error(s"Error while running the work for $node", e)
+          }
+          node
+        }
+      })
+      waiting -= node
+      running += 1
+    }
+
+    try {
+      while (running > 0 || (waiting.nonEmpty && !isCanceled())) {
+        if (!isCanceled()) {
+          val ready = waiting filter (node => dependencies(node) forall done)
+          if (ready.nonEmpty)
+            ready foreach submit
+          else if (running == 0) {
+            val next = waiting minBy (node => (dependencies(node) -- done).size)
+            logger.info(s"Dependency cycle detected, running $next before its dependencies")
+            submit(next)
+          }
+        }
+
+        if (running > 0) {
+          val node = completion.take().get()
+          running -= 1
+          done += node
+          finished(node)
+        }
+      }
+      waiting
+    } finally
+      executor.shutdown()
+  }
+}
+
+object DependencyScheduler {
+  private val workerCount = new AtomicInteger
+
+  private val workerThreads = new ThreadFactory {
+    override def newThread(r: Runnable): Thread = {
+      val thread = new Thread(r, s"Scala project builder ${workerCount.incrementAndGet()}")
+      thread.setDaemon(true)
+      thread
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package org.scalaide.core.internal.builder
+
+import org.eclipse.core.resources.IProject
+import org.eclipse.core.resources.IncrementalProjectBuilder
+import org.eclipse.core.resources.ResourcesPlugin
+import org.eclipse.core.runtime.IProgressMonitor
+import org.eclipse.core.runtime.IStatus
+import org.eclipse.core.runtime.NullProgressMonitor
+import org.eclipse.core.runtime.Status
+import org.eclipse.core.runtime.SubMonitor
+import org.eclipse.core.runtime.jobs.Job
+import org.eclipse.ui.progress.IProgressConstants2
+import org.scalaide.core.IScalaProject
+import org.scalaide.core.SdtConstants
+import org.scalaide.core.internal.ScalaPlugin
+import org.scalaide.logging.HasLogger
+import org.scalaide.ui.internal.preferences.ResourcesPreferences
+
+/** Job for rebuilding the passed Scala `projects`, compiling independent projects at the same time.
+ *
+ *  A project is compiled only once all the projects it depends on (among `projects`) are built,
+ *  so that their analyses are up to date when the downstream compilation looks them up.
+ *  The number of projects compiled at the same time is bounded by the `BUILDER_PARALLEL_BUILDS`
+ *  preference.
+ *
+ *  The job itself holds no scheduling rule. Each project is cleaned and fully built by running its
+ *  `ScalaBuilder`, which locks only that project, so that the Java builder copies the resources to
+ *  the output folders, exactly as in a regular clean build.
+ */
+class ParallelProjectsBuildJob private (projects: Seq[IScalaProject]) extends HasLogger {
+
+  private class DoBuildJob extends Job("Rebuilding Scala projects in parallel") {
+    override def belongsTo(family: AnyRef): Boolean = ResourcesPlugin.FAMILY_MANUAL_BUILD.equals(family)
+
+    override def run(monitor: IProgressMonitor): IStatus = {
+      val progress = SubMonitor.convert(monitor, getName, projects.size)
+      val parallelism = ScalaPlugin().getPreferenceStore.getInt(ResourcesPreferences.BUILDER_PARALLEL_BUILDS)
+      // progress monitors are not thread safe, workers only check for cancellation
+      val workerMonitor = new NullProgressMonitor {
+        override def isCanceled(): Boolean = monitor.isCanceled()
+      }
+
+      val start = System.currentTimeMillis
+      val notBuilt = new DependencyScheduler(dependencyGraph).run(parallelism, () => monitor.isCanceled) {
+        project => buildProject(project, workerMonitor)
+      } {
+        _ => progress.worked(1)
+      }
+      logger.info(s"Rebuilt ${projects.size - notBuilt.size} projects with $parallelism workers in ${System.currentTimeMillis - start}ms")
+
+      monitor.done()
+      if (notBuilt.nonEmpty) Status.CANCEL_STATUS else Status.OK_STATUS
+    }
+  }
+
+  private def dependencyGraph: Map[IScalaProject, Set[IScalaProject]] =
+    projects.map { project =>
+      val depends = project.transitiveDependencies.toSet
+      project -> projects.filter(other => depends(other.underlying)).toSet
+    }.toMap
+
+  /** Clean `project` and run its Scala builder on all its sources, as a clean build of that project alone would. */
+  private def buildProject(project: IScalaProject, monitor: IProgressMonitor): Unit = {
+    project.underlying.build(IncrementalProjectBuilder.CLEAN_BUILD, SdtConstants.BuilderId, null, monitor)
+    if (!monitor.isCanceled())
+      project.underlying.build(IncrementalProjectBuilder.FULL_BUILD, SdtConstants.BuilderId, null, monitor)
+  }
+
+  private def buildJob: Job = {
+    val buildJob = new DoBuildJob
+    buildJob.setUser(true)
+    buildJob.setProperty(IProgressConstants2.SHOW_IN_TASKBAR_ICON_PROPERTY, true)
+    buildJob
+  }
+
+  /** Schedule this job to run. */
+  def schedule(): Unit = {
+    if (projects.nonEmpty) buildJob.schedule()
+  }
+}
+
+object ParallelProjectsBuildJob {
+  def apply(projects: Seq[IProject]): ParallelProjectsBuildJob =
+    new ParallelProjectsBuildJob(projects.distinct.flatMap(ScalaPlugin().asScalaProject))
+}
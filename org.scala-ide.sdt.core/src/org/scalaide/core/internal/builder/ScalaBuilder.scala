@@ -16,6 +16,7 @@ import org.eclipse.jdt.internal.core.builder.JavaBuilder
 import org.eclipse.jdt.internal.core.builder.State
 import org.scalaide.core.IScalaPlugin
 import org.scalaide.core.SdtConstants
+import org.scalaide.core.internal.ScalaPlugin
 import org.scalaide.core.internal.jdt.util.JDTUtils
 import org.scalaide.logging.HasLogger
 import org.scalaide.util.eclipse.FileUtils
@@ -42,7 +43,7 @@ class ScalaBuilder extends IncrementalProjectBuilder with JDTBuilderFacade with
   override def build(kind: Int, ignored: ju.Map[String, String], monitor: IProgressMonitor): Array[IProject] = {
     import org.eclipse.core.resources.IncrementalProjectBuilder._
 
-    val project = IScalaPlugin().getScalaProject(this.project)
+    val project = ScalaPlugin().getScalaProject(this.project)
 
     // check the classpath
     if (!project.isClasspathValid()) {
@@ -50,6 +51,10 @@ class ScalaBuilder extends IncrementalProjectBuilder with JDTBuilderFacade with
       return new Array[IProject](0)
     }
 
+    // the resource listener may not have seen the changes made by the workspace operation running this build
+    if (kind == INCREMENTAL_BUILD || kind == AUTO_BUILD)
+      Option(getDelta(project.underlying)) foreach project.sourcesChanged
+
     val allSourceFiles = project.allSourceFiles()
     val allFilesInSourceDirs = project.allFilesInSourceDirs()
 
@@ -60,13 +65,14 @@ class ScalaBuilder extends IncrementalProjectBuilder with JDTBuilderFacade with
     else {
       kind match {
         case INCREMENTAL_BUILD | AUTO_BUILD =>
-          val addedOrUpdated0 = new HashSet[IFile] ++ allSourceFiles.filter(FileUtils.hasBuildErrors(_))
+          val addedOrUpdated0 = new HashSet[IFile] ++ FileUtils.filesWithBuildErrors(project.underlying).filter(allSourceFiles)
           val removed0 = new HashSet[IFile]
+          val sourceFolders = project.sourceFolders
 
           getDelta(project.underlying).accept(new IResourceDeltaVisitor {
             override def visit(delta: IResourceDelta) = {
               delta.getResource match {
-                case file: IFile if FileUtils.isBuildable(file) && project.sourceFolders.exists(_.isPrefixOf(file.getLocation)) =>
+                case file: IFile if FileUtils.isBuildable(file) && sourceFolders.exists(_.isPrefixOf(file.getLocation)) =>
                   delta.getKind match {
                     case IResourceDelta.ADDED | IResourceDelta.CHANGED =>
                       addedOrUpdated0 += file
@@ -86,16 +92,25 @@ class ScalaBuilder extends IncrementalProjectBuilder with JDTBuilderFacade with
               delta == null || delta.getKind != IResourceDelta.NO_CHANGE
             }
 
-            if (project.directDependencies.exists(hasChanges)) {
-              // reset presentation compilers if a dependency has been rebuilt
-              logger.debug(s"Restart presentation compiler for ${project.underlying.getName} due to dependent project change.")
-              project.presentationCompiler.askRestart()
-
-              // in theory need to be able to identify the exact dependencies
-              // but this is deeply rooted inside the sbt dependency tracking mechanism
-              // so we just tell it to have a look at all the files
-              // and it will figure out the exact changes during initialization
-              addedOrUpdated0 ++= allSourceFiles
+            val changedDependencies = project.directDependencies.filter(hasChanges)
+            if (changedDependencies.nonEmpty) project.dependencyApiChanges(changedDependencies) match {
+              case None =>
+                // reset presentation compilers if a dependency has been rebuilt
+                logger.debug(s"Restart presentation compiler for ${project.underlying.getName} due to dependent project change.")
+                project.presentationCompiler.askRestart()
+
+                // the API this project was compiled against is unknown, so we just tell it to have
+                // a look at all the files and it will figure out the exact changes during initialization
+                addedOrUpdated0 ++= allSourceFiles
+
+              case Some(changedClasses) =>
+                // the dependencies already restarted our presentation compiler if their API changed.
+                // sbt is given all the sources it knows of, and recompiles the ones using a changed
+                // class of a dependency, since it records the external APIs they were compiled against
+                if (changedClasses.isEmpty)
+                  logger.info(s"Dependencies of ${project.underlying.getName} kept their API, its presentation compiler is kept and ${allSourceFiles.size - addedOrUpdated0.size} unchanged sources are not recompiled")
+                else
+                  logger.debug(s"Dependencies of ${project.underlying.getName} changed the API of ${changedClasses.size} classes")
             }
           }
           (Set.empty ++ addedOrUpdated0, Set.empty ++ removed0)
@@ -123,7 +138,7 @@ class ScalaBuilder extends IncrementalProjectBuilder with JDTBuilderFacade with
     }
 
     // SBT build manager already calls java builder internally
-    if (allSourceFiles.exists(FileUtils.hasBuildErrors(_)) || !shouldRunJavaBuilder)
+    if (FileUtils.filesWithBuildErrors(project.underlying).exists(allSourceFiles) || !shouldRunJavaBuilder)
       depends.toArray
     else {
       ensureProject()
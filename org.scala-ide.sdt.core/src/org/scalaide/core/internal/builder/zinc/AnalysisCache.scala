@@ -0,0 +1,97 @@
+package org.scalaide.core.internal.builder.zinc
+
+import java.io.File
+import java.lang.ref.SoftReference
+import java.util.concurrent.atomic.AtomicLong
+
+import org.scalaide.logging.HasLogger
+import org.scalaide.util.internal.SbtUtils
+
+import sbt.internal.inc.Analysis
+import xsbti.compile.AnalysisContents
+import xsbti.compile.MiniSetup
+
+/**
+ * Keeps the latest `Analysis` and `MiniSetup` of a build manager in memory, so that
+ * an incremental build does not need to deserialize the analysis file again.
+ *
+ * The in-memory copy is held by a soft reference and remembers the stamp (modification
+ * time and length) of the analysis file it corresponds to. The file is read only when
+ * the reference was cleared by the GC or when the file changed behind our back.
+ *
+ * New analyses are persisted through `writer` in the background. Until the write is
+ * done the in-memory copy is the reference, and a read from disk flushes it first.
+ *
+ * This class is thread safe.
+ */
+class AnalysisCache(cacheFile: => File, writer: AnalysisWriter) extends HasLogger {
+  import AnalysisCache._
+
+  private var cached = new SoftReference[Entry](null)
+
+  private val hits, misses, loadTimeMillis = new AtomicLong
+
+  /** Returns the previous analysis and setup, reading them from disk only if needed. */
+  def get(): (Analysis, Option[MiniSetup]) = synchronized {
+    val entry = Option(cached.get) filter (_.stamp forall (_ == FileStamp(cacheFile))) match {
+      case Some(entry) =>
+        hits.incrementAndGet()
+        entry
+      case None =>
+        misses.incrementAndGet()
+        val entry = load()
+        cached = new SoftReference(entry)
+        entry
+    }
+    (entry.analysis, entry.setup)
+  }
+
+  /** Returns the previous analysis, or an empty one if the project was never built. */
+  def analysis: Analysis = get()._1
+
+  /** Records the result of the last compilation and schedules it to be written to disk. */
+  def store(analysis: Analysis, setup: MiniSetup): Unit = synchronized {
+    val entry = Entry(analysis, Option(setup), None)
+    cached = new SoftReference(entry)
+    writer.write(cacheFile, AnalysisContents.create(analysis, setup))(() => written(entry))
+  }
+
+  /**
+   * Forgets the in-memory copy and drops a pending write. The next call to `get`
+   * reads the analysis file.
+   */
+  def clear(): Unit = synchronized {
+    writer.discard(cacheFile)
+    cached.clear()
+  }
+
+  /** Returns the number of hits, misses and the total time spent reading analysis files. */
+  def stats: Stats = Stats(hits.get, misses.get, loadTimeMillis.get)
+
+  private def written(entry: Entry): Unit = synchronized {
+    if (cached.get eq entry)
+      cached = new SoftReference(entry.copy(stamp = Some(FileStamp(cacheFile))))
+  }
+
+  private def load(): Entry = {
+    val file = cacheFile
+    writer.flush(file)
+    val stamp = FileStamp(file)
+    val start = System.currentTimeMillis
+    val (analysis, setup) = SbtUtils.readCache(file) match {
+      case Some((a, s)) => (a, Option(s))
+      case None => (Analysis.empty, None)
+    }
+    val elapsed = System.currentTimeMillis - start
+    loadTimeMillis.addAndGet(elapsed)
+    logger.debug(s"Read analysis from $file in ${elapsed}ms")
+    Entry(analysis, setup, Some(stamp))
+  }
+}
+
+object AnalysisCache {
+  case class Stats(hits: Long, misses: Long, loadTimeMillis: Long)
+
+  /** `stamp` is `None` while the analysis is waiting to be written. */
+  private case class Entry(analysis: Analysis, setup: Option[MiniSetup], stamp: Option[FileStamp])
+}
@@ -0,0 +1,100 @@
+package org.scalaide.core.internal.builder.zinc
+
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.TimeUnit
+
+import scala.collection.JavaConverters._
+
+import org.scalaide.logging.HasLogger
+
+import sbt.internal.inc.MixedAnalyzingCompiler
+import xsbti.compile.AnalysisContents
+
+/**
+ * Persists zinc analyses on a single background thread, so that the builder
+ * does not have to wait for serialization.
+ *
+ * Successive writes to the same file are coalesced: only the latest analysis
+ * that was handed over before the writer got to the file is stored. Readers of an
+ * analysis file have to call `flush` first, which writes any pending analysis of
+ * that file on the calling thread, or waits for a write in progress.
+ *
+ * This class is thread safe.
+ */
+class AnalysisWriter extends HasLogger {
+  import AnalysisWriter._
+
+  private val pending = new ConcurrentHashMap[File, PendingWrite]
+  private val locks = new ConcurrentHashMap[File, AnyRef]
+
+  private lazy val executor = Executors.newSingleThreadExecutor(new ThreadFactory {
+    override def newThread(r: Runnable): Thread = {
+      val thread = new Thread(r, "Scala analysis writer")
+      thread.setDaemon(true)
+      thread
+    }
+  })
+
+  /**
+   * Schedules `contents` to be written to `cacheFile`. `written` is called once the
+   * file was written, unless a later call for the same file supersedes this one.
+   */
+  def write(cacheFile: File, contents: AnalysisContents)(written: () => Unit): Unit = {
+    if (pending.put(cacheFile, PendingWrite(contents, written)) == null)
+      executor.execute(new Runnable {
+        override def run(): Unit = flush(cacheFile)
+      })
+  }
+
+  /** Writes the pending analysis of `cacheFile`, if any. Returns once the file is up to date. */
+  def flush(cacheFile: File): Unit = {
+    val stored = lockFor(cacheFile) synchronized {
+      Option(pending.remove(cacheFile)) filter (store(cacheFile, _))
+    }
+    // called outside of the lock, the callback may need to wait for a reader of the file
+    stored foreach (_.written())
+  }
+
+  /** Drops the pending analysis of `cacheFile`, if any. Returns once no write to the file is in progress. */
+  def discard(cacheFile: File): Unit =
+    lockFor(cacheFile) synchronized {
+      pending.remove(cacheFile)
+    }
+
+  /** Writes all pending analyses. Used when the workspace is saved. */
+  def flushAll(): Unit =
+    pending.keySet.asScala.toList foreach flush
+
+  /** Writes all pending analyses and stops the background thread. */
+  def shutdown(): Unit = {
+    flushAll()
+    executor.shutdown()
+    executor.awaitTermination(ShutdownTimeoutSeconds, TimeUnit.SECONDS)
+  }
+
+  private def lockFor(cacheFile: File): AnyRef = {
+    val lock = new Object
+    Option(locks.putIfAbsent(cacheFile, lock)) getOrElse lock
+  }
+
+  private def store(cacheFile: File, write: PendingWrite): Boolean =
+    try {
+      val start = System.currentTimeMillis
+      AnalysisStore.materializeLazy(MixedAnalyzingCompiler.staticCachedStore(cacheFile, true)).set(write.contents)
+      logger.debug(s"Wrote analysis to $cacheFile in ${System.currentTimeMillis - start}ms")
+      true
+    } catch {
+      case e: Exception =>
+        eclipseLog.error(s"Could not write analysis to $cacheFile", e)
+        false
+    }
+}
+
+object AnalysisWriter {
+  private val ShutdownTimeoutSeconds = 30
+
+  private case class PendingWrite(contents: AnalysisContents, written: () => Unit)
+}
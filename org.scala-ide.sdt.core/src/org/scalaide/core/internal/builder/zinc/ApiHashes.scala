@@ -0,0 +1,31 @@
+package org.scalaide.core.internal.builder.zinc
+
+import sbt.internal.inc.Analysis
+import xsbti.compile.CompileAnalysis
+
+/**
+ * The hash zinc computes of the API of each class of a project, by class name.
+ *
+ * Two snapshots taken before and after a build tell which classes changed in a way that
+ * matters to the projects depending on this one. Changes to method bodies or private
+ * members leave the hashes untouched, except for the private members of traits: they are
+ * mixed into the classes extending the trait, so zinc covers them by a separate hash that is
+ * part of the snapshot too.
+ */
+case class ApiHashes(hashes: Map[String, Int]) {
+
+  /** Returns the classes whose API differs in `other`, including the added and removed ones. */
+  def changedIn(other: ApiHashes): Set[String] =
+    (hashes.keySet ++ other.hashes.keySet) filter (name => hashes.get(name) != other.hashes.get(name))
+}
+
+object ApiHashes {
+  val Empty = ApiHashes(Map.empty)
+
+  def of(analysis: CompileAnalysis): ApiHashes = analysis match {
+    case a: Analysis =>
+      ApiHashes(a.apis.internal map { case (name, analyzed) => name -> (31 * analyzed.apiHash + analyzed.extraHash) })
+    case _ =>
+      Empty
+  }
+}
@@ -0,0 +1,114 @@
+package org.scalaide.core.internal.builder.zinc
+
+import java.io.File
+import java.lang.ref.SoftReference
+import java.util.LinkedHashMap
+
+import scala.collection.JavaConverters._
+
+import org.scalaide.core.IScalaProject
+import org.scalaide.logging.HasLogger
+
+import sbt.internal.inc.FreshCompilerCache
+import xsbti.Logger
+import xsbti.Reporter
+import xsbti.compile.CachedCompiler
+import xsbti.compile.CachedCompilerProvider
+import xsbti.compile.GlobalsCache
+import xsbti.compile.MultipleOutput
+import xsbti.compile.Output
+import xsbti.compile.SingleOutput
+
+/** A bounded cache of resident scalac instances used by the builder.
+ *
+ *  Compilers are keyed by project, Scala version, output folders and compiler arguments.
+ *  The arguments contain the classpath and the scalac options, so a changed classpath or
+ *  setting never picks up a stale compiler. At most `maxInstances` compilers are kept,
+ *  the least recently used one is evicted first, and all of them are softly referenced
+ *  so that they are dropped under memory pressure.
+ *
+ *  When `maxInstances` is not positive every build gets a fresh compiler.
+ *
+ *  This class is thread safe.
+ */
+class BuildCompilerCache(maxInstances: => Int) extends HasLogger {
+  import BuildCompilerCache._
+
+  private type JEntry = java.util.Map.Entry[Key, SoftReference[CachedCompiler]]
+
+  /* This linked map is ordered by access, meaning it removes the LRU entry. */
+  private val jmap = new LinkedHashMap[Key, SoftReference[CachedCompiler]](4, 0.75f, /* accessOrder = */ true) {
+    override def removeEldestEntry(entry: JEntry): Boolean = size() > maxInstances
+  }
+
+  // raw stats
+  private var hits, misses = 0
+
+  /** Return the compiler cache to be used for building `project`. */
+  def forProject(project: IScalaProject): GlobalsCache =
+    if (maxInstances > 0)
+      new ProjectCompilerCache(project.underlying.getName)
+    else
+      new FreshCompilerCache
+
+  /** Drop all compilers of `project`. Called when its classpath or settings change. */
+  def invalidate(project: IScalaProject): Unit =
+    invalidate(project.underlying.getName)
+
+  /** Drop all compilers and reset the stats. */
+  def clear(): Unit = synchronized {
+    jmap.clear()
+    hits = 0
+    misses = 0
+  }
+
+  /** Return the number of hits and misses in the cache. */
+  def getStats: (Int, Int) = synchronized { (hits, misses) }
+
+  private def invalidate(projectName: String): Unit = synchronized {
+    jmap.keySet.asScala.filter(_.project == projectName).toList foreach jmap.remove
+  }
+
+  private def cached(key: Key, forceNew: Boolean): Option[CachedCompiler] = synchronized {
+    val compiler = if (forceNew) None else Option(jmap.get(key)).flatMap(ref => Option(ref.get))
+    if (compiler.isDefined) hits += 1 else misses += 1
+    compiler
+  }
+
+  private def store(key: Key, compiler: CachedCompiler): Unit = synchronized {
+    jmap.put(key, new SoftReference(compiler))
+  }
+
+  private class ProjectCompilerCache(project: String) extends GlobalsCache {
+    override def apply(args: Array[String], output: Output, forceNew: Boolean, provider: CachedCompilerProvider,
+      log: Logger, reporter: Reporter): CachedCompiler = {
+      val key = Key(project, provider.scalaInstance.actualVersion, outputDirs(output), args.toList.filterNot(isSource))
+      cached(key, forceNew) getOrElse {
+        // creating a compiler takes time, don't hold the lock meanwhile
+        logger.debug(s"Creating a new build compiler for $project")
+        val compiler = provider.newCachedCompiler(args, output, log, reporter)
+        store(key, compiler)
+        compiler
+      }
+    }
+
+    override def clear(): Unit =
+      invalidate(project)
+  }
+}
+
+object BuildCompilerCache {
+  private case class Key(project: String, scalaVersion: String, outputDirs: Seq[(File, File)], args: List[String])
+
+  private def isSource(arg: String): Boolean =
+    arg.endsWith(".scala") || arg.endsWith(".java")
+
+  private def outputDirs(output: Output): Seq[(File, File)] = output match {
+    case multiple: MultipleOutput =>
+      multiple.getOutputGroups.toList.map(group => (group.getSourceDirectory, group.getOutputDirectory))
+    case single: SingleOutput =>
+      Seq((null, single.getOutputDirectory))
+    case _ =>
+      Nil
+  }
+}
@@ -1,16 +1,10 @@
 package org.scalaide.core.internal.builder.zinc
 
-import java.io.File
-
-import org.scalaide.util.internal.SbtUtils
-
 import sbt.internal.inc.Analysis
 import sbt.internal.inc.IncrementalCompilerImpl
-import sbt.internal.inc.MixedAnalyzingCompiler
 import sbt.util.InterfaceUtil.o2jo
 import xsbti.Logger
 import xsbti.Reporter
-import xsbti.compile.AnalysisContents
 import xsbti.compile.CompileResult
 import xsbti.compile.JavaCompiler
 import xsbti.compile.ScalaCompiler
@@ -22,7 +16,7 @@ import xsbti.compile.ScalaCompiler
  */
 final case class Compilers(scalac: ScalaCompiler, javac: JavaCompiler)
 
-class CachingCompiler private (cacheFile: File, sbtReporter: Reporter, log: Logger) {
+class CachingCompiler private (analysisCache: AnalysisCache, sbtReporter: Reporter, log: Logger) {
   /**
    * Inspired by `IC.compile` and `AggressiveCompile.compile1`
    *
@@ -32,32 +26,34 @@ class CachingCompiler private (cacheFile: File, sbtReporter: Reporter, log: Logg
    *  In other terms, we need richer (`IncOptions`) parameter type, here.
    *  Other thing is the update of the `AnalysisStore` implemented in `AggressiveCompile.compile1`
    *  method which is not implemented in `IC.compile`.
+   *
+   *  The previous analysis is taken from `analysisCache`, which reads the cache file
+   *  only if the in-memory copy is gone or stale. The new analysis is written to disk
+   *  in the background.
    */
   def compile(in: SbtInputs, comps: Compilers): Analysis = {
     val lookup = new DefaultPerClasspathEntryLookup {
       override def analysis(classpathEntry: File) =
         in.analysisMap(classpathEntry)
     }
-    val (previousAnalysis, previousSetup) = SbtUtils.readCache(cacheFile)
-      .map {
-        case (a, s) => (Option(a), Option(s))
-      }.getOrElse((Option(SbtUtils.readAnalysis(cacheFile)), None))
+    val (previousAnalysis, previousSetup) = analysisCache.get()
     cacheAndReturnLastAnalysis(new IncrementalCompilerImpl().compile(comps.scalac, comps.javac, in.sources, in.classpath, in.output, in.cache,
-      in.scalacOptions, in.javacOptions, o2jo(previousAnalysis), o2jo(previousSetup), lookup, sbtReporter, in.order,
+      in.scalacOptions, in.javacOptions, o2jo(Option(previousAnalysis)), o2jo(previousSetup), lookup, sbtReporter, in.order,
       skip = false, in.progress, in.incOptions, extra = Array(), log))
   }
 
   private def cacheAndReturnLastAnalysis(compilationResult: CompileResult): Analysis = {
-    if (compilationResult.hasModified)
-      AnalysisStore.materializeLazy(MixedAnalyzingCompiler.staticCachedStore(cacheFile, true)).set(AnalysisContents.create(compilationResult.analysis, compilationResult.setup))
     compilationResult.analysis match {
-      case a: Analysis => a
+      case a: Analysis =>
+        if (compilationResult.hasModified)
+          analysisCache.store(a, compilationResult.setup)
+        a
       case a => throw new IllegalStateException(s"object of type `Analysis` was expected but got `${a.getClass}`.")
     }
   }
 }
 
 object CachingCompiler {
-  def apply(cacheFile: File, sbtReporter: Reporter, logger: Logger): CachingCompiler =
-    new CachingCompiler(cacheFile, sbtReporter, logger)
+  def apply(analysisCache: AnalysisCache, sbtReporter: Reporter, logger: Logger): CachingCompiler =
+    new CachingCompiler(analysisCache, sbtReporter, logger)
 }
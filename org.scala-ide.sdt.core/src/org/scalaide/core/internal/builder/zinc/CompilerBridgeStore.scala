@@ -1,5 +1,11 @@
 package org.scalaide.core.internal.builder.zinc
 
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.ReentrantReadWriteLock
 import java.util.function.Supplier
 
 import scala.collection.mutable.ListBuffer
@@ -33,16 +39,23 @@ import xsbti.compile.ClasspathOptionsUtil
  *  the store will instantiate a raw compiler and compile it from the source. This may take some time,
  *  in the order of seconds.
  *
+ *  Bridges are built under a lock per target jar, so a build only waits for other builds of the
+ *  same bridge. Requests for a bridge that already exists don't take any lock. A bridge is compiled
+ *  to a temporary jar and moved in place once complete, so a partial jar is never handed out.
+ *
  *  This class is thread safe.
  */
 class CompilerBridgeStore(base: IPath, plugin: ScalaPlugin) extends HasLogger {
   private val compilerBridgeName = "compiler-bridge.jar"
   private val compilerBridgesDir = base / "compiler-bridges"
 
-  private val lockObject = new Object
+  private val bridgeLocks = new ConcurrentHashMap[IPath, AnyRef]
+  /** Builds share the read lock, purging the store takes the write lock. */
+  private val purgeLock = new ReentrantReadWriteLock
 
   // raw stats
-  private var hits, misses = 0
+  private val hits, misses, failures = new AtomicInteger
+  private val buildTimeMillis = new AtomicLong
 
   private lazy val compilerBridgeSrc = {
     lazy val defaultPath = OSGiUtils.getBundlePath(plugin.zincCompilerBridgeBundle).flatMap(EclipseUtils.computeSourcePath(SdtConstants.ZincCompilerBridgePluginId, _))
@@ -71,13 +84,40 @@ class CompilerBridgeStore(base: IPath, plugin: ScalaPlugin) extends HasLogger {
   def compilerBridgeFor(installation: IScalaInstallation)(implicit pm: IProgressMonitor): Either[String, IPath] = {
     val targetJar = bridgeJar(installation)
 
-    lockObject synchronized {
-      if (targetJar.toFile.exists()) {
-        hits += 1
-        Right(targetJar)
-      } else {
-        misses += 1
-        buildInterface(installation)
+    if (targetJar.toFile.exists()) {
+      hits.incrementAndGet()
+      Right(targetJar)
+    } else {
+      purgeLock.readLock.lock()
+      try lockFor(targetJar) synchronized {
+        // another thread may have built it while we were waiting
+        if (targetJar.toFile.exists()) {
+          hits.incrementAndGet()
+          Right(targetJar)
+        } else {
+          misses.incrementAndGet()
+          val start = System.currentTimeMillis
+          val result = buildInterface(installation)
+          buildTimeMillis.addAndGet(System.currentTimeMillis - start)
+          if (result.isLeft) failures.incrementAndGet()
+          result
+        }
+      } finally
+        purgeLock.readLock.unlock()
+    }
+  }
+
+  /** Build the compiler-bridges of all `installations` that don't have one yet.
+   *
+   *  Errors are logged, and don't prevent building the bridges of the other installations.
+   */
+  def prebuild(installations: Seq[IScalaInstallation])(implicit pm: IProgressMonitor): Unit = {
+    val distinctVersions = installations.groupBy(_.version).values.map(_.head).toList
+    val monitor = SubMonitor.convert(pm, "Building compiler-bridges", distinctVersions.size)
+    for (installation <- distinctVersions if !monitor.isCanceled) {
+      compilerBridgeFor(installation)(monitor.newChild(1)) match {
+        case Left(error) => logger.warn(s"Could not prebuild the compiler-bridge for ${installation.version.unparse}: $error")
+        case Right(_) =>
       }
     }
   }
@@ -85,15 +125,28 @@ class CompilerBridgeStore(base: IPath, plugin: ScalaPlugin) extends HasLogger {
   /** Delete all cached compiler bridges and reset the stats.
    */
   def purgeCache(): Unit = {
-    lockObject synchronized {
-      hits = 0
-      misses = 0
+    purgeLock.writeLock.lock()
+    try {
+      hits.set(0)
+      misses.set(0)
+      failures.set(0)
+      buildTimeMillis.set(0)
       FileUtils.deleteDir(compilerBridgesDir.toFile)
-    }
+    } finally
+      purgeLock.writeLock.unlock()
   }
 
   /** Return the number of hits and misses in the store. */
-  def getStats: (Int, Int) = (hits, misses)
+  def getStats: (Int, Int) = (hits.get, misses.get)
+
+  /** Return the hits, misses, failed builds and the total time spent building bridges. */
+  def stats: CompilerBridgeStore.Stats =
+    CompilerBridgeStore.Stats(hits.get, misses.get, failures.get, buildTimeMillis.get)
+
+  private def lockFor(targetJar: IPath): AnyRef = {
+    val lock = new Object
+    Option(bridgeLocks.putIfAbsent(targetJar, lock)) getOrElse lock
+  }
 
   private def cacheDir(installation: IScalaInstallation): IPath =
     compilerBridgesDir /
@@ -120,17 +173,22 @@ class CompilerBridgeStore(base: IPath, plugin: ScalaPlugin) extends HasLogger {
         val log = new SbtLogger
         cacheDir(installation).toFile.mkdirs()
         val targetJar = bridgeJar(installation)
+        val partialJar = cacheDir(installation) / (compilerBridgeName + ".part")
         monitor.worked(1)
 
         val label = installation.version.unparse
         val raw = new RawCompiler(scalaInstanceForInstallation(installation), ClasspathOptionsUtil.auto, log)
-        AnalyzingCompiler.compileSources(List(compilerBridge.toFile), targetJar.toFile, List(zincInterface.toFile), label, raw, log)
+        AnalyzingCompiler.compileSources(List(compilerBridge.toFile), partialJar.toFile, List(zincInterface.toFile), label, raw, log)
 
         monitor.worked(1)
 
         log.errorMessages match {
-          case Seq() => Right(targetJar)
-          case errs  => Left(s"Error building compiler-bridge.jar for ${installation.version.unparse}: ${errs.mkString("\n")}")
+          case Seq() =>
+            Files.move(partialJar.toFile.toPath, targetJar.toFile.toPath, StandardCopyOption.ATOMIC_MOVE)
+            Right(targetJar)
+          case errs =>
+            partialJar.toFile.delete()
+            Left(s"Error building compiler-bridge.jar for ${installation.version.unparse}: ${errs.mkString("\n")}")
         }
 
       case _ =>
@@ -162,3 +220,7 @@ class CompilerBridgeStore(base: IPath, plugin: ScalaPlugin) extends HasLogger {
     }
   }
 }
+
+object CompilerBridgeStore {
+  case class Stats(hits: Int, misses: Int, failures: Int, buildTimeMillis: Long)
+}
@@ -2,8 +2,6 @@ package org.scalaide.core.internal.builder
 package zinc
 
 import java.io.File
-import java.lang.ref.SoftReference
-import java.util.concurrent.atomic.AtomicReference
 
 import scala.collection.mutable
 import scala.tools.nsc.Settings
@@ -20,6 +18,7 @@ import org.eclipse.core.runtime.Path
 import org.eclipse.core.runtime.SubMonitor
 import org.scalaide.core.IScalaInstallation
 import org.scalaide.core.IScalaProject
+import org.scalaide.core.internal.ScalaPlugin
 import org.scalaide.core.internal.builder.BuildProblemMarker
 import org.scalaide.core.internal.builder.EclipseBuildManager
 import org.scalaide.core.internal.builder.TaskManager
@@ -52,11 +51,12 @@ class EclipseSbtBuildManager(val project: IScalaProject, settings: Settings, ana
   private var monitor: SubMonitor = _
 
   private val sources: mutable.Set[IFile] = mutable.Set.empty
-  private val cached = new AtomicReference[SoftReference[Analysis]]
 
   private def analysisStore = analysisCache.getOrElse(project.underlying.getFile(".cache"))
   private def cacheFile = analysisStore.getLocation.toFile
 
+  private val cached = new AnalysisCache(cacheFile, ScalaPlugin().analysisWriter)
+
   // this directory is used by Sbt to store classfiles between
   // compilation runs to implement all-or-nothing compilation
   // sementics. Original files are copied over to tempDir and
@@ -97,9 +97,9 @@ class EclipseSbtBuildManager(val project: IScalaProject, settings: Settings, ana
   }
 
   override def clean(implicit monitor: IProgressMonitor): Unit = {
+    cached.clear()
     analysisStore.refreshLocal(IResource.DEPTH_ZERO, null)
     analysisStore.delete(true, false, monitor)
-    clearCached()
   }
 
   override def invalidateAfterLoad: Boolean = true
@@ -146,7 +146,6 @@ class EclipseSbtBuildManager(val project: IScalaProject, settings: Settings, ana
       catch {
         case _: CompileFailed | CompilerBridgeFailed => None
       }
-    analysis foreach setCached
     createAdditionalMarkers(analysis.getOrElse(latestAnalysis), progress.actualCompiledFiles)
   }
 
@@ -177,15 +176,12 @@ class EclipseSbtBuildManager(val project: IScalaProject, settings: Settings, ana
       sbtReporter.createMarker(problem.position, problem.message, problem.severity)
   }
 
-  private def setCached(a: Analysis): Analysis = {
-    cached set new SoftReference[Analysis](a); a
-  }
-  private def clearCached(): Unit = {
-    Option(cached.get) foreach (ref => ref.clear)
-  }
-
   override def latestAnalysis: Analysis =
-    Option(cached.get) flatMap (ref => Option(ref.get)) getOrElse setCached(SbtUtils.readAnalysis(cacheFile))
+    cached.analysis
+
+  /** Returns the hit/miss counters and the time spent reading the analysis file of this build manager. */
+  def analysisCacheStats: AnalysisCache.Stats =
+    cached.stats
 
   /**
    * Knows nothing about output files.
@@ -209,7 +205,7 @@ class EclipseSbtBuildManager(val project: IScalaProject, settings: Settings, ana
   private def aggressiveCompile(in: SbtInputs, log: Logger): Analysis = {
     in.compilers match {
       case Right(comps) =>
-        CachingCompiler(cacheFile, sbtReporter, log).compile(in, comps)
+        CachingCompiler(cached, sbtReporter, log).compile(in, comps)
       case Left(errors) =>
         sbtReporter.log(problem(
           "compile",
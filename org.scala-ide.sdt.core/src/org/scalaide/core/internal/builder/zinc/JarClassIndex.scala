@@ -0,0 +1,158 @@
+package org.scalaide.core.internal.builder.zinc
+
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.lang.ref.SoftReference
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.Arrays
+import java.util.concurrent.ConcurrentHashMap
+import java.util.zip.ZipFile
+
+import scala.collection.JavaConverters._
+import scala.util.control.NonFatal
+
+import org.scalaide.logging.HasLogger
+
+/** A workspace-wide index of the classes defined by jars, as needed by zinc's `DefinesClass`.
+ *
+ *  Each version of a jar, identified by its path, size and last modification time, is
+ *  scanned only once, no matter how many builds or projects ask for it. The class names
+ *  are kept as a sorted array and softly referenced, so that the index can shrink under
+ *  memory pressure.
+ *
+ *  If `storeFile` is given, the index is restored from it on first use and written back
+ *  by `save`, so that a restart doesn't rescan all dependency jars. The jars for which
+ *  `exists` is false are dropped when the index is saved.
+ *
+ *  This class is thread safe.
+ */
+class JarClassIndex(storeFile: Option[File], exists: File => Boolean = _.isFile) extends HasLogger {
+  import JarClassIndex._
+
+  private val entries = new ConcurrentHashMap[File, Entry]
+  @volatile private var dirty = false
+
+  private lazy val restored: Unit = storeFile filter (_.isFile) foreach restore
+
+  /** Return the names of the classes defined in `jar`, scanning it only if it changed. */
+  def classNames(jar: File): ClassNames = {
+    restored
+    val key = jar.getAbsoluteFile
+    val stamp = FileStamp(key)
+    val known = Option(entries.get(key)) filter (_.stamp == stamp) flatMap (entry => Option(entry.names.get))
+    known getOrElse {
+      val names = scan(key)
+      entries.put(key, Entry(stamp, new SoftReference(names)))
+      dirty = true
+      names
+    }
+  }
+
+  /** Write the index to `storeFile`, if anything changed since it was read or a jar was deleted. */
+  def save(): Unit = for (file <- storeFile if pruned() || dirty) {
+    // cleared before taking the snapshot, so that changes made meanwhile are saved next time
+    dirty = false
+    val live = for {
+      (jar, entry) <- entries.asScala.toList
+      names <- Option(entry.names.get)
+    } yield (jar, entry.stamp, names)
+
+    // write to a temporary file first, so that a failed write doesn't leave a truncated store
+    val written = new File(file.getPath + ".tmp")
+    try {
+      val out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(written)))
+      try {
+        out.writeInt(FormatVersion)
+        out.writeInt(live.size)
+        for ((jar, stamp, names) <- live) {
+          out.writeUTF(jar.getPath)
+          out.writeLong(stamp.lastModified)
+          out.writeLong(stamp.length)
+          out.writeInt(names.size)
+          names.foreach(name => out.writeUTF(name))
+        }
+      } finally out.close()
+      Files.move(written.toPath, file.toPath, StandardCopyOption.REPLACE_EXISTING)
+    } catch {
+      case e: IOException =>
+        logger.error(s"Could not save the jar class index to $file", e)
+        written.delete()
+        dirty = true
+    }
+  }
+
+  /** Drop the jars that no longer exist, and return whether there were any. */
+  private def pruned(): Boolean = {
+    val missing = entries.keySet.asScala.toList filterNot exists
+    missing foreach entries.remove
+    missing.nonEmpty
+  }
+
+  private def restore(file: File): Unit =
+    try {
+      val in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))
+      try {
+        if (in.readInt() == FormatVersion) {
+          for (_ <- 1 to readSize(in, file)) {
+            val jar = new File(in.readUTF())
+            val stamp = FileStamp(in.readLong(), in.readLong())
+            val names = Array.fill(readSize(in, file))(in.readUTF())
+            entries.put(jar, Entry(stamp, new SoftReference(new ClassNames(names))))
+          }
+          logger.debug(s"Restored the class index of ${entries.size} jars from $file")
+        }
+      } finally in.close()
+    } catch {
+      // a truncated or corrupt store is as good as no store at all
+      case NonFatal(e) =>
+        logger.error(s"Could not restore the jar class index from $file", e)
+        entries.clear()
+    }
+
+  /** Read a number of elements, and check that it fits in `file` before anything is allocated for it. */
+  private def readSize(in: DataInputStream, file: File): Int = {
+    val size = in.readInt()
+    if (size < 0 || size > file.length) throw new IOException(s"Invalid size $size")
+    size
+  }
+
+  private def scan(jar: File): ClassNames = {
+    val zipFile = new ZipFile(jar, ZipFile.OPEN_READ)
+    try {
+      val names = zipFile.entries.asScala.filterNot(_.isDirectory).map(entry => toClassName(entry.getName)).toArray
+      Arrays.sort(names.asInstanceOf[Array[AnyRef]])
+      new ClassNames(names)
+    } finally
+      zipFile.close()
+  }
+}
+
+object JarClassIndex {
+  private val FormatVersion = 1
+
+  private case class Entry(stamp: FileStamp, names: SoftReference[ClassNames])
+
+  /** The class names of a jar, sorted so that they can be looked up by binary search. */
+  final class ClassNames private[zinc] (sortedNames: Array[String]) {
+    def contains(className: String): Boolean =
+      Arrays.binarySearch(sortedNames.asInstanceOf[Array[AnyRef]], className) >= 0
+
+    def size: Int = sortedNames.length
+
+    private[zinc] def foreach(f: String => Unit): Unit = sortedNames.foreach(f)
+  }
+
+  private def toClassName(jarEntryName: String): String = {
+    val noClassAtEnd =
+      if (jarEntryName.endsWith(".class")) jarEntryName.substring(0, jarEntryName.length - ".class".length)
+      else jarEntryName
+    noClassAtEnd.replace('/', '.')
+  }
+}
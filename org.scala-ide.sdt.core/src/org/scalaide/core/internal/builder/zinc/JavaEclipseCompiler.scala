@@ -33,7 +33,7 @@ class JavaEclipseCompiler(p: IProject, monitor: SubMonitor) extends JavaCompiler
     val scalaProject = IScalaPlugin().getScalaProject(project)
     val allSourceFiles = scalaProject.allSourceFiles()
     val depends = scalaProject.directDependencies
-    if (allSourceFiles.exists(FileUtils.hasBuildErrors(_)))
+    if (FileUtils.filesWithBuildErrors(project).exists(allSourceFiles))
       depends.toArray
     else {
       ensureProject
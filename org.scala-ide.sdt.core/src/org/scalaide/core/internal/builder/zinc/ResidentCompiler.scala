@@ -11,10 +11,11 @@ import org.eclipse.core.runtime.IPath
 import org.eclipse.core.runtime.NullProgressMonitor
 import org.eclipse.core.runtime.SubMonitor
 import org.scalaide.core.IScalaProject
+import org.scalaide.core.internal.ScalaPlugin
 import org.scalaide.logging.HasLogger
+import org.scalaide.ui.internal.preferences.ResourcesPreferences
 import org.scalaide.util.internal.SbtUtils
 
-import sbt.internal.inc.FreshCompilerCache
 import sbt.internal.inc.IncrementalCompilerImpl
 import xsbti.CompileFailed
 import xsbti.compile.CompileAnalysis
@@ -45,6 +46,11 @@ class ResidentCompiler private (project: IScalaProject, comps: Compilers, compil
   private val libs = extraLibsToCompile.map(_.toFile).toSeq
   private val zincCompiler = new IncrementalCompilerImpl
   private val sbtReporter = new SbtBuildReporter(project)
+  /* Its own compiler, reused by the next calls on this instance if compilers are cached at all.
+   * The output folders of a resident compiler are temporary, so its compilers don't go to the
+   * builder's cache where they would evict the compilers of real projects without being reused. */
+  private val cache = new BuildCompilerCache(
+    ScalaPlugin().getPreferenceStore.getInt(ResourcesPreferences.BUILDER_COMPILER_CACHE_SIZE) min 1).forProject(project)
   private val lookup = new DefaultPerClasspathEntryLookup {
     override def definesClass(classpathEntry: File) =
       Locator.NoClass
@@ -76,7 +82,6 @@ class ResidentCompiler private (project: IScalaProject, comps: Compilers, compil
     Files.lines(compiledSource.toPath).toArray.foreach(a => logger.warn(a))
     def incOptions: IncOptions = IncOptions.of()
     def output = new EclipseMultipleOutput(Seq(compiledSource.toPath.getParent.toFile -> compilationOutputFolder))
-    def cache = new FreshCompilerCache
 
     sbtReporter.reset()
     zincCompiler.compile(comps.scalac, comps.javac, Array(compiledSource), classpath, output, cache, scalacOpts,
@@ -12,7 +12,6 @@ import org.scalaide.core.internal.ScalaPlugin
 import org.scalaide.ui.internal.preferences
 import org.scalaide.util.internal.SettingConverterUtil
 
-import sbt.internal.inc.FreshCompilerCache
 import xsbti.Logger
 import xsbti.compile.CompileAnalysis
 import xsbti.compile.CompileProgress
@@ -36,7 +35,7 @@ class SbtInputs(
   addToClasspath: Seq[IPath] = Seq.empty,
   srcOutputs: Seq[(IContainer, IContainer)] = Seq.empty) {
 
-  def cache = new FreshCompilerCache // May want to explore caching possibilities.
+  def cache = ScalaPlugin().buildCompilerCache.forProject(project)
 
   private val allProjects = project +: project.transitiveDependencies.flatMap(ScalaPlugin().asScalaProject)
 
@@ -1,7 +1,6 @@
 package org.scalaide.core.internal.builder
 
 import java.io.File
-import java.util.zip.ZipFile
 
 import org.eclipse.core.runtime.SubMonitor
 import org.scalaide.core.IScalaInstallation
@@ -37,31 +36,22 @@ package object zinc {
       override def apply(className: String): Boolean = Locate.classFile(dir, className).isFile
     }
 
+    /** Looks up classes in the workspace-wide [[JarClassIndex]], which scans each jar only once. */
     class JarLocator(jar: File) extends DefinesClass {
-      lazy val entries: Set[String] = {
-        val zipFile = new ZipFile(jar, ZipFile.OPEN_READ)
-        try {
-          import scala.collection.JavaConverters._
-          zipFile.entries.asScala.filterNot(_.isDirectory).map { entry =>
-            toClassNameFromJarFileName(entry.getName)
-          }.toSet
-        } finally
-          zipFile.close()
-      }
-
-      private def toClassNameFromJarFileName(jarFileName: String): String = {
-        val noClassAtEnd = if (jarFileName.endsWith(".class"))
-          jarFileName.substring(0, jarFileName.lastIndexOf(".class"))
-        else
-          jarFileName
-        noClassAtEnd.replaceAll("/", ".")
-      }
+      private lazy val classNames = ScalaPlugin().jarClassIndex.classNames(jar)
 
       override def apply(className: String): Boolean =
-        entries.contains(className)
+        classNames.contains(className)
     }
   }
 
+  /** Identifies a version of a file on disk. */
+  private[zinc] case class FileStamp(lastModified: Long, length: Long)
+
+  private[zinc] object FileStamp {
+    def apply(file: File): FileStamp = FileStamp(file.lastModified, file.length)
+  }
+
   private[zinc] object unimplementedJavaCompiler extends JavaCompiler {
     override def run(srcs: Array[File], opts: Array[String], incOpts: IncToolOptions, reporter: Reporter, logger: Logger) =
       throw new NotImplementedError("expects to be not called")
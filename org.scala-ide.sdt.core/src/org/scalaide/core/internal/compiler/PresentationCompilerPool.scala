@@ -0,0 +1,135 @@
+package org.scalaide.core.internal.compiler
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicBoolean
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ListBuffer
+import scala.collection.mutable.Subscriber
+
+import org.scalaide.logging.HasLogger
+
+/**
+ * Keeps the presentation compilers of the workspace within a maximum number of live instances
+ * and a heap budget.
+ *
+ * Each registered project is followed through the `PresentationCompilerActivity` events of its
+ * proxy. When a compiler starts, or when a compiler is active and the limits are exceeded, the
+ * least recently active compilers are shut down until the pool is within its limits again. The
+ * compilers of projects with open editors and the most recently active compiler are never evicted.
+ *
+ * The heap budget applies to the retained size estimated by each compiler, see
+ * `ScalaPresentationCompiler.estimatedRetainedBytes`. A non-positive limit disables that check.
+ *
+ * Evictions happen on a dedicated thread, never on the thread publishing the event, which may
+ * hold the lock of its proxy.
+ *
+ * @param maxLiveCompilers the maximum number of live compilers
+ * @param heapBudgetBytes the maximum total estimated size of the live compilers
+ */
+class PresentationCompilerPool(maxLiveCompilers: => Int, heapBudgetBytes: => Long) extends HasLogger {
+  import PresentationCompilerPool._
+
+  private val members = new ConcurrentHashMap[PresentationCompilerProxy, Member]
+  private val evictionPending = new AtomicBoolean
+  @volatile private var lastCheck = 0L
+
+  /** Follow the presentation compiler of `projectName`, so that it can be evicted. */
+  def register(projectName: String, proxy: PresentationCompilerProxy, hasOpenEditors: => Boolean): Unit = {
+    val member = new Member(projectName, proxy, () => hasOpenEditors)
+    if (members.putIfAbsent(proxy, member) == null)
+      proxy.subscribe(member)
+  }
+
+  /** Stop following `proxy`, when its project is closed or deleted. */
+  def unregister(proxy: PresentationCompilerProxy): Unit =
+    Option(members.remove(proxy)) foreach proxy.removeSubscription
+
+  /** Return the estimated retained size of each live presentation compiler, by project name. */
+  def retainedSizeEstimates: Seq[(String, Long)] =
+    liveMembers map (member => member.projectName -> member.proxy.estimatedRetainedBytes)
+
+  private def liveMembers: Seq[Member] =
+    members.values.asScala.filter(_.live).toList
+
+  private def requestEviction(): Unit =
+    if (evictionPending.compareAndSet(false, true))
+      evictor.execute(new Runnable {
+        override def run(): Unit = evict()
+      })
+
+  private def evict(): Unit = {
+    evictionPending.set(false)
+    lastCheck = System.currentTimeMillis
+    val candidates = liveMembers map { member =>
+      Candidate(member, member.lastActivity, member.proxy.estimatedRetainedBytes, member.hasOpenEditors())
+    }
+    for (candidate <- toEvict(candidates, maxLiveCompilers, heapBudgetBytes)) {
+      val member = candidate.member
+      logger.info(s"Presentation compiler for project ${member.projectName} (about ${candidate.retainedBytes / MB}MB) will be shut down to keep within the limits of the pool")
+      member.proxy.shutdown()
+    }
+  }
+
+  private class Member(val projectName: String, val proxy: PresentationCompilerProxy, val hasOpenEditors: () => Boolean)
+    extends Subscriber[PresentationCompilerActivity, PresentationCompilerProxy] {
+
+    @volatile var live = false
+    @volatile var lastActivity = 0L
+
+    override def notify(pub: PresentationCompilerProxy, event: PresentationCompilerActivity): Unit = event match {
+      case Start =>
+        live = true
+        lastActivity = System.currentTimeMillis
+        requestEviction()
+      case Activity =>
+        lastActivity = System.currentTimeMillis
+        if (lastActivity - lastCheck > CheckIntervalMillis) requestEviction()
+      case Shutdown =>
+        live = false
+      case Restart =>
+    }
+  }
+}
+
+object PresentationCompilerPool {
+  private val MB = 1024 * 1024
+
+  /** Activity triggers an eviction check at most this often, the sizes of the compilers grow as they are used. */
+  private val CheckIntervalMillis = 10000L
+
+  /** A live compiler of the pool, as seen by the eviction policy. */
+  case class Candidate[A](member: A, lastActivity: Long, retainedBytes: Long, hasOpenEditors: Boolean)
+
+  /**
+   * Return the candidates to shut down, least recently active first, so that at most `maxLive`
+   * candidates are live and their retained size is at most `budgetBytes`. Candidates with open
+   * editors and the most recently active candidate are kept, even if the limits are not met.
+   */
+  def toEvict[A](candidates: Seq[Candidate[A]], maxLive: Int, budgetBytes: Long): Seq[Candidate[A]] = {
+    def overLimits(count: Int, bytes: Long) =
+      (maxLive > 0 && count > maxLive) || (budgetBytes > 0 && bytes > budgetBytes)
+
+    val evicted = ListBuffer[Candidate[A]]()
+    var count = candidates.size
+    var bytes = candidates.map(_.retainedBytes).sum
+    for (candidate <- candidates.sortBy(_.lastActivity).dropRight(1)) {
+      if (!candidate.hasOpenEditors && overLimits(count, bytes)) {
+        evicted += candidate
+        count -= 1
+        bytes -= candidate.retainedBytes
+      }
+    }
+    evicted.toList
+  }
+
+  private lazy val evictor = Executors.newSingleThreadExecutor(new ThreadFactory {
+    override def newThread(r: Runnable): Thread = {
+      val thread = new Thread(r, "Scala presentation compiler pool")
+      thread.setDaemon(true)
+      thread
+    }
+  })
+}
@@ -9,6 +9,10 @@ import org.scalaide.core.compiler._
 import org.scalaide.core.compiler.IScalaPresentationCompiler
 import org.scalaide.core.compiler.InteractiveCompilationUnit
 import scala.collection.mutable.Publisher
+import org.eclipse.core.runtime.Status
+import org.eclipse.core.runtime.jobs.Job
+import org.scalaide.ui.internal.preferences.ResourcesPreferences
+import org.scalaide.util.eclipse.EclipseUtils
 
 /** Holds a reference to a 'live' presentation compiler and manages its lifecycle.
   *
@@ -22,9 +26,9 @@ final class PresentationCompilerProxy(name: String, initializeSettings: () => Se
   /** Current 'live' instance of the presentation compiler.
     *
     * @note Can be `null` if no presentation compiler instance should exist for the `project`.
-    * @note All access are guarded by `pcLock`.
+    * @note All writes are guarded by `pcLock`, reads that don't need a consistent view may skip it.
     */
-  private var pc: ScalaPresentationCompiler = null
+  @volatile private var pc: ScalaPresentationCompiler = null
 
   /** All accesses to `pc` must be guarded by this lock.
     *
@@ -46,6 +50,18 @@ final class PresentationCompilerProxy(name: String, initializeSettings: () => Se
   /** Signal that the presentation compiler should be restarted before processing the next request. */
   @volatile private var restartNextTime = false
 
+  /** Is a new presentation compiler being prepared in the background, see `restartInBackground`.
+    *
+    * @note All access are guarded by `pcLock`.
+    */
+  private var isPreparingStandby: Boolean = false
+
+  /** Timings of the restarts done in the background. */
+  @volatile private var restartStats = PresentationCompilerProxy.RestartStats(0, 0L, 0L)
+
+  /** Return the number of restarts done in the background, their total and their last duration. */
+  def backgroundRestartStats: PresentationCompilerProxy.RestartStats = restartStats
+
   /** Ask to restart the presentation compiler before processing the next request. */
   override def askRestart(): Unit = {
     if (!restartNextTime) {
@@ -78,6 +94,7 @@ final class PresentationCompilerProxy(name: String, initializeSettings: () => Se
         restartNextTime = false
 
         if (pc eq null) initialize()
+        else if (shouldRestart && restartsInBackground) restartInBackground(pc)
         else if (shouldRestart) {
           // Before restarting, keep track of the compilation units managed by the current presentation compiler
           unitsToReload = Option(pc).map(_.compilationUnits).getOrElse(Nil)
@@ -104,6 +121,14 @@ final class PresentationCompilerProxy(name: String, initializeSettings: () => Se
     }
   }
 
+  /** Return the estimated retained size of the live presentation compiler, or `0` if there is none.
+   *  Does not take `pcLock`, so that it never waits for a compiler being created.
+   */
+  def estimatedRetainedBytes: Long = {
+    val current = pc
+    if (current eq null) 0L else current.estimatedRetainedBytes
+  }
+
   /** Updates `pc` with a new Presentation Compiler instance.
     *
     * @note Precondition: Expects `pc` to be `null`.
@@ -119,6 +144,79 @@ final class PresentationCompilerProxy(name: String, initializeSettings: () => Se
     finally isInitializing = false
   }
 
+  private def restartsInBackground: Boolean =
+    IScalaPlugin().getPreferenceStore.getBoolean(ResourcesPreferences.PRES_COMP_RESTART_IN_BACKGROUND)
+
+  /** Create a new presentation compiler and load the units of `oldPc` into it in a background job,
+    * then swap it in for `oldPc`. Until then, `oldPc` keeps serving requests.
+    *
+    * The swap publishes `Shutdown` and `Start`, like `restart`, once `pcLock` is released so that
+    * listeners may call back into this proxy. If the new compiler can't be created or doesn't load
+    * the units within `StandbyReloadTimeoutMillis`, it is discarded and `oldPc` stays active.
+    */
+  private def restartInBackground(oldPc: ScalaPresentationCompiler): Unit = pcLock.synchronized {
+    // the compiler being prepared may predate this restart request, restart again once it is swapped in
+    if (isPreparingStandby) restartNextTime = true
+    else {
+      isPreparingStandby = true
+      val job = EclipseUtils.prepareJob(s"Restarting presentation compiler for $name", priority = Job.SHORT) { _ =>
+        prepareStandby(oldPc)
+        Status.OK_STATUS
+      }
+      job.setSystem(true)
+      job.schedule()
+    }
+  }
+
+  private def prepareStandby(oldPc: ScalaPresentationCompiler): Unit = {
+    val start = System.currentTimeMillis
+    var standby: Option[ScalaPresentationCompiler] = None
+    var swapped = false
+    try {
+      standby = instantiate(onError = ())
+      for (newPc <- standby) {
+        val created = System.currentTimeMillis
+        val units = oldPc.compilationUnits
+        newPc.askReload(units).get(PresentationCompilerProxy.StandbyReloadTimeoutMillis) match {
+          case Some(Left(_)) =>
+            val loaded = System.currentTimeMillis
+
+            swapped = pcLock.synchronized {
+              isPreparingStandby = false
+              // a `shutdown` or a cold restart may have happened in the meantime
+              if (pc eq oldPc) {
+                pc = newPc
+                true
+              } else false
+            }
+
+            if (swapped) {
+              publish(Shutdown)
+              publish(Start)
+              // catch up with the changes that went to the old compiler while the new one was loading
+              val latestUnits = oldPc.compilationUnits
+              oldPc.destroy()
+              newPc.askReload(latestUnits)
+              val elapsed = System.currentTimeMillis - start
+              restartStats = restartStats.add(elapsed)
+              logger.info(s"Swapped in a new presentation compiler for $name after ${elapsed}ms " +
+                s"(created in ${created - start}ms, ${units.size} units loaded in ${loaded - created}ms)")
+            }
+
+          case Some(Right(e)) =>
+            logger.info(s"The new presentation compiler for $name failed to load its units, keeping the current one", e)
+
+          case None =>
+            logger.info(s"The new presentation compiler for $name didn't load its units in " +
+              s"${PresentationCompilerProxy.StandbyReloadTimeoutMillis}ms, keeping the current one")
+        }
+      }
+    } finally {
+      pcLock.synchronized { isPreparingStandby = false }
+      if (!swapped) standby foreach (_.destroy())
+    }
+  }
+
   /** Shutdown the presentation compiler, and force a re-initialization. */
   private def restart(): Unit = pcLock.synchronized {
     shutdown()
@@ -150,25 +248,50 @@ final class PresentationCompilerProxy(name: String, initializeSettings: () => Se
    */
   private def create(): ScalaPresentationCompiler = {
     pcLock.synchronized {
-      try {
-        val pc = new ScalaPresentationCompiler(name, initializeSettings())
-        logger.debug(pc.settings.userSetSettings.toSeq.sortBy(_.name.toLowerCase).mkString(s"Presentation compiler settings for $name:\n  ", "\n  ", ""))
-        publish(Start)
-        pc
-      } catch {
-        case ex: MissingRequirementError =>
-          eclipseLog.error(ex)
-          null
-        case ex @ FatalError(required) if required.startsWith("package scala does not have a member") =>
-          eclipseLog.error(ex)
-          null
-        case ex: Throwable =>
-          eclipseLog.error("Error thrown while initializing the presentation compiler.", ex)
-          shutdown()
+      instantiate(onError = shutdown()) match {
+        case Some(pc) =>
+          publish(Start)
+          pc
+        case None =>
           null
       }
     }
   }
+
+  /** Creates a presentation compiler instance, without publishing any event.
+   *
+   *  @param onError called after an unexpected error, once the half-initialized compiler is destroyed
+   *  @note Should not throw.
+   */
+  private def instantiate(onError: => Unit): Option[ScalaPresentationCompiler] = {
+    var created: ScalaPresentationCompiler = null
+    try {
+      created = new ScalaPresentationCompiler(name, initializeSettings())
+      logger.debug(created.settings.userSetSettings.toSeq.sortBy(_.name.toLowerCase).mkString(s"Presentation compiler settings for $name:\n  ", "\n  ", ""))
+      Some(created)
+    } catch {
+      case ex: MissingRequirementError =>
+        eclipseLog.error(ex)
+        None
+      case ex @ FatalError(required) if required.startsWith("package scala does not have a member") =>
+        eclipseLog.error(ex)
+        None
+      case ex: Throwable =>
+        eclipseLog.error("Error thrown while initializing the presentation compiler.", ex)
+        if (created ne null) created.destroy()
+        onError
+        None
+    }
+  }
+}
+
+object PresentationCompilerProxy {
+  /** How long a compiler restarted in the background may take to load the units of the compiler it replaces. */
+  private val StandbyReloadTimeoutMillis = 120000L
+
+  case class RestartStats(count: Int, totalMillis: Long, lastMillis: Long) {
+    def add(millis: Long): RestartStats = RestartStats(count + 1, totalMillis + millis, millis)
+  }
 }
 
 /** Listeners can receive this kind of events */
@@ -0,0 +1,173 @@
+package org.scalaide.core.internal.compiler
+
+import java.util.PriorityQueue
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicInteger
+
+import scala.reflect.internal.util.SourceFile
+import scala.tools.nsc.interactive.Response
+import scala.util.DynamicVariable
+import scala.util.control.NonFatal
+
+import org.scalaide.logging.HasLogger
+
+/** Orders the interactive requests of a presentation compiler by priority, before they reach
+ *  the FIFO work queue of `Global`.
+ *
+ *  Requests are handed over to the compiler one at a time: the next one is posted only when the
+ *  previous one completed, when a more urgent one is waiting, or after `MaxRequestMillis`, so
+ *  that a lost response doesn't stall the queue. Meanwhile, a more urgent request overtakes the
+ *  waiting ones, and a waiting request whose source was changed since it was submitted is
+ *  dropped: its response is set to an [[RequestScheduler.ObsoleteRequestException]]. Completion
+ *  and background requests are never dropped, their callers need an answer.
+ *
+ *  The priority of a request is the one given by `RequestScheduler.withPriority` around the
+ *  `ask` call, or the default of that kind of request.
+ *
+ *  This class is thread safe.
+ */
+class RequestScheduler(name: String) extends HasLogger {
+  import RequestScheduler._
+
+  private val queue = new PriorityQueue[Request](11, RequestOrdering)
+  private var pumping = false
+  private var sequence = 0L
+
+  // raw stats
+  private var submitted, dropped, maxQueueDepth = 0
+  private var totalWaitMillis = 0L
+
+  /** Hand the request over to the compiler by calling `post`, once all more urgent requests are done.
+   *
+   *  @param isObsolete tells whether `source` was changed since the request was submitted
+   */
+  def submit[A](defaultPriority: Priority, source: SourceFile, response: Response[A],
+    isObsolete: SourceFile => Boolean)(post: => Unit): Unit = synchronized {
+    val priority = currentPriority.value getOrElse defaultPriority
+    sequence += 1
+    submitted += 1
+    queue.add(Request(priority, sequence, System.currentTimeMillis, source, () => post,
+      () => isObsolete(source), response.raise(_), () => response.isComplete, millis => response.get(millis).isDefined))
+    maxQueueDepth = maxQueueDepth max queue.size
+    if (!pumping) {
+      pumping = true
+      pumps.execute(new Runnable {
+        override def run(): Unit = pump()
+      })
+    }
+  }
+
+  /** Drop all waiting requests, when the compiler shuts down. */
+  def cancelAll(): Unit = synchronized {
+    while (!queue.isEmpty)
+      queue.poll().fail(new ObsoleteRequestException(s"$name shut down"))
+  }
+
+  /** Return the request counters and the current and maximum depth of the queue. */
+  def stats: Stats = synchronized {
+    Stats(submitted, dropped, queue.size, maxQueueDepth, totalWaitMillis)
+  }
+
+  private def pump(): Unit = {
+    var next = nextRequest()
+    while (next.isDefined) {
+      val request = next.get
+      try {
+        request.post()
+        if (!awaitCompletion(request))
+          logger.debug(s"$name: request on ${request.source} still running, posting the next one")
+      } catch {
+        case NonFatal(e) => request.fail(e)
+      }
+      next = nextRequest()
+    }
+  }
+
+  /** Wait until `request` completes, a more urgent request is submitted, or `MaxRequestMillis` elapsed.
+   *
+   *  @return whether the request completed
+   */
+  private def awaitCompletion(request: Request): Boolean = {
+    val deadline = System.currentTimeMillis + MaxRequestMillis
+    var completed = request.isComplete()
+    while (!completed && System.currentTimeMillis < deadline && !moreUrgentThan(request.priority))
+      completed = request.awaitCompletion(WaitSliceMillis)
+    completed
+  }
+
+  private def moreUrgentThan(priority: Priority): Boolean = synchronized {
+    !queue.isEmpty && queue.peek().priority.rank > priority.rank
+  }
+
+  /** Return the most urgent request that is still up to date, or stop pumping if there is none. */
+  private def nextRequest(): Option[Request] = synchronized {
+    var next: Option[Request] = None
+    while (next.isEmpty && !queue.isEmpty) {
+      val request = queue.poll()
+      if (request.priority.droppable && request.isObsolete()) {
+        dropped += 1
+        request.fail(new ObsoleteRequestException(s"${request.source} changed since the request was submitted"))
+      } else {
+        totalWaitMillis += System.currentTimeMillis - request.submittedAt
+        next = Some(request)
+      }
+    }
+    pumping = next.isDefined
+    next
+  }
+}
+
+object RequestScheduler {
+  /** The maximum time the scheduler waits for a request before posting the next one. */
+  private val MaxRequestMillis = 5000L
+
+  /** How often the scheduler checks for more urgent requests while it waits for a request. */
+  private val WaitSliceMillis = 50L
+
+  /** @param droppable whether a request is dropped when its source changed before it was posted */
+  sealed abstract class Priority(val rank: Int, val droppable: Boolean)
+  /** Code completion, the user is waiting for it. */
+  case object Completion extends Priority(3, droppable = false)
+  /** Hovers, hyperlinks and other requests triggered by the user. */
+  case object Hover extends Priority(2, droppable = true)
+  /** Semantic highlighting, mark occurrences and editor decorations. */
+  case object Highlighting extends Priority(1, droppable = true)
+  /** Anything else, e.g. `askLoadedTyped` from refactorings, indexing or model building. */
+  case object Background extends Priority(0, droppable = false)
+
+  /** The response of a request that was dropped because its source is out of date. */
+  class ObsoleteRequestException(msg: String) extends RuntimeException(msg)
+
+  case class Stats(submitted: Int, dropped: Int, queueDepth: Int, maxQueueDepth: Int, totalWaitMillis: Long) {
+    def averageWaitMillis: Long =
+      if (submitted == dropped) 0 else totalWaitMillis / (submitted - dropped)
+  }
+
+  private val currentPriority = new DynamicVariable[Option[Priority]](None)
+
+  /** Run `body`, giving `priority` to the compiler requests it submits on this thread. */
+  def withPriority[A](priority: Priority)(body: => A): A =
+    currentPriority.withValue(Some(priority))(body)
+
+  private case class Request(priority: Priority, sequence: Long, submittedAt: Long, source: SourceFile,
+    post: () => Unit, isObsolete: () => Boolean, fail: Throwable => Unit, isComplete: () => Boolean,
+    awaitCompletion: Long => Boolean)
+
+  /** Most urgent first, then in submission order. */
+  private object RequestOrdering extends Ordering[Request] {
+    override def compare(x: Request, y: Request): Int =
+      if (x.priority.rank != y.priority.rank) y.priority.rank - x.priority.rank
+      else java.lang.Long.compare(x.sequence, y.sequence)
+  }
+
+  private val pumpCount = new AtomicInteger
+
+  private val pumps = Executors.newCachedThreadPool(new ThreadFactory {
+    override def newThread(r: Runnable): Thread = {
+      val thread = new Thread(r, s"Scala presentation compiler requests ${pumpCount.incrementAndGet()}")
+      thread.setDaemon(true)
+      thread
+    }
+  })
+}
@@ -2,6 +2,7 @@ package org.scalaide.core.internal.compiler
 
 import scala.concurrent.duration.DurationInt
 import scala.reflect.internal.util.BatchSourceFile
+import scala.reflect.internal.util.NoSourceFile
 import scala.reflect.internal.util.Position
 import scala.reflect.internal.util.RangePosition
 import scala.reflect.internal.util.SourceFile
@@ -14,6 +15,7 @@ import scala.tools.nsc.io.AbstractFile
 import scala.tools.nsc.io.VirtualFile
 import scala.tools.nsc.symtab.Flags
 import scala.util.Try
+import scala.util.control.NonFatal
 
 import org.eclipse.core.resources.IFile
 import org.eclipse.jdt.core.IJavaProject
@@ -36,7 +38,6 @@ import org.scalaide.core.extensions.SourceFileProviderRegistry
 import org.scalaide.core.internal.hyperlink.ScalaHyperlink
 import org.scalaide.core.internal.jdt.model.ScalaJavaMapper
 import org.scalaide.core.internal.jdt.model.ScalaStructureBuilder
-import org.scalaide.core.internal.jdt.search.ScalaIndexBuilder
 import org.scalaide.core.internal.jdt.search.ScalaMatchLocator
 import org.scalaide.core.resources.EclipseFile
 import org.scalaide.core.resources.EclipseResource
@@ -49,13 +50,16 @@ import org.scalaide.util.eclipse.RegionUtils.RichRegion
 import scalariform.lexer.ScalaLexer
 import scalariform.lexer.ScalaLexerException
 import org.scalaide.core.completion.ProposalRelevanceCalculator
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicLong
 
 class ScalaPresentationCompiler(private[compiler] val name: String, _settings: Settings)
   extends Global(_settings, new ScalaPresentationCompiler.PresentationReporter(name), name)
   with ScaladocGlobalCompatibilityTrait
   with ScalaStructureBuilder
-  with ScalaIndexBuilder
   with ScalaMatchLocator
   with ScalaOverrideIndicatorBuilder
   with ScalaJavaMapper
@@ -123,78 +127,189 @@ class ScalaPresentationCompiler(private[compiler] val name: String, _settings: S
    */
   private val scheduledUnits = new scala.collection.mutable.HashMap[InteractiveCompilationUnit, SourceFile]
 
+  /** The response shared by all `flushScheduledReloads` calls waiting for the next reload, if any. */
+  private var pendingFlush: Option[Response[Unit]] = None
+
+  /** The response of the last reload posted for scheduled units. */
+  private var lastFlush: Response[Unit] = {
+    val done = new Response[Unit]
+    done.set(())
+    done
+  }
+
   /**
    * Add a compilation unit (CU) to the set of CUs to be Reloaded at the next refresh round.
    */
   def scheduleReload(icu : InteractiveCompilationUnit, srcFile: SourceFile) : Unit = {
     scheduledUnits.synchronized { scheduledUnits += ((icu, srcFile)) }
+    latestSources.put(srcFile.file, srcFile)
   }
 
   /**
    * Reload the scheduled compilation units and reset the set of scheduled reloads.
    *  For any CU unknown by the compiler at reload, this is a no-op.
+   *
+   *  This method doesn't wait for the reload. Flushes that happen within a short window
+   *  are merged into a single reload, and all of them get the same response, which is
+   *  set once the compiler has reloaded the units. Any `ask` request posted in the meantime
+   *  reloads the scheduled units first, so it always sees the latest contents.
+   */
+  def flushScheduledReloads(): Response[Unit] = scheduledUnits.synchronized {
+    if (scheduledUnits.isEmpty && pendingFlush.isEmpty)
+      lastFlush
+    else pendingFlush getOrElse {
+      val res = new Response[Unit]
+      pendingFlush = Some(res)
+      ScalaPresentationCompiler.scheduleFlush(ScalaPresentationCompiler.ReloadBatchWindowMillis) {
+        reloadScheduledUnits(Some(res))
+      }
+      res
+    }
+  }
+
+  /**
+   * Post a reload of the scheduled units, if any. Requests posted afterwards by the same thread
+   * are handled after the reload by the compiler, so there is no need to wait for it.
+   *
+   * @param batch when defined, only reload if `batch` is still the pending flush
    */
-  def flushScheduledReloads(): Response[Unit] = {
-    val res = new Response[Unit]
-    scheduledUnits.synchronized {
-      val reloadees = scheduledUnits.filter{(scu:(InteractiveCompilationUnit, SourceFile)) => compilationUnits.contains(scu._1)}.toList
+  private def reloadScheduledUnits(batch: Option[Response[Unit]] = None): Unit = scheduledUnits.synchronized {
+    if (batch forall (pendingFlush contains _)) {
+      val res = pendingFlush getOrElse new Response[Unit]
+      pendingFlush = None
+      val reloadFiles = for {
+        (icu, srcFile) <- scheduledUnits.toList
+        if unitOfFile.contains(srcFile.file) && icu.exists
+      } yield srcFile
+      scheduledUnits.clear()
 
-      if (reloadees.isEmpty) res.set(())
+      if (reloadFiles.isEmpty) res.set(())
       else {
-        val reloadFiles = reloadees map { case (_, srcFile) => srcFile }
         askReload(reloadFiles, res)
+        lastFlush = res
         logger.info(s"Flushed ${reloadFiles.mkString("", ",", "")}")
       }
-      scheduledUnits.clear()
     }
-    res.get
-    res
   }
 
+  /** The latest contents handed to this compiler for each file, to detect requests on outdated snapshots. */
+  private val latestSources = new ConcurrentHashMap[AbstractFile, SourceFile]
+
+  /** Orders `askTypeAt`, `askLinkPos`, `askLoadedTyped` and the completion requests by priority. */
+  val requestScheduler = new RequestScheduler(name)
+
+  private def isOutdated(source: SourceFile): Boolean = {
+    val latest = latestSources.get(source.file)
+    latest != null && (latest ne source) && !java.util.Arrays.equals(latest.content, source.content)
+  }
+
+  /** Submit the request to `requestScheduler`, unless we are on the compiler thread: a nested
+   *  request has to be posted right away, the scheduler waits for the request running it.
+   */
+  private def scheduled[A](priority: RequestScheduler.Priority, source: SourceFile, response: Response[A],
+    isObsolete: SourceFile => Boolean = isOutdated)(post: => Unit): Unit =
+    if (onCompilerThread) post
+    else requestScheduler.submit(priority, source, response, isObsolete)(post)
+
   override def askFilesDeleted(sources: List[SourceFile], response: Response[Unit]): Unit = {
-    flushScheduledReloads()
+    reloadScheduledUnits()
+    sources foreach (source => latestSources.remove(source.file))
     super.askFilesDeleted(sources, response)
   }
 
   override def askLinkPos(sym: Symbol, source: SourceFile, response: Response[Position]): Unit = {
-    flushScheduledReloads()
-    super.askLinkPos(sym, source, response)
+    reloadScheduledUnits()
+    // `source` is usually read from disk, it is not a snapshot of an editor
+    scheduled(RequestScheduler.Hover, source, response, _ => false)(super.askLinkPos(sym, source, response))
   }
 
   override def askParsedEntered(source: SourceFile, keepLoaded: Boolean, response: Response[Tree]): Unit = {
-    flushScheduledReloads()
+    reloadScheduledUnits()
     super.askParsedEntered(source, keepLoaded, response)
   }
 
   override def askScopeCompletion(pos: Position, response: Response[List[Member]]): Unit = {
-    flushScheduledReloads()
-    super.askScopeCompletion(pos, response)
+    reloadScheduledUnits()
+    scheduled(RequestScheduler.Completion, pos.source, response)(super.askScopeCompletion(pos, response))
   }
 
   override def askToDoFirst(source: SourceFile): Unit = {
-    flushScheduledReloads()
+    reloadScheduledUnits()
     super.askToDoFirst(source)
   }
 
   override def askTypeAt(pos: Position, response: Response[Tree]): Unit = {
-    flushScheduledReloads()
-    super.askTypeAt(pos, response)
+    reloadScheduledUnits()
+    scheduled(RequestScheduler.Hover, pos.source, response)(super.askTypeAt(pos, response))
   }
 
   override def askTypeCompletion(pos: Position, response: Response[List[Member]]): Unit = {
-    flushScheduledReloads()
-    super.askTypeCompletion(pos, response)
+    reloadScheduledUnits()
+    scheduled(RequestScheduler.Completion, pos.source, response)(super.askTypeCompletion(pos, response))
   }
 
   override def askLoadedTyped(sourceFile: SourceFile, keepLoaded: Boolean, response: Response[Tree]): Unit = {
-    flushScheduledReloads()
-    super.askLoadedTyped(sourceFile, keepLoaded, response)
+    reloadScheduledUnits()
+    scheduled(RequestScheduler.Background, sourceFile, response)(super.askLoadedTyped(sourceFile, keepLoaded, response))
   }
 
   override def askStructure(sourceFile: SourceFile, keepLoaded: Boolean): Response[Tree] = {
     withResponse[Tree](askStructure(keepLoaded)(sourceFile, _))
   }
 
+  /** The number of symbols reachable from the root package, as of the last count. */
+  @volatile private var liveSymbolCount = 0
+  @volatile private var liveSymbolsCountedAt = 0L
+
+  /** A rough estimate of the heap retained by this compiler, based on the number of symbols in its
+   *  symbol table and the size of the loaded sources. Both go down when units are unloaded or
+   *  deleted, unlike the number of symbols ever created. It is cheap, and may be called from any
+   *  thread: the symbols are counted by a `Background` request, at most every `LiveSymbolsCountPeriod`.
+   */
+  def estimatedRetainedBytes: Long = {
+    val now = System.currentTimeMillis
+    if (now - liveSymbolsCountedAt > ScalaPresentationCompiler.LiveSymbolsCountPeriod) {
+      liveSymbolsCountedAt = now
+      val counted = new Response[Unit]
+      scheduled(RequestScheduler.Background, NoSourceFile, counted, _ => false) {
+        askForResponse { () =>
+          try liveSymbolCount = countLiveSymbols()
+          finally counted.set(())
+        }
+      }
+    }
+    val sourceChars = unitOfFile.values.foldLeft(0L)(_ + _.source.content.length)
+    liveSymbolCount.toLong * ScalaPresentationCompiler.BytesPerSymbol +
+      sourceChars * ScalaPresentationCompiler.BytesPerSourceChar
+  }
+
+  /** Count the symbols declared in the packages, and in the top-level classes and objects whose
+   *  type is already completed, without completing any other one. Nested classes are not walked,
+   *  their members are few compared to the top-level ones, and the count stays cheap.
+   *
+   *  @note Must be called on the compiler thread.
+   */
+  private def countLiveSymbols(): Int = {
+    var count = 0
+    def countDecls(pkg: Symbol): Unit = {
+      val info = pkg.rawInfo
+      if (info.isComplete) info.decls foreach { sym =>
+        count += 1
+        // aliases and imported members are counted where they are declared
+        if (sym.owner == pkg) {
+          if (sym.hasPackageFlag) {
+            if (sym.isModuleNotMethod) countDecls(sym.moduleClass)
+          } else if (sym.isClass || sym.isModuleNotMethod) {
+            val members = (if (sym.isModuleNotMethod) sym.moduleClass else sym).rawInfo
+            if (members.isComplete) count += members.decls.size
+          }
+        }
+      }
+    }
+    countDecls(rootMirror.RootClass)
+    count
+  }
+
   def problemsOf(file: AbstractFile): List[ScalaCompilationProblem] = {
     unitOfFile get file match {
       case Some(unit) =>
@@ -223,7 +338,12 @@ class ScalaPresentationCompiler(private[compiler] val name: String, _settings: S
    *  a timeout value when awaiting on a future returned by this method.
    */
   def asyncExec[A](op: => A): Response[A] = {
-    askForResponse(() => op)
+    // the completion proposals made by a task form a batch of their own, a nested task runs inline in its batch
+    val nested = onCompilerThread
+    askForResponse { () =>
+      if (!nested) proposalBatch = null
+      op
+    }
   }
 
   /** Ask with a default timeout. Keep around for compatibility with the m2 release. */
@@ -283,6 +403,7 @@ class ScalaPresentationCompiler(private[compiler] val name: String, _settings: S
   override def askReload(sources: List[SourceFile], response: Response[Unit]) = {
     logger.info(s"Clearing doc comments (${cookedDocComments.size} entries)")
     clearDocComments();
+    sources foreach (source => latestSources.put(source.file, source))
     super.askReload(sources, response)
   }
 
@@ -294,6 +415,7 @@ class ScalaPresentationCompiler(private[compiler] val name: String, _settings: S
 
   def discardCompilationUnit(scu: InteractiveCompilationUnit): Unit = {
     logger.info("discarding " + scu.file.path)
+    latestSources.remove(scu.lastSourceMap().sourceFile.file)
     asyncExec { removeUnitOf(scu.lastSourceMap().sourceFile) }.getOption()
   }
 
@@ -334,6 +456,8 @@ class ScalaPresentationCompiler(private[compiler] val name: String, _settings: S
 
   def destroy(): Unit = {
     logger.info("shutting down presentation compiler on project: " + name)
+    logger.info(s"Request scheduler of $name: ${requestScheduler.stats}")
+    requestScheduler.cancelAll()
     askShutdown()
   }
 
@@ -349,6 +473,11 @@ class ScalaPresentationCompiler(private[compiler] val name: String, _settings: S
    *
    *  TODO We should have a more refined strategy based on the context (inside an import, case
    *       pattern, 'new' call, etc.)
+   *
+   *  Only the name, kind and relevance of the proposal are computed here, on the compiler thread.
+   *  The signature of a method and its parameters are computed when the proposal is first
+   *  displayed, together with those of the next proposals of the same compiler task, see
+   *  [[ProposalBatch]]. The back-ticks of its name are added when it is first filtered or applied.
    */
   def mkCompletionProposal(prefix: String, start: Int, sym: Symbol, tpe: Type,
     inherited: Boolean, viaView: Symbol, context: CompletionContext.ContextType, project: IScalaProject): CompletionProposal = {
@@ -390,31 +519,23 @@ class ScalaPresentationCompiler(private[compiler] val name: String, _settings: S
       (sym.getter: Symbol).decodedName
     else sym.decodedName
 
-    val signature =
-      if (sym.isMethod) {
-        declPrinter.defString(sym, flagMask = 0L, showKind = false)(tpe)
-      } else name
     val container = sym.owner.enclClass.fullName
 
-    val relevancCalc = new ProposalRelevanceCalculator
-    val relevance = relevancCalc.forScala(this)(prefix, name, sym, viaView, Some(inherited))
-
-    val namesAndTypes = for {
-      section <- tpe.paramss
-      if section.isEmpty || !section.head.isImplicit
-    } yield for (param <- section) yield (param.name.toString, param.tpe.toString)
+    val relevance = relevanceCalculator.forScala(this)(prefix, name, sym, viaView, Some(inherited))
 
-    val (scalaParamNames, paramTypes) = namesAndTypes.map(_.unzip).unzip
+    if (proposalBatch == null)
+      proposalBatch = new ProposalBatch
+    val details = proposalBatch.add(sym, tpe, name)
 
+    // the closures below can be evaluated in any thread
     // we save this value to make sure it's evaluated in the PC thread
-    // the closure below can be evaluated in any thread
     val isJavaMethod = sym.isJavaDefined && sym.isMethod
     val getParamNames = () => {
       if (isJavaMethod) {
         getJavaElement(sym, project.javaProject) collect {
           case method: IMethod => List(method.getParameterNames.toList)
-        } getOrElse scalaParamNames
-      } else scalaParamNames
+        } orElse details.paramNames
+      } else details.paramNames
     }
     val docFun = () => {
       val comment = parsedDocComment(sym, sym.enclClass, project.javaProject)
@@ -422,22 +543,93 @@ class ScalaPresentationCompiler(private[compiler] val name: String, _settings: S
       if (comment.isDefined) (new ScalaDocHtmlProducer).getBrowserInput(this)(comment.get, sym, header.getOrElse("")) else None
     }
 
-    CompletionProposal(
+    new CompletionProposal(
       kind,
       context,
       start,
-      addBackTicksIfNecessary(name),
-      signature,
+      () => addBackTicksIfNecessary(name),
+      () => details.signature,
       container,
       relevance,
       sym.isJavaDefined,
       getParamNames,
-      paramTypes,
+      () => details.paramTypes,
       sym.fullName,
       false,
       docFun)
   }
 
+  private lazy val relevanceCalculator = new ProposalRelevanceCalculator
+
+  /** The batch of the completion proposals made by the current compiler task, if any.
+   *
+   *  @note Only accessed on the compiler thread.
+   */
+  private var proposalBatch: ProposalBatch = null
+
+  /** The completion proposals made by one compiler task, in order.
+   *
+   *  Computing the signature of a proposal takes a compiler task, and the completion list asks
+   *  for the signatures one proposal at a time while sorting and displaying them. So the first
+   *  proposal that needs its details computes those of the next `ProposalPageSize` proposals of
+   *  the batch as well, in a single compiler task. Details that couldn't be computed, because the
+   *  compiler timed out, are computed again the next time they are needed.
+   */
+  private class ProposalBatch {
+    private val proposals = scala.collection.mutable.ArrayBuffer.empty[ProposalDetails]
+
+    def add(sym: Symbol, tpe: Type, name: String): ProposalDetails = synchronized {
+      val details = new ProposalDetails(this, proposals.size, sym, tpe, name)
+      proposals += details
+      details
+    }
+
+    /** Compute the details of `first` and of the next proposals whose details are not computed yet. */
+    def compute(first: ProposalDetails): Unit = {
+      val page = synchronized {
+        val pending = proposals.view(first.index, proposals.size).filterNot(_.isComputed)
+        pending.take(ScalaPresentationCompiler.ProposalPageSize).toList
+      }
+      asyncExec(page foreach (_.computeNow())).getOption()
+    }
+  }
+
+  /** The signature and the explicit parameters of a completion proposal. */
+  private class ProposalDetails(batch: ProposalBatch, val index: Int, sym: Symbol, tpe: Type, name: String) {
+    // signature, parameter names and parameter types
+    @volatile private var computed: Option[(String, List[List[String]], List[List[String]])] = None
+
+    def isComputed: Boolean = computed.isDefined
+
+    /** @note Must be called on the compiler thread. */
+    def computeNow(): Unit = if (computed.isEmpty) {
+      computed = Some(try {
+        val signature =
+          if (sym.isMethod) declPrinter.defString(sym, flagMask = 0L, showKind = false)(tpe)
+          else name
+        val namesAndTypes = for {
+          section <- tpe.paramss
+          if section.isEmpty || !section.head.isImplicit
+        } yield for (param <- section) yield (param.name.toString, param.tpe.toString)
+        val (paramNames, paramTypes) = namesAndTypes.map(_.unzip).unzip
+        (signature, paramNames, paramTypes)
+      } catch {
+        case NonFatal(e) =>
+          logger.debug(s"Error while computing the signature of $name", e)
+          (name, Nil, Nil)
+      })
+    }
+
+    private def details = {
+      if (computed.isEmpty) batch.compute(this)
+      computed
+    }
+
+    def signature: Option[String] = details.map(_._1)
+    def paramNames: Option[List[List[String]]] = details.map(_._2)
+    def paramTypes: Option[List[List[String]]] = details.map(_._3)
+  }
+
   def mkHyperlink(sym: Symbol, name: String, region: IRegion, javaProject: IJavaProject, label: Symbol => String = defaultHyperlinkLabel _): Option[IHyperlink] = {
     import org.scalaide.util.eclipse.RegionUtils._
 
@@ -476,6 +668,32 @@ object ScalaPresentationCompiler {
   private val RefTimeStamp = System.currentTimeMillis()
   private val Ids = new AtomicLong()
 
+  /** Average heap retained per symbol, including its type and name, used by `estimatedRetainedBytes`. */
+  private val BytesPerSymbol = 400L
+  /** How often `estimatedRetainedBytes` counts the symbols again, in milliseconds. */
+  private val LiveSymbolsCountPeriod = 10000L
+  /** Average heap retained per character of a loaded source, for its trees and positions. */
+  private val BytesPerSourceChar = 60L
+
+  /** Flushes of scheduled reloads within this delay are merged into a single reload. */
+  private val ReloadBatchWindowMillis = 20
+
+  /** The number of completion proposals whose signatures are computed in one compiler task. */
+  private val ProposalPageSize = 100
+
+  private lazy val flushTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory {
+    override def newThread(r: Runnable): Thread = {
+      val thread = new Thread(r, "Scala presentation compiler reload batcher")
+      thread.setDaemon(true)
+      thread
+    }
+  })
+
+  private def scheduleFlush(delayMillis: Long)(flush: => Unit): Unit =
+    flushTimer.schedule(new Runnable {
+      override def run(): Unit = flush
+    }, delayMillis, TimeUnit.MILLISECONDS)
+
   case class InvalidThread(msg: String) extends RuntimeException(msg)
 
   def defaultScalaSettings(errorFn: String => Unit = Console.println): Settings = new Settings(errorFn)
@@ -1,6 +1,17 @@
 package org.scalaide.core.internal.decorators.markoccurrences
 
+import java.util.LinkedHashMap
+import java.util.Map.Entry
+
+import scala.collection.immutable.TreeMap
+import scala.collection.mutable.Subscriber
+
 import org.scalaide.core.compiler.InteractiveCompilationUnit
+import org.scalaide.core.compiler.IScalaPresentationCompiler
+import org.scalaide.core.internal.compiler.PresentationCompilerActivity
+import org.scalaide.core.internal.compiler.PresentationCompilerProxy
+import org.scalaide.core.internal.compiler.RequestScheduler
+import org.scalaide.core.internal.compiler.Shutdown
 import org.scalaide.logging.HasLogger
 import scala.reflect.internal.util.SourceFile
 import scala.tools.refactoring.analysis.GlobalIndexes
@@ -15,14 +26,36 @@ case class Occurrences(name: String, locations: List[IRegion])
 /** Finds all occurrences of a binding in a Scala source file.
  *
  * Note that the occurrences index is re-computed only if the document's modification timestamp
- * has changed.
+ * has changed. The index of a source is shared by all the finders of its compilation unit, and
+ * only the indexes of the most recently used sources are kept. Since an index holds on to its
+ * presentation compiler, it is dropped when that compiler shuts down, and when the finder is
+ * disposed.
  *
  * This class is thread-safe.
  */
 class ScalaOccurrencesFinder(unit: InteractiveCompilationUnit) extends HasLogger {
   import ScalaOccurrencesFinder._
 
-  def findOccurrences(region: IRegion, lastModified: Long): Option[Occurrences] = {
+  /** Drop the index of `unit` when its presentation compiler shuts down. */
+  private object compilerListener extends Subscriber[PresentationCompilerActivity, PresentationCompilerProxy] {
+    override def notify(pub: PresentationCompilerProxy, event: PresentationCompilerActivity): Unit = event match {
+      case Shutdown => forgetIndex(unit)
+      case _ =>
+    }
+  }
+
+  private val compilerProxy = Option(unit.scalaProject.presentationCompiler) collect {
+    case proxy: PresentationCompilerProxy => proxy
+  }
+  compilerProxy foreach (_.subscribe(compilerListener))
+
+  /** Stop listening to the presentation compiler and drop the index of `unit`. */
+  def dispose(): Unit = {
+    compilerProxy foreach (_.removeSubscription(compilerListener))
+    forgetIndex(unit)
+  }
+
+  def findOccurrences(region: IRegion, lastModified: Long): Option[Occurrences] = RequestScheduler.withPriority(RequestScheduler.Highlighting) {
     unit.withSourceFile { (sourceFile, compiler) =>
 
       def isNotLoadedInPresentationCompiler(source: SourceFile): Boolean =
@@ -32,8 +65,9 @@ class ScalaOccurrencesFinder(unit: InteractiveCompilationUnit) extends HasLogger
         logger.info("Source %s is not loded in the presentation compiler. Aborting occurrences update." format (sourceFile.file.name))
         None
       } else {
-        val occurrencesIndex =  {
-          val occurrencesIndex = new MarkOccurrencesIndex {
+        val (from, to) = (region.getOffset, region.getOffset + region.getLength)
+        val index = occurrencesIndex(unit, lastModified, compiler) getOrElse {
+          val index = new OccurrencesIndex(lastModified, compiler, new MarkOccurrencesIndex {
             val global = compiler
             import global.askLoadedTyped
             override val index: IndexLookup = Utils.debugTimed("Time elapsed for building mark occurrences index in source " + sourceFile.file.name) {
@@ -42,26 +76,78 @@ class ScalaOccurrencesFinder(unit: InteractiveCompilationUnit) extends HasLogger
                 case Right(_)  => EmptyIndex
               }
             }
-          }
-          occurrencesIndex
+          })
+          rememberIndex(unit, index)
+          index
         }
 
-        compiler.asyncExec {
-          val (from, to) = (region.getOffset, region.getOffset + region.getLength)
-          val (selectedTree, occurrences) = occurrencesIndex.occurrencesOf(sourceFile.file, from, to)
+        index.knownOccurrencesAt(from, to) orElse {
+          compiler.asyncExec {
+            val (selectedTree, occurrences) = index.markOccurrences.occurrencesOf(sourceFile.file, from, to)
 
-          Option(selectedTree.symbol).map { sym =>
-            val locations = occurrences map { pos =>
-              new Region(pos.start, pos.end - pos.start)
+            Option(selectedTree.symbol).map { sym =>
+              val locations = occurrences map { pos =>
+                new Region(pos.start, pos.end - pos.start)
+              }
+              Occurrences(sym.nameString, locations)
             }
-            Occurrences(sym.nameString, locations)
+          }.getOrElse(None)() map { occurrences =>
+            index.remember(occurrences)
+            occurrences
           }
         }
-      }.getOrElse(None)()
+      }
     }.flatten
   }
 }
 
 object ScalaOccurrencesFinder {
   private abstract class MarkOccurrencesIndex extends MarkOccurrences with GlobalIndexes
+
+  /** How many sources keep their occurrences index, across all open editors. */
+  private final val MaxIndexes = 5
+
+  /** The occurrences index of a source as of the document modification stamp `lastModified`.
+   *
+   *  Besides the index, it remembers the occurrences it already found by the offsets of their
+   *  locations, so that moving the caret to another occurrence of a marked binding is a lookup
+   *  in a sorted map rather than a query on the compiler thread.
+   */
+  private class OccurrencesIndex(val lastModified: Long, val compiler: IScalaPresentationCompiler, val markOccurrences: MarkOccurrencesIndex) {
+    /** Found occurrences by the start offset of their locations, with their end offset. */
+    private var byOffset = TreeMap.empty[Int, (Int, Occurrences)]
+
+    def knownOccurrencesAt(from: Int, to: Int): Option[Occurrences] = synchronized {
+      byOffset.to(from).lastOption collect {
+        case (_, (end, occurrences)) if to <= end => occurrences
+      }
+    }
+
+    def remember(occurrences: Occurrences): Unit = synchronized {
+      for (location <- occurrences.locations)
+        byOffset += location.getOffset -> ((location.getOffset + location.getLength, occurrences))
+    }
+  }
+
+  /** The indexes of the most recently used sources, in access order. */
+  private val indexes = new LinkedHashMap[InteractiveCompilationUnit, OccurrencesIndex](MaxIndexes, 0.75f, true) {
+    override def removeEldestEntry(eldest: Entry[InteractiveCompilationUnit, OccurrencesIndex]): Boolean =
+      size > MaxIndexes
+  }
+
+  /** Return the index of `unit`, unless its document or its presentation compiler changed since it was built. */
+  private def occurrencesIndex(unit: InteractiveCompilationUnit, lastModified: Long, compiler: IScalaPresentationCompiler): Option[OccurrencesIndex] =
+    indexes.synchronized {
+      Option(indexes.get(unit)) filter (index => index.lastModified == lastModified && (index.compiler eq compiler))
+    }
+
+  private def rememberIndex(unit: InteractiveCompilationUnit, index: OccurrencesIndex): Unit =
+    indexes.synchronized {
+      indexes.put(unit, index)
+    }
+
+  private def forgetIndex(unit: InteractiveCompilationUnit): Unit =
+    indexes.synchronized {
+      indexes.remove(unit)
+    }
 }
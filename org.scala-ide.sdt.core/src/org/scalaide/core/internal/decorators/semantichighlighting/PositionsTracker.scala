@@ -31,63 +31,88 @@ private[scalaide] class PositionsTracker extends HasLogger {
 
   @volatile private var trackedPositionsChanged = false
 
+  /** Incremented each time `positions` is replaced, so that a change computed against older positions can be told apart. */
+  @volatile private var swaps = 0L
+
   def startComputingNewPositions(): Unit = { trackedPositionsChanged = false }
 
   def isDirty: Boolean = trackedPositionsChanged
 
+  /** The number of times the positions were replaced, by `swapPositions` or `reset`. */
+  def generation: Long = swaps
+
   /** Compares the `newPositions` with the current `positions` and return the sequence of positions
     * that have been added and removed since last reconciliation.
     *
-    * @param `newPositions` The freshly computed positions.
+    * Both arrays are sorted by offset, so they are compared in a single linear merge.
+    *
+    * @param `newPositions` The freshly computed positions, sorted by offset.
     * @return A container holding the added and removed positions since last reconciliation.
     */
-  def createPositionsChange(newPositions: List[Position]): PositionsChange = {
+  def createPositionsChange(newPositions: Array[Position]): PositionsChange = {
     /* Filtering out deleted positions here is important, failing to do so can cause half-colored identifiers.
      * The reason is that deleted positions should not be considered when computing the damaged region that is
      * used to invalidate the text presentation. Failing to do so can result in the computed damaged region to
      * partially remove a keyword's coloring style.
      */
     val existingPositions = positions.filterNot(_.isDeleted())
-    val existingPositionsByOffset = existingPositions.groupBy(_.getOffset)
 
     val positionsToAdd = mutable.ListBuffer.empty[Position]
-    val positionsToRemove = mutable.ListBuffer.empty[Position] ++ existingPositions
-
-    for {
-      newPos <- newPositions
-      offset = newPos.getOffset()
-    } {
-      // sanity check
-      if (newPos.isDeleted()) {
-        logger.error("Encountered position deleted during semantic highlighting. Please report a bug at " + SdtConstants.IssueTracker)
-      }
-      else {
-        existingPositionsByOffset.get(offset) match {
-          case None =>
-            // No positions existed at the given offset, hence it's a new position.
-            positionsToAdd += newPos
-
-          case Some(existingPositions) =>
-            for (oldPos <- existingPositions) {
-              if (newPos == oldPos) {
-                // Old position is the same as new one, so no need to remove it.
-                positionsToRemove -= newPos
-              }
-              else positionsToAdd += newPos
-            }
-        }
+    val positionsToRemove = mutable.ListBuffer.empty[Position]
+
+    var i = 0
+    var j = 0
+    while (i < existingPositions.length || j < newPositions.length) {
+      val offset = Math.min(
+        if (i < existingPositions.length) existingPositions(i).getOffset else Int.MaxValue,
+        if (j < newPositions.length) newPositions(j).getOffset else Int.MaxValue)
+      // the positions at `offset` are [i, iEnd) in the existing ones and [j, jEnd) in the new ones
+      var iEnd = i
+      while (iEnd < existingPositions.length && existingPositions(iEnd).getOffset == offset) iEnd += 1
+      var jEnd = j
+      while (jEnd < newPositions.length && newPositions(jEnd).getOffset == offset) jEnd += 1
+
+      for (newPos <- newPositions.view(j, jEnd)) {
+        // sanity check
+        if (newPos.isDeleted())
+          logger.error("Encountered position deleted during semantic highlighting. Please report a bug at " + SdtConstants.IssueTracker)
+        else if (!existingPositions.view(i, iEnd).exists(newPos == _))
+          positionsToAdd += newPos
       }
+      for (oldPos <- existingPositions.view(i, iEnd))
+        if (!newPositions.view(j, jEnd).exists(_ == oldPos))
+          positionsToRemove += oldPos
+
+      i = iEnd
+      j = jEnd
     }
 
     PositionsChange(positionsToAdd.toList, positionsToRemove.toList)
   }
 
+  /** Return the current positions, with the ones starting in `region` replaced by the ones of
+    * `newPositions` starting in `region`. Used to publish the positions of a region before the
+    * ones of the whole unit are known.
+    *
+    * @param newPositions The freshly computed positions of `region`, sorted by offset.
+    * @return All positions, sorted by offset.
+    */
+  def positionsWithRegionReplaced(region: IRegion, newPositions: Array[Position]): Array[Position] = {
+    val start = region.getOffset
+    val end = region.getOffset + region.getLength
+    val existingPositions = positions.filterNot(_.isDeleted())
+    val before = existingPositions.takeWhile(_.getOffset < start)
+    val after = existingPositions.dropWhile(_.getOffset < end)
+    before ++ newPositions.filter(pos => pos.getOffset >= start && pos.getOffset < end) ++ after
+  }
+
   def identifiersInInterpolatedStrings = positions.filter(t => t.inInterpolatedString && !t.isDeleted())
 
   /** @note This method must always be called within the UI Thread. */
   def reset(): Unit = {
     trackedPositionsChanged = true
     positions = Array.empty
+    swaps += 1
   }
 
   /** Replace the currently held `positions` with the passed `newPositions`.
@@ -102,7 +127,10 @@ private[scalaide] class PositionsTracker extends HasLogger {
     if (isDirty)
       logger.error("Error while performing semantic highlighting. Attempting to swap posions on a " +
         "not up-to-date state. Please report a bug at " + SdtConstants.IssueTracker)
-    else positions = newPositions
+    else {
+      positions = newPositions
+      swaps += 1
+    }
   }
 
   /** Return all currently tracked `positions` in the passed `region`.
@@ -0,0 +1,49 @@
+package org.scalaide.core.internal.decorators.semantichighlighting.classifier
+
+/**
+ * The classified symbols of the top-level definitions of a unit, as found by its last complete
+ * classification, so that the next classification only traverses the definitions that changed.
+ *
+ * A definition is identified by the full name of the class or object defining it, its length and
+ * the hash of its text, so a definition that is only shifted by an edit elsewhere is reused, while
+ * the same text in another class or object, where its references may resolve differently, is not. All the definitions are reclassified when the
+ * signature of the unit changes, since the classification of a reference depends on the
+ * definition it refers to: when a member of a class or object of the unit, nested ones included,
+ * is added, removed, renamed or changes kind, when another unit loaded in the compiler changes,
+ * or when the compiler is restarted.
+ *
+ * This class is thread safe.
+ */
+class ClassificationCache {
+  import ClassificationCache._
+
+  private var signature = 0
+  private var entries = Map.empty[Key, Array[Int]]
+
+  // raw stats
+  private var hits, misses = 0
+
+  private[classifier] def get(unitSignature: Int, key: Key): Option[Array[Int]] = synchronized {
+    val found = if (unitSignature == signature) entries.get(key) else None
+    if (found.isDefined) hits += 1 else misses += 1
+    found
+  }
+
+  /** Replace the cached definitions by those of the last complete classification. */
+  private[classifier] def update(unitSignature: Int, fresh: Map[Key, Array[Int]]): Unit = synchronized {
+    signature = unitSignature
+    entries = fresh
+  }
+
+  def clear(): Unit = synchronized {
+    signature = 0
+    entries = Map.empty
+  }
+
+  /** Return the number of reused and reclassified definitions. */
+  def getStats: (Int, Int) = synchronized { (hits, misses) }
+}
+
+object ClassificationCache {
+  private[classifier] case class Key(owner: String, length: Int, textHash: Int)
+}
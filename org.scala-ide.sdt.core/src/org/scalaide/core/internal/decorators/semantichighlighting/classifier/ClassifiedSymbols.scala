@@ -0,0 +1,70 @@
+package org.scalaide.core.internal.decorators.semantichighlighting.classifier
+
+import org.eclipse.jface.text.IRegion
+import org.eclipse.jface.text.Region
+import org.scalaide.core.internal.decorators.semantichighlighting.classifier.SymbolTypes.SymbolType
+
+/**
+ * The symbol occurrences found by the classification of a compilation unit.
+ *
+ * Each occurrence is encoded as four ints in a flat array: its offset, its length, the id of
+ * its `SymbolType` and its flags. Adding an occurrence allocates nothing, so that the
+ * classification can run in a single, short task on the presentation compiler thread.
+ *
+ * This class is not thread safe, it is filled on the compiler thread and read afterwards.
+ */
+private[classifier] final class ClassifiedSymbols {
+  import ClassifiedSymbols._
+
+  private var data = new Array[Int](InitialCapacity * Fields)
+  private var count = 0
+
+  private def ensureCapacity(occurrences: Int): Unit =
+    if (occurrences * Fields > data.length)
+      data = java.util.Arrays.copyOf(data, (occurrences * Fields) max (data.length * 2))
+
+  def add(offset: Int, length: Int, symbolType: SymbolType, deprecated: Boolean): Unit = {
+    ensureCapacity(count + 1)
+    val i = count * Fields
+    data(i) = offset
+    data(i + 1) = length
+    data(i + 2) = symbolType.id
+    data(i + 3) = if (deprecated) DeprecatedFlag else 0
+    count += 1
+  }
+
+  def size: Int = count
+
+  /** Return the encoded occurrences from index `from` on, with offsets relative to `origin`. */
+  def slice(from: Int, origin: Int): Array[Int] = {
+    val encoded = java.util.Arrays.copyOfRange(data, from * Fields, count * Fields)
+    for (i <- encoded.indices by Fields)
+      encoded(i) -= origin
+    encoded
+  }
+
+  /** Add occurrences returned by `slice`, whose offsets are relative to `origin`. */
+  def addAll(encoded: Array[Int], origin: Int): Unit = {
+    ensureCapacity(count + encoded.length / Fields)
+    val start = count * Fields
+    System.arraycopy(encoded, 0, data, start, encoded.length)
+    for (i <- start until start + encoded.length by Fields)
+      data(i) += origin
+    count += encoded.length / Fields
+  }
+
+  /** Decode the occurrences, in the order they were added, as one `SymbolInfo` per occurrence. */
+  def toSymbolInfos(inInterpolatedString: IRegion => Boolean): Seq[SymbolInfo] =
+    for (n <- 0 until count) yield {
+      val i = n * Fields
+      val region = new Region(data(i), data(i + 1))
+      SymbolInfo(SymbolTypes(data(i + 2)), List(region), (data(i + 3) & DeprecatedFlag) != 0, inInterpolatedString(region))
+    }
+}
+
+private[classifier] object ClassifiedSymbols {
+  private final val Fields = 4
+  private final val InitialCapacity = 256
+
+  private final val DeprecatedFlag = 1
+}
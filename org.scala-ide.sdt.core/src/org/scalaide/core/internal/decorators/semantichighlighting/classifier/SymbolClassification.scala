@@ -1,6 +1,8 @@
 package org.scalaide.core.internal.decorators.semantichighlighting.classifier
 
 import scala.PartialFunction.condOpt
+import scala.concurrent.duration._
+import scala.util.control.NonFatal
 import org.scalaide.logging.HasLogger
 import org.scalaide.core.internal.decorators.semantichighlighting.classifier.SymbolTypes._
 import scala.tools.nsc.io.AbstractFile
@@ -29,9 +31,19 @@ private object SymbolClassification {
     Object -> Set(CaseClass)
   )
 
+  /** The classification of a whole unit is a single task, it may take longer than a regular `ask`. */
+  private val ClassificationTimeout = 30.seconds
+
 }
 
-class SymbolClassification(protected val sourceFile: SourceFile, val global: IScalaPresentationCompiler, useSyntacticHints: Boolean)
+/**
+ * Classifies the symbols of `sourceFile` for semantic highlighting.
+ *
+ * @param cache the classifications of the top-level definitions of the previous run, reused for
+ *              the definitions that did not change. A complete classification updates it.
+ */
+class SymbolClassification(protected val sourceFile: SourceFile, val global: IScalaPresentationCompiler, useSyntacticHints: Boolean,
+  cache: ClassificationCache = new ClassificationCache)
   extends SafeSymbol with SymbolTests with HasLogger {
 
   import SymbolClassification._
@@ -55,76 +67,181 @@ class SymbolClassification(protected val sourceFile: SourceFile, val global: ISc
     !isSyntheticMethodParam(sym)
   }
 
-  def classifySymbols(progressMonitor: IProgressMonitor): List[SymbolInfo] = {
-    val rawSymbolInfos: Seq[SymbolInfo] = {
-      import global._
+  def classifySymbols(progressMonitor: IProgressMonitor): List[SymbolInfo] =
+    classifySymbols(progressMonitor, None)
+
+  /**
+   * Classify the symbols of the unit, or only the symbols in `region` if it is given. Classifying
+   * a region is much faster for large units, the trees outside the region are not traversed.
+   */
+  def classifySymbols(progressMonitor: IProgressMonitor, region: Option[IRegion]): List[SymbolInfo] = {
+    // type-checking the unit posts its own request, it must happen before the classification task,
+    // and the syntactic hints are not worth holding up the compiler thread for
+    val tree = unitTree
+    syntacticInfo
+    val classified = global.asyncExec(classifyTree(tree, region, progressMonitor)).getOption(ClassificationTimeout)
+    if (progressMonitor.isCanceled()) return Nil
+
+    val rawSymbolInfos: Seq[SymbolInfo] =
+      classified.map(_.toSymbolInfos(syntacticInfo.identifiersInStringInterpolations)).getOrElse(Nil)
+    if (progressMonitor.isCanceled()) return Nil
+
+    val prunedSymbolInfos = prune(rawSymbolInfos)
+    if (progressMonitor.isCanceled()) return Nil
+
+    val all: Set[IRegion] = rawSymbolInfos.flatMap(_.regions).toSet
+    if (progressMonitor.isCanceled()) return Nil
 
-      def getSymbolInfo(symbolType: SymbolType, sym: Symbol, region: Option[IRegion]): SymbolInfo = {
-        val inInterpolatedString = region.map(syntacticInfo.identifiersInStringInterpolations).getOrElse(false)
+    val localVars: Set[IRegion] = rawSymbolInfos.collect { case SymbolInfo(LocalVar, regions, _, _) => regions }.flatten.toSet
+    if (progressMonitor.isCanceled()) return Nil
+
+    val symbolInfosFromSyntax = getSymbolInfosFromSyntax(syntacticInfo, localVars, all)
+    if (progressMonitor.isCanceled()) return Nil
+
+    val symbolInfos = (symbolInfosFromSyntax ++ prunedSymbolInfos).filter(_.regions.nonEmpty).distinct
+    region.fold(symbolInfos) { region =>
+      import org.scalaide.util.eclipse.RegionUtils.RichRegion
+      symbolInfos.map(info => info.copy(regions = info.regions.filter(_ intersects region))).filter(_.regions.nonEmpty)
+    }
+  }
+
+  /**
+   * Traverse `tree` and classify all the symbols it defines or references, or only the trees
+   * overlapping `region` if it is given. All the symbol queries are done here, so this must run
+   * as a single task on the compiler thread.
+   */
+  private def classifyTree(tree: global.Tree, region: Option[IRegion], progressMonitor: IProgressMonitor): ClassifiedSymbols = {
+    import global._
+    val classified = new ClassifiedSymbols
+    val definitions = topLevelDefinitions(tree).toMap
+    val signature = unitSignature(tree)
+    var fresh = Map.empty[ClassificationCache.Key, Array[Int]]
+
+    def add(symbolType: SymbolType, sym: Symbol, region: Option[IRegion]): Unit =
+      region foreach { r =>
         // isDeprecated may trigger type completion for annotations
-        val deprecated = sym.annotations.nonEmpty && global.asyncExec(sym.isDeprecated).getOrElse(false)()
-        SymbolInfo(symbolType, region.toList, deprecated, inInterpolatedString)
+        val deprecated = sym.annotations.nonEmpty && sym.isDeprecated
+        classified.add(r.getOffset, r.getLength, symbolType, deprecated)
       }
 
-      def findDynamicInfo(t: Tree): Option[SymbolInfo] = {
-        def posToRegion(p: Position) =
-          new Region(p.start, p.end - p.start)
+    def handleCallByNameParamSpecialCase(symType: SymbolType, t: Tree): SymbolType =
+      // we only want call-by-name parameters to be treated special where they are called, not where they are defined
+      if (symType == CallByNameParameter && t.isDef)
+        Param
+      else
+        symType
 
-        findDynamicMethodCall(t) map {
-          case (symbolType, pos) =>
-            val sym = global.asyncExec(t.symbol).getOrElse(NoSymbol)()
-            getSymbolInfo(symbolType, sym, Some(posToRegion(pos)))
+    def getRefinedSymbolType(sym: Symbol, t: Tree): SymbolType = {
+      val symType = getSymbolType(sym)
+      handleCallByNameParamSpecialCase(symType, t)
+    }
+
+    def classifyNode(t: Tree): Unit =
+      if (isSourceTree(t) && (t.hasSymbolField || t.isType || t.symbol != NoSymbol)) {
+        findDynamicMethodCall(t) match {
+          case Some((symbolType, pos)) =>
+            add(symbolType, Option(t.symbol).getOrElse(NoSymbol), Some(new Region(pos.start, pos.end - pos.start)))
+          case None =>
+            for ((sym, pos) <- safeSymbol(t) if canSymbolBeReferencedInSource(sym))
+              add(getRefinedSymbolType(sym, t), sym, getOccurrenceRegion(sym)(pos))
         }
       }
 
-      def handleCallByNameParamSpecialCase(symType: SymbolType, t: Tree): SymbolType =
-        // we only want call-by-name parameters to be treated special where they are called, not where they are defined
-        if (symType == CallByNameParameter && t.isDef)
-          Param
-        else
-          symType
+    def inRegion(t: Tree): Boolean =
+      region forall (region => !t.pos.isRange || (t.pos.start < region.getOffset + region.getLength && region.getOffset < t.pos.end))
 
-      def getRefinedSymbolType(sym: Symbol, t: Tree): SymbolType =  {
-        val symType = getSymbolType(sym)
-        handleCallByNameParamSpecialCase(symType, t)
-      }
+    new Traverser {
+      // definitions with type errors are not cached, their classification may be incomplete
+      private var erroneous = false
 
-      def findSymbolInfo(t: Tree): List[SymbolInfo] =
-        safeSymbol(t) collect {
-          case (sym, pos) if canSymbolBeReferencedInSource(sym) =>
-            getSymbolInfo(getRefinedSymbolType(sym, t), sym, getOccurrenceRegion(sym)(pos))
+      private def classifyAll(t: Tree): Unit = {
+        erroneous ||= t.isErroneous
+        try classifyNode(t)
+        catch {
+          case NonFatal(e) => logger.debug(s"Could not classify the symbols of a tree at ${t.pos}", e)
         }
+        super.traverse(t)
+      }
 
-      var symbolInfos = IndexedSeq.empty[SymbolInfo]
-      new Traverser {
-        override def traverse(t: Tree): Unit = {
-          def symExists = global.asyncExec(t.symbol != NoSymbol).getOrElse(false)()
-
-          if (!progressMonitor.isCanceled() && isSourceTree(t) && (t.hasSymbolField || t.isType || symExists)) {
-            val ds = findDynamicInfo(t)
-            val xs = if (ds.isEmpty) findSymbolInfo(t) else ds.toList
-            symbolInfos ++= xs
-          }
-          super.traverse(t)
+      override def traverse(t: Tree): Unit =
+        if (!progressMonitor.isCanceled() && inRegion(t)) {
+          if (definitions.contains(t)) {
+            val key = keyOf(definitions(t), t.pos)
+            cache.get(signature, key) match {
+              case Some(encoded) =>
+                classified.addAll(encoded, t.pos.start)
+                fresh += key -> encoded
+              case None =>
+                val from = classified.size
+                erroneous = false
+                classifyAll(t)
+                if (!erroneous)
+                  fresh += key -> classified.slice(from, t.pos.start)
+            }
+          } else
+            classifyAll(t)
         }
-      }.traverse(unitTree)
-      symbolInfos
-    }
-    if (progressMonitor.isCanceled()) return Nil
+    }.traverse(tree)
 
-    val prunedSymbolInfos = prune(rawSymbolInfos)
-    if (progressMonitor.isCanceled()) return Nil
+    // a partial classification doesn't know all the definitions of the unit
+    if (region.isEmpty && !progressMonitor.isCanceled())
+      cache.update(signature, fresh)
+    classified
+  }
 
-    val all: Set[IRegion] = rawSymbolInfos.flatMap(_.regions).toSet
-    if (progressMonitor.isCanceled()) return Nil
+  /** The members of the top-level classes and objects, that are classified independently of each
+   *  other, with the full name of the class or object defining them.
+   */
+  private def topLevelDefinitions(tree: global.Tree): List[(global.Tree, String)] = {
+    import global._
+    tree match {
+      case PackageDef(_, stats) => stats flatMap topLevelDefinitions
+      case implDef: ImplDef =>
+        val owner = implDef.symbol.fullName
+        implDef.impl.body collect { case member if member.pos.isOpaqueRange => member -> owner }
+      case _ => Nil
+    }
+  }
 
-    val localVars: Set[IRegion] = rawSymbolInfos.collect { case SymbolInfo(LocalVar, regions, _, _) => regions }.flatten.toSet
-    if (progressMonitor.isCanceled()) return Nil
+  /** A hash of what the classification of a definition depends on outside of its own text: the
+   *  names and kinds of the members of all the classes and objects of the unit, nested ones
+   *  included, and the versions of the other units loaded in the compiler. Must be called on the
+   *  compiler thread.
+   */
+  private def unitSignature(tree: global.Tree): Int = {
+    import global._
+    var hash = System.identityHashCode(global)
+    def kindOf(sym: Symbol): Int =
+      try (sym.nameString, getSymbolType(sym).id, sym.annotations.nonEmpty && sym.isDeprecated).hashCode
+      catch {
+        case NonFatal(_) => 0
+      }
 
-    val symbolInfosFromSyntax = getSymbolInfosFromSyntax(syntacticInfo, localVars, all)
-    if (progressMonitor.isCanceled()) return Nil
+    new Traverser {
+      override def traverse(t: Tree): Unit = {
+        t match {
+          // local definitions can only be referenced in the definition containing them
+          case member: MemberDef if member.symbol != null && member.symbol != NoSymbol && member.symbol.owner.isClass =>
+            hash = 31 * hash + kindOf(member.symbol)
+          case _ =>
+        }
+        super.traverse(t)
+      }
+    }.traverse(tree)
+
+    // a reference to another unit keeps its classification until that unit changes
+    val otherUnits = global.unitOfFile.toList collect {
+      case (file, unit) if file != sourceFile.file => (file.path, System.identityHashCode(unit.source)).hashCode
+    }
+    31 * hash + otherUnits.sorted.hashCode
+  }
 
-    (symbolInfosFromSyntax ++ prunedSymbolInfos).filter(_.regions.nonEmpty).distinct
+  private def keyOf(owner: String, pos: Position): ClassificationCache.Key = {
+    val content = sourceFile.content
+    var hash = 0
+    for (i <- pos.start until pos.end)
+      hash = 31 * hash + content(i)
+    ClassificationCache.Key(owner, pos.end - pos.start, hash)
   }
 
   private def getOccurrenceRegion(sym: Symbol)(pos: Position): Option[IRegion] = {
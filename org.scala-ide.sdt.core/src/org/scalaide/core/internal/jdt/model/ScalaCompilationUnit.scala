@@ -1,6 +1,7 @@
 package org.scalaide.core.internal.jdt.model
 
 import java.util.{ Map => JMap }
+import org.eclipse.core.resources.IContainer
 import org.eclipse.core.resources.IFile
 import org.eclipse.core.resources.IResource
 import org.eclipse.core.runtime.IProgressMonitor
@@ -149,16 +150,17 @@ trait ScalaCompilationUnit extends Openable
 
   /** Index this source file, but only if the project has the Scala nature.
    *
-   *  This avoids crashes if the indexer kicks in on a project that has Scala sources
-   *  but no Scala library on the classpath.
+   *  The source is parsed by the `IndexParserPool`, and its entries are replayed from the
+   *  `SourceIndexCache` if it didn't change since it was last indexed.
    */
   def addToIndexer(indexer : ScalaSourceIndexer): Unit = {
     if (scalaProject.hasScalaNature) {
-      try scalaProject.presentationCompiler.internal { compiler =>
-        val tree = compiler.parseTree(lastSourceMap().sourceFile)
-        new compiler.IndexBuilderTraverser(indexer).traverse(tree)
-      } catch {
-        case ex: Throwable => logger.error("Compiler crash during indexing of %s".format(getResource()), ex)
+      val root = Option(getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT)) map (_.getResource) collect {
+        case container: IContainer => container
+      }
+      try ScalaPlugin().indexParserPool.index(getPath.toString, lastSourceMap().sourceFile, root, indexer)
+      catch {
+        case ex: Throwable => logger.error("Error during indexing of %s".format(getResource()), ex)
       }
     }
   }
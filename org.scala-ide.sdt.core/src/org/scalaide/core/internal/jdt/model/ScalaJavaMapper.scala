@@ -1,6 +1,7 @@
 package org.scalaide.core.internal.jdt.model
 
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants
+import scala.reflect.internal.HasFlags
 import scala.tools.nsc.symtab.Flags
 import org.scalaide.logging.HasLogger
 import org.eclipse.jdt.core._
@@ -118,25 +119,7 @@ trait ScalaJavaMapper extends InternalCompilerServices with ScalaAnnotationHelpe
   /** Overload that needs to go away when 'HasFlag' can be used, either as a
    *  structural type -- see #4560, or by sticking to 2.9.0 that has this trait
    */
-  def mapModifiers(owner: Modifiers) : Int = {
-    var jdtMods = 0
-    if(owner.hasFlag(Flags.PRIVATE))
-      jdtMods = jdtMods | ClassFileConstants.AccPrivate
-    else
-      // protected entities need to be exposed as public to match scala compiler's behavior.
-      jdtMods = jdtMods | ClassFileConstants.AccPublic
-
-    if(owner.hasFlag(Flags.ABSTRACT) || owner.hasFlag(Flags.DEFERRED))
-      jdtMods = jdtMods | ClassFileConstants.AccAbstract
-
-    if(owner.isFinal || owner.hasFlag(Flags.MODULE))
-      jdtMods = jdtMods | ClassFileConstants.AccFinal
-
-    if(owner.isTrait)
-      jdtMods = jdtMods | ClassFileConstants.AccInterface
-
-    jdtMods
-  }
+  def mapModifiers(owner: Modifiers) : Int = ScalaJavaMapper.mapModifiers(owner)
 
   /** Returns the fully-qualified name for the passed symbol (it expects the symbol to be a type).*/
   def javaTypeName(s: Symbol): String = mapType(s, _.javaClassName)
@@ -291,3 +274,29 @@ trait ScalaJavaMapper extends InternalCompilerServices with ScalaAnnotationHelpe
       enclPackage.fullName
   }
 }
+
+object ScalaJavaMapper {
+
+  /** Map the modifiers of a tree to JDT modifiers. It doesn't need a compiler, so that it can
+   *  be used on trees of any compiler, as the index builder does.
+   */
+  def mapModifiers(owner: HasFlags): Int = {
+    var jdtMods = 0
+    if(owner.hasFlag(Flags.PRIVATE))
+      jdtMods = jdtMods | ClassFileConstants.AccPrivate
+    else
+      // protected entities need to be exposed as public to match scala compiler's behavior.
+      jdtMods = jdtMods | ClassFileConstants.AccPublic
+
+    if(owner.hasFlag(Flags.ABSTRACT) || owner.hasFlag(Flags.DEFERRED))
+      jdtMods = jdtMods | ClassFileConstants.AccAbstract
+
+    if(owner.isFinal || owner.hasFlag(Flags.MODULE))
+      jdtMods = jdtMods | ClassFileConstants.AccFinal
+
+    if(owner.isTrait)
+      jdtMods = jdtMods | ClassFileConstants.AccInterface
+
+    jdtMods
+  }
+}
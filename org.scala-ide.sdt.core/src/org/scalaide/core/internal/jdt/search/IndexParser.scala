@@ -0,0 +1,42 @@
+package org.scalaide.core.internal.jdt.search
+
+import java.io.File
+
+import scala.reflect.internal.util.SourceFile
+import scala.tools.nsc.Global
+import scala.tools.nsc.Settings
+import scala.tools.nsc.reporters.StoreReporter
+
+import org.scalaide.core.internal.project.ScalaInstallation
+import org.scalaide.logging.HasLogger
+
+/** A compiler that only parses Scala sources, to add their entries to the JDT index.
+ *
+ *  Indexing needs unattributed trees only, so this compiler never types anything and doesn't
+ *  depend on the classpath of a project: it is much cheaper to create than a presentation
+ *  compiler. Its parser is the one of the Scala version of the IDE.
+ *
+ *  This class is not thread safe, each thread should use its own instance.
+ */
+class IndexParser private (settings: Settings) extends Global(settings, new StoreReporter) with ScalaIndexBuilder {
+
+  // the parser reports syntax errors through the current run
+  new Run
+
+  /** Add the entries of `source` to `indexer`. */
+  def index(source: SourceFile, indexer: ScalaSourceIndexer): Unit = {
+    reporter.reset()
+    val tree = newUnitParser(new CompilationUnit(source)).parse()
+    new IndexBuilderTraverser(indexer).traverse(tree)
+  }
+}
+
+object IndexParser extends HasLogger {
+
+  def apply(): IndexParser = {
+    val settings = new Settings(err => logger.error(err))
+    settings.usejavacp.value = true
+    settings.bootclasspath.value = ScalaInstallation.platformInstallation.allJars.map(_.classJar.toOSString).mkString(File.pathSeparator)
+    new IndexParser(settings)
+  }
+}
@@ -0,0 +1,208 @@
+package org.scalaide.core.internal.jdt.search
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+import java.util.concurrent.FutureTask
+import java.util.concurrent.LinkedBlockingDeque
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+import scala.collection.mutable.ListBuffer
+import scala.io.Source
+import scala.reflect.internal.util.BatchSourceFile
+import scala.reflect.internal.util.SourceFile
+import scala.util.control.NonFatal
+
+import org.eclipse.core.resources.IContainer
+import org.eclipse.core.resources.IFile
+import org.eclipse.core.resources.IResource
+import org.eclipse.core.resources.IResourceProxy
+import org.eclipse.core.resources.IResourceProxyVisitor
+import org.eclipse.jdt.core.search.SearchDocument
+import org.scalaide.core.resources.EclipseResource
+import org.scalaide.logging.HasLogger
+
+/** Adds the entries of Scala sources to the JDT index with parser-only compilers, so that
+ *  indexing never needs a presentation compiler.
+ *
+ *  The JDT indexes one document at a time. To use all cores, the first source of a source
+ *  folder that is not in the `cache` makes the pool parse all the sources of that folder in the
+ *  background, on up to `threads` threads, and cache their entries. The sources indexed
+ *  afterwards are then replayed from the cache. A source that is being parsed in the background
+ *  when it is indexed is waited for.
+ *
+ *  Sources are only parsed on the threads of the pool, each with its own `IndexParser`, so that
+ *  the threads of the JDT indexer never hold a parser. The threads of the pool, and their
+ *  parsers, are dropped when the pool is idle.
+ *
+ *  This class is thread safe.
+ */
+class IndexParserPool(threads: Int, cache: SourceIndexCache) extends HasLogger {
+  import IndexParserPool._
+
+  private val queue = new LinkedBlockingDeque[Runnable]
+
+  private val executor = {
+    val pool = new ThreadPoolExecutor(threads, threads, KeepAliveSeconds, TimeUnit.SECONDS, queue, new ThreadFactory {
+      override def newThread(r: Runnable): Thread = {
+        val thread = new Thread(r, "Scala index parser")
+        thread.setDaemon(true)
+        thread
+      }
+    })
+    pool.allowCoreThreadTimeOut(true)
+    pool
+  }
+
+  private val parsers = new ThreadLocal[IndexParser] {
+    override def initialValue(): IndexParser = IndexParser()
+  }
+
+  /** The sources being parsed in the background, by workspace path. */
+  private val inFlight = new ConcurrentHashMap[String, FutureTask[Unit]]
+
+  /** The source folders whose sources were parsed in the background. */
+  private val prefetchedRoots = ConcurrentHashMap.newKeySet[String]()
+
+  /** Add the entries of `source`, found at the workspace `path`, to `indexer`.
+   *
+   *  If the source didn't change since it was last indexed, its entries are replayed from the
+   *  cache. Otherwise it is parsed by the pool ahead of the background work, and the other
+   *  sources of its source folder `root` are parsed in the background. A background parse of the
+   *  source that is still queued is moved ahead as well. The source is not indexed if it could
+   *  not be parsed within `ParseTimeoutSeconds`.
+   */
+  def index(path: String, source: SourceFile, root: Option[IContainer], indexer: ScalaSourceIndexer): Unit = {
+    Option(inFlight.get(path)) foreach { task =>
+      // a prefetch still waiting behind the background work is moved ahead of it
+      if (queue.remove(task)) runFirst(task)
+      await(path, task)
+    }
+
+    val hash = SourceIndexCache.contentHash(source.content)
+    cache.get(path, hash) match {
+      case Some(entries) =>
+        indexer.replay(entries)
+      case None =>
+        root foreach prefetch
+        val task = new FutureTask[Array[Byte]](new Callable[Array[Byte]] {
+          override def call(): Array[Byte] = parse(path, source)
+        })
+        runFirst(task)
+        await(path, task) foreach { entries =>
+          cache.put(path, hash, entries)
+          indexer.replay(entries)
+        }
+    }
+  }
+
+  /** Forget the source folders parsed in the background under the workspace path `containerPath`,
+   *  or all of them if it is `None`, so that they are parsed in the background again when the JDT
+   *  indexes them from scratch.
+   */
+  def indexDiscarded(containerPath: Option[String]): Unit = containerPath match {
+    case Some(container) =>
+      prefetchedRoots.removeIf(root => root == container || root.startsWith(container + "/"))
+    case None =>
+      prefetchedRoots.clear()
+  }
+
+  def shutdown(): Unit =
+    executor.shutdownNow()
+
+  /** Run `task` on the pool before the background work already queued. */
+  private def runFirst(task: FutureTask[_]): Unit =
+    if (executor.isShutdown) task.cancel(false)
+    else {
+      queue.offerFirst(task)
+      executor.prestartCoreThread()
+    }
+
+  /** Wait for `task` to parse the source at `path`, and return its result. Return `None` if the
+   *  task failed, was cancelled, or didn't complete within `ParseTimeoutSeconds`.
+   */
+  private def await[T](path: String, task: Future[T]): Option[T] =
+    try Some(task.get(ParseTimeoutSeconds, TimeUnit.SECONDS))
+    catch {
+      case e: ExecutionException =>
+        logger.error(s"Parser crash during indexing of $path", e.getCause)
+        None
+      case _: CancellationException =>
+        None
+      case _: TimeoutException =>
+        logger.info(s"Timed out waiting for $path to be parsed for the index")
+        None
+      case _: InterruptedException =>
+        Thread.currentThread.interrupt()
+        None
+    }
+
+  /** Return the recorded entries of `source`. Must run on a thread of the pool. */
+  private def parse(path: String, source: SourceFile): Array[Byte] = {
+    val indexer = new ScalaSourceIndexer(new DetachedDocument(path))
+    parsers.get.index(source, indexer)
+    indexer.recordedEntries
+  }
+
+  private def prefetch(root: IContainer): Unit =
+    if (!executor.isShutdown && prefetchedRoots.add(root.getFullPath.toString)) executor.execute(new Runnable {
+      override def run(): Unit = {
+        val sources = scalaSourcesOf(root)
+        logger.debug(s"Parsing ${sources.size} sources of ${root.getFullPath} for the index")
+        sources foreach { file =>
+          val path = file.getFullPath.toString
+          val task = new FutureTask[Unit](new Runnable {
+            override def run(): Unit = try prefetch(path, file) finally inFlight.remove(path)
+          }, ())
+          if (inFlight.putIfAbsent(path, task) eq null)
+            executor.execute(task)
+        }
+      }
+    })
+
+  private def prefetch(path: String, file: IFile): Unit =
+    try {
+      val content = contentOf(file)
+      val hash = SourceIndexCache.contentHash(content)
+      if (!cache.contains(path, hash))
+        cache.put(path, hash, parse(path, new BatchSourceFile(EclipseResource(file), content)))
+    } catch {
+      case NonFatal(e) =>
+        logger.debug(s"Could not parse $path in the background, it is parsed when indexed", e)
+    }
+}
+
+object IndexParserPool {
+  private final val KeepAliveSeconds = 30L
+  private final val ParseTimeoutSeconds = 60L
+
+  /** A document that is not part of any index, used to record the entries of a source. */
+  private class DetachedDocument(path: String) extends SearchDocument(path, null) {
+    override def getByteContents(): Array[Byte] = null
+    override def getCharContents(): Array[Char] = null
+    override def getEncoding(): String = null
+  }
+
+  private def scalaSourcesOf(root: IContainer): Seq[IFile] = {
+    val sources = ListBuffer[IFile]()
+    root.accept(new IResourceProxyVisitor {
+      override def visit(proxy: IResourceProxy): Boolean = {
+        if (proxy.getType == IResource.FILE && proxy.getName.endsWith(".scala"))
+          sources += proxy.requestResource().asInstanceOf[IFile]
+        true
+      }
+    }, IResource.NONE)
+    sources.toList
+  }
+
+  private def contentOf(file: IFile): Array[Char] = {
+    val in = file.getContents(true)
+    try Source.fromInputStream(in, file.getCharset).toArray
+    finally in.close()
+  }
+}
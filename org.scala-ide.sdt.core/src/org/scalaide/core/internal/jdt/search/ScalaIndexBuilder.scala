@@ -1,16 +1,13 @@
 package org.scalaide.core.internal.jdt.search
 
+import scala.tools.nsc.Global
 import scala.tools.nsc.symtab.Flags
 
-import org.scalaide.core.internal.compiler.ScalaPresentationCompiler
-import org.scalaide.core.compiler.IScalaPresentationCompiler.Implicits._
+import org.scalaide.core.internal.jdt.model.ScalaJavaMapper
 import org.scalaide.logging.HasLogger
 
 /** Add entries to the JDT index. This class traverses an *unattributed* Scala AST. This
- *  means a tree without symbols or types. However, a tree that was typed may still get here
- *  (usually during reconciliation, after editing and saving a file). That adds some complexity
- *  because the Scala typechecker modifies the tree. One prime example is annotations, which
- *  after type-checking are removed from the tree and placed in the corresponding Symbol.
+ *  means a tree without symbols or types, as returned by the parser of an `IndexParser`.
  *
  *  The indexer builds a map from names to documents that mention that name. Names are
  *  categorized (for instance, as method definitions, method references, annotation references, etc.).
@@ -20,18 +17,14 @@ import org.scalaide.logging.HasLogger
  *  'Test' in 'org.junit', and then pass those documents to the structure builder for
  *  precise parsing, where names are actually resolved.
  */
-trait ScalaIndexBuilder extends HasLogger { self: ScalaPresentationCompiler =>
+trait ScalaIndexBuilder extends HasLogger { self: Global =>
+  import ScalaIndexBuilder._
 
-  private var _lastIndexBuilderTraversals = List[String]()
-  private val _lastIndexBuilderTraversalsMonitor = new Object()
+  /** The Java name of a type, which is always `java.lang.Object` in an unattributed tree. */
+  private def javaTypeName(s: Symbol): String =
+    if (s eq NoSymbol) JavaLangObject else s.javaClassName
 
-  def lastIndexBuilderTraversals: Seq[String] = _lastIndexBuilderTraversalsMonitor.synchronized {
-    _lastIndexBuilderTraversals
-  }
-
-  private def rememberTraversalOf(path: String): Unit = _lastIndexBuilderTraversalsMonitor.synchronized {
-    _lastIndexBuilderTraversals = (path +: _lastIndexBuilderTraversals).take(25)
-  }
+  private def mapModifiers(mods: Modifiers): Int = ScalaJavaMapper.mapModifiers(mods)
 
   class IndexBuilderTraverser(indexer : ScalaSourceIndexer) extends Traverser {
     var packageName = new StringBuilder
@@ -58,7 +51,7 @@ trait ScalaIndexBuilder extends HasLogger { self: ScalaPresentationCompiler =>
         case Ident(id)                           => id.toChars
         case Select(_, name)                     => name.toChars
         case AppliedTypeTree(fun: RefTree, _) => fun.name.toChars
-        case tpt @ TypeTree()                    => javaTypeName(tpt.symbol).toCharArray // maybe the tree was typed
+        case tpt @ TypeTree()                    => javaTypeName(tpt.symbol).toCharArray
         case parent =>
           logger.info(s"superclass not understood: $parent")
           "$$NoRef".toCharArray
@@ -66,26 +59,9 @@ trait ScalaIndexBuilder extends HasLogger { self: ScalaPresentationCompiler =>
       superNames.toArray
     }
 
-    /** Add annotations on the given tree. If the tree is not yet typed,
-     *  it uses the (unresolved) annotations in the tree (part of modifiers).
-     *  If the modifiers are empty, it uses the Symbol for finding them (the type-checker
-     *  moves the annotations from the tree to the symbol).
-     */
-    def addAnnotations(tree: MemberDef): Unit = {
-      if (tree.mods.annotations.isEmpty && tree.symbol.isInitialized) // don't force any symbols
-        addAnnotations(tree.symbol)
-      else
-        tree.mods.annotations.foreach(addAnnotationRef)
-    }
-
-    private def addAnnotations(sym: Symbol) =
-      for {
-        ann <- sym.annotations
-        annotationType <- asyncExec(ann.atp.toString.toCharArray).getOption()
-      } {
-        logger.debug(s"Added annotation ref (from sym): ${annotationType.toString}")
-        indexer.addAnnotationTypeReference(annotationType)
-      }
+    /** Add the (unresolved) annotations on the given tree, which are part of its modifiers. */
+    def addAnnotations(tree: MemberDef): Unit =
+      tree.mods.annotations.foreach(addAnnotationRef)
 
     private def addAnnotationRef(tree: Tree): Unit = {
       for (t <- tree) t match {
@@ -255,3 +231,17 @@ trait ScalaIndexBuilder extends HasLogger { self: ScalaPresentationCompiler =>
     }
   }
 }
+
+object ScalaIndexBuilder {
+  private final val JavaLangObject = "java.lang.Object"
+
+  @volatile private var _lastIndexBuilderTraversals = List[String]()
+  private val _lastIndexBuilderTraversalsMonitor = new Object()
+
+  /** The paths of the last sources traversed to be indexed, the most recent first. */
+  def lastIndexBuilderTraversals: Seq[String] = _lastIndexBuilderTraversals
+
+  private def rememberTraversalOf(path: String): Unit = _lastIndexBuilderTraversalsMonitor.synchronized {
+    _lastIndexBuilderTraversals = (path +: _lastIndexBuilderTraversals).take(25)
+  }
+}
@@ -1,18 +1,146 @@
 package org.scalaide.core.internal.jdt.search
 
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+
+import org.eclipse.core.runtime.IPath
 import org.eclipse.jdt.core.search.SearchDocument
 import org.eclipse.jdt.internal.core.search.indexing.AbstractIndexer
+import org.scalaide.core.internal.ScalaPlugin
 import org.scalaide.core.internal.jdt.model.ScalaSourceFile
 import scala.tools.eclipse.contribution.weaving.jdt.indexerprovider.IIndexerFactory
 import org.scalaide.logging.HasLogger
 
 class ScalaSourceIndexerFactory extends IIndexerFactory {
   override def createIndexer(document : SearchDocument) = new ScalaSourceIndexer(document);
+
+  override def indexDiscarded(containerPath: IPath): Unit =
+    ScalaPlugin().indexParserPool.indexDiscarded(Option(containerPath).map(_.toString))
 }
 
+/** Adds the entries of a Scala source to the JDT index.
+ *
+ *  The added entries are also recorded, so that they can be replayed for an unchanged
+ *  source without parsing it again (see `SourceIndexCache`).
+ */
 class ScalaSourceIndexer(document : SearchDocument) extends AbstractIndexer(document) with HasLogger {
+  import ScalaSourceIndexer._
+
+  private val recorded = new ByteArrayOutputStream
+  private val out = new DataOutputStream(recorded)
+
   override def indexDocument(): Unit = {
-    logger.info("Indexing document: "+document.getPath)
+    val start = System.nanoTime
     ScalaSourceFile.createFromPath(document.getPath).map(_.addToIndexer(this))
+    logger.info(s"Indexed document: ${document.getPath} in ${(System.nanoTime - start) / 1000000}ms")
+  }
+
+  override def addAnnotationTypeReference(typeName: Array[Char]): Unit = {
+    out.writeByte(AnnotationTypeReference)
+    writeChars(typeName)
+    super.addAnnotationTypeReference(typeName)
+  }
+
+  override def addClassDeclaration(modifiers: Int, packageName: Array[Char], name: Array[Char],
+      enclosingTypeNames: Array[Array[Char]], superclass: Array[Char], superinterfaces: Array[Array[Char]],
+      typeParameterSignatures: Array[Array[Char]], secondary: Boolean): Unit = {
+    out.writeByte(ClassDeclaration)
+    out.writeInt(modifiers)
+    writeChars(packageName)
+    writeChars(name)
+    writeCharss(enclosingTypeNames)
+    writeChars(superclass)
+    writeCharss(superinterfaces)
+    writeCharss(typeParameterSignatures)
+    out.writeBoolean(secondary)
+    super.addClassDeclaration(modifiers, packageName, name, enclosingTypeNames, superclass, superinterfaces,
+      typeParameterSignatures, secondary)
+  }
+
+  override def addFieldReference(fieldName: Array[Char]): Unit = {
+    out.writeByte(FieldReference)
+    writeChars(fieldName)
+    super.addFieldReference(fieldName)
+  }
+
+  override def addMethodDeclaration(methodName: Array[Char], parameterTypes: Array[Array[Char]],
+      returnType: Array[Char], exceptionTypes: Array[Array[Char]]): Unit = {
+    out.writeByte(MethodDeclaration)
+    writeChars(methodName)
+    writeCharss(parameterTypes)
+    writeChars(returnType)
+    writeCharss(exceptionTypes)
+    super.addMethodDeclaration(methodName, parameterTypes, returnType, exceptionTypes)
+  }
+
+  override def addMethodReference(methodName: Array[Char], argCount: Int): Unit = {
+    out.writeByte(MethodReference)
+    writeChars(methodName)
+    out.writeInt(argCount)
+    super.addMethodReference(methodName, argCount)
+  }
+
+  override def addTypeReference(typeName: Array[Char]): Unit = {
+    out.writeByte(TypeReference)
+    writeChars(typeName)
+    super.addTypeReference(typeName)
   }
+
+  /** The entries added to this indexer so far, in the format read by `replay`. */
+  def recordedEntries: Array[Byte] = {
+    out.flush()
+    recorded.toByteArray
+  }
+
+  /** Add the entries returned by `recordedEntries` of another indexer of the same source. */
+  def replay(entries: Array[Byte]): Unit = {
+    val in = new DataInputStream(new ByteArrayInputStream(entries))
+    def readChars(): Array[Char] =
+      if (in.readBoolean()) in.readUTF().toCharArray else null
+    def readCharss(): Array[Array[Char]] = in.readInt() match {
+      case -1 => null
+      case length => Array.fill(length)(readChars())
+    }
+
+    while (in.available > 0) in.readByte() match {
+      case AnnotationTypeReference =>
+        addAnnotationTypeReference(readChars())
+      case ClassDeclaration =>
+        addClassDeclaration(in.readInt(), readChars(), readChars(), readCharss(), readChars(), readCharss(),
+          readCharss(), in.readBoolean())
+      case FieldReference =>
+        addFieldReference(readChars())
+      case MethodDeclaration =>
+        addMethodDeclaration(readChars(), readCharss(), readChars(), readCharss())
+      case MethodReference =>
+        addMethodReference(readChars(), in.readInt())
+      case TypeReference =>
+        addTypeReference(readChars())
+    }
+  }
+
+  // names are mostly ASCII, which modified UTF-8 stores in one byte per character
+  private def writeChars(chars: Array[Char]): Unit = {
+    out.writeBoolean(chars != null)
+    if (chars != null) out.writeUTF(new String(chars))
+  }
+
+  private def writeCharss(charss: Array[Array[Char]]): Unit =
+    if (charss == null) out.writeInt(-1)
+    else {
+      out.writeInt(charss.length)
+      charss.foreach(writeChars)
+    }
+}
+
+object ScalaSourceIndexer {
+  // the kinds of recorded entries
+  private final val AnnotationTypeReference = 1
+  private final val ClassDeclaration = 2
+  private final val FieldReference = 3
+  private final val MethodDeclaration = 4
+  private final val MethodReference = 5
+  private final val TypeReference = 6
 }
@@ -0,0 +1,222 @@
+package org.scalaide.core.internal.jdt.search
+
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.security.MessageDigest
+import java.util.Base64
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ListBuffer
+import scala.util.control.NonFatal
+
+import org.scalaide.logging.HasLogger
+
+/** A workspace-wide cache of the JDT index entries contributed by Scala sources.
+ *
+ *  The entries of a source are recorded by `ScalaSourceIndexer` the first time it is indexed,
+ *  and replayed as long as its content doesn't change, so that re-indexing a workspace doesn't
+ *  need to parse its sources again. An entry is identified by the
+ *  workspace path of the source and the hash of its content; a changed source replaces its
+ *  previous entry.
+ *
+ *  If `storeFile` is given, the cache is restored from it on first use and written back by
+ *  `save`, dropping the sources for which `exists` is false. Only the paths and hashes are kept
+ *  in memory: the recorded entries of a saved source are read from `storeFile` when they are
+ *  replayed, and the ones recorded since the last `save` are held until the next one.
+ *
+ *  This class is thread safe.
+ */
+class SourceIndexCache(storeFile: Option[File], exists: String => Boolean = _ => true) extends HasLogger {
+  import SourceIndexCache._
+
+  private val entries = new ConcurrentHashMap[String, Entry]
+  @volatile private var dirty = false
+
+  /** The open `storeFile`, from which the `Stored` entries are read. Guarded by `storeLock`. */
+  private var store: Option[FileChannel] = None
+  private val storeLock = new Object
+
+  // raw stats
+  private val hits, misses = new AtomicInteger
+
+  private lazy val restored: Unit = storeFile filter (_.isFile) foreach restore
+
+  /** Return the entries recorded for `path`, if its content still has the given `hash`. */
+  def get(path: String, hash: String): Option[Array[Byte]] = {
+    restored
+    val found = Option(entries.get(path)) filter (_.hash == hash) flatMap recordedOf
+    if (found.isDefined) hits.incrementAndGet() else misses.incrementAndGet()
+    found
+  }
+
+  /** Return whether entries are recorded for `path` with the given `hash`, without counting it in the stats. */
+  def contains(path: String, hash: String): Boolean = {
+    restored
+    Option(entries.get(path)) exists (_.hash == hash)
+  }
+
+  def put(path: String, hash: String, recorded: Array[Byte]): Unit = {
+    restored
+    entries.put(path, InMemory(hash, recorded))
+    dirty = true
+  }
+
+  def clear(): Unit = {
+    restored
+    entries.clear()
+    dirty = true
+  }
+
+  /** Return the number of replayed and parsed sources. */
+  def getStats: (Int, Int) = (hits.get, misses.get)
+
+  private def recordedOf(entry: Entry): Option[Array[Byte]] = entry match {
+    case InMemory(_, recorded) => Some(recorded)
+    case Stored(_, offset, length) => readStored(offset, length)
+  }
+
+  /** Read `length` bytes at `offset` in the store, or `None` if it can't be read. */
+  private def readStored(offset: Long, length: Int): Option[Array[Byte]] = storeLock.synchronized {
+    store flatMap { channel =>
+      try {
+        val buffer = ByteBuffer.allocate(length)
+        while (buffer.hasRemaining && channel.read(buffer, offset + buffer.position) >= 0) {}
+        if (buffer.hasRemaining) None else Some(buffer.array)
+      } catch {
+        case e: IOException =>
+          logger.debug(s"Could not read recorded entries from $storeFile", e)
+          None
+      }
+    }
+  }
+
+  /** Write the cache to `storeFile`, if anything changed since it was read.
+   *
+   *  The store holds the recorded entries first, then an index of the sources with the offset of
+   *  their entries, and ends with the offset of that index.
+   */
+  def save(): Unit = for (file <- storeFile if dirty) {
+    // cleared before taking the snapshot, so that changes made meanwhile are saved next time
+    dirty = false
+    val live = entries.asScala.toList filter { case (path, _) => exists(path) }
+
+    // write to a temporary file first, so that a failed write doesn't leave a truncated store
+    val written = new File(file.getPath + ".tmp")
+    try {
+      val saved = ListBuffer[(String, Entry, Stored)]()
+      val out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(written)))
+      try {
+        out.writeInt(FormatVersion)
+        for ((path, entry) <- live; recorded <- recordedOf(entry)) {
+          saved += ((path, entry, Stored(entry.hash, out.size, recorded.length)))
+          out.write(recorded)
+        }
+        val indexOffset = out.size.toLong
+        out.writeInt(saved.size)
+        for ((path, _, stored) <- saved) {
+          out.writeUTF(path)
+          out.writeUTF(stored.hash)
+          out.writeLong(stored.offset)
+          out.writeInt(stored.length)
+        }
+        out.writeLong(indexOffset)
+      } finally out.close()
+
+      storeLock.synchronized {
+        store foreach (_.close())
+        store = None
+        Files.move(written.toPath, file.toPath, StandardCopyOption.REPLACE_EXISTING)
+        store = Some(FileChannel.open(file.toPath, StandardOpenOption.READ))
+        // the saved entries are now read from the store, unless they changed meanwhile
+        for ((path, entry, stored) <- saved)
+          entries.replace(path, entry, stored)
+      }
+    } catch {
+      case e: IOException =>
+        logger.error(s"Could not save the source index cache to $file", e)
+        written.delete()
+        dirty = true
+    }
+  }
+
+  /** Close the store. Entries that were not saved are kept, the saved ones can't be read anymore. */
+  def close(): Unit = storeLock.synchronized {
+    store foreach (_.close())
+    store = None
+  }
+
+  private def restore(file: File): Unit =
+    try {
+      val channel = FileChannel.open(file.toPath, StandardOpenOption.READ)
+      try {
+        val size = channel.size
+        val header = ByteBuffer.allocate(4)
+        val trailer = ByteBuffer.allocate(8)
+        channel.read(header, 0)
+        channel.read(trailer, size - 8)
+        header.flip()
+        trailer.flip()
+        if (header.remaining == 4 && header.getInt == FormatVersion) {
+          if (trailer.remaining != 8) throw new IOException("Truncated store")
+          val indexOffset = trailer.getLong
+          if (indexOffset < 4 || indexOffset > size - 8) throw new IOException(s"Invalid index offset $indexOffset")
+          val in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(indexOffset))))
+          for (_ <- 1 to readSize(in, size)) {
+            val path = in.readUTF()
+            val hash = in.readUTF()
+            val offset = in.readLong()
+            val length = readSize(in, size)
+            if (offset < 4 || offset + length > indexOffset) throw new IOException(s"Invalid offset $offset")
+            entries.put(path, Stored(hash, offset, length))
+          }
+          storeLock.synchronized { store = Some(FileChannel.open(file.toPath, StandardOpenOption.READ)) }
+          logger.debug(s"Restored the index entries of ${entries.size} sources from $file")
+        }
+      } finally channel.close()
+    } catch {
+      // a truncated or corrupt store is as good as no store at all
+      case NonFatal(e) =>
+        logger.error(s"Could not restore the source index cache from $file", e)
+        entries.clear()
+    }
+
+  /** Read a number of elements, and check that it fits in a store of `storeSize` bytes before anything is allocated for it. */
+  private def readSize(in: DataInputStream, storeSize: Long): Int = {
+    val size = in.readInt()
+    if (size < 0 || size > storeSize) throw new IOException(s"Invalid size $size")
+    size
+  }
+}
+
+object SourceIndexCache {
+  /** Bump it whenever `IndexBuilderTraverser` adds different entries for the same source, or their encoding changes. */
+  private val FormatVersion = 2
+
+  private sealed abstract class Entry {
+    def hash: String
+  }
+  /** Entries recorded since the last `save`. */
+  private case class InMemory(hash: String, recorded: Array[Byte]) extends Entry
+  /** Entries saved in the store, at `offset`. */
+  private case class Stored(hash: String, offset: Long, length: Int) extends Entry
+
+  /** A digest of `content`, used to tell whether a source changed since it was indexed. */
+  def contentHash(content: Array[Char]): String = {
+    val digest = MessageDigest.getInstance("SHA-1").digest(new String(content).getBytes(StandardCharsets.UTF_8))
+    Base64.getEncoder.encodeToString(digest)
+  }
+}
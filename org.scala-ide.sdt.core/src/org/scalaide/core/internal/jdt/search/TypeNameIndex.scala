@@ -0,0 +1,330 @@
+package org.scalaide.core.internal.jdt.search
+
+import java.util.Locale
+import java.util.concurrent.atomic.AtomicInteger
+
+import scala.collection.mutable
+import scala.ref.WeakReference
+import scala.util.control.NonFatal
+
+import org.eclipse.core.runtime.IProgressMonitor
+import org.eclipse.core.runtime.OperationCanceledException
+import org.eclipse.core.runtime.Status
+import org.eclipse.core.runtime.jobs.Job
+import org.eclipse.jdt.core.IJavaElement
+import org.eclipse.jdt.core.IJavaProject
+import org.eclipse.jdt.core.IPackageFragmentRoot
+import org.eclipse.jdt.core.IType
+import org.eclipse.jdt.core.search.IJavaSearchConstants
+import org.eclipse.jdt.core.search.IJavaSearchScope
+import org.eclipse.jdt.core.search.SearchEngine
+import org.eclipse.jdt.core.search.SearchPattern
+import org.eclipse.jdt.core.search.TypeNameMatch
+import org.eclipse.jdt.core.search.TypeNameRequestor
+import org.eclipse.swt.widgets.Display
+import org.scalaide.core.IScalaPlugin
+import org.scalaide.logging.HasLogger
+import org.scalaide.util.Utils
+import org.scalaide.util.eclipse.EclipseUtils
+
+/** A type on the classpath of a project, with its names as the JDT index knows them.
+ *
+ *  @param enclosingTypeNames the types it is nested in, outermost first
+ */
+case class IndexedType(packageName: String, enclosingTypeNames: Seq[String], simpleTypeName: String, modifiers: Int) {
+  def fullyQualifiedName: String =
+    (packageName +: enclosingTypeNames :+ simpleTypeName) filter (_.nonEmpty) mkString "."
+}
+
+/** The types on the classpath of a project, searchable by the prefix of their simple name.
+ *
+ *  Completion and the import quick fixes look for type names on every invocation, and a JDT
+ *  search over the whole classpath is slow when there are many jars. This index asks the JDT
+ *  for all the types once, and keeps them in arrays sorted by simple name. It has two parts:
+ *  the types of the libraries, which change with the classpath, and the types of the sources
+ *  of the project and of the projects it depends on, which change when a source is saved. The
+ *  types of a library are shared by the indexes of all the projects it is on.
+ *
+ *  A part is built in the background the first time it is needed, and built again in the
+ *  background when it is invalidated. Meanwhile, lookups see its previous state, as a JDT
+ *  search sees an index that has not caught up with the latest changes. Lookups return `None`
+ *  until both parts were built once, and callers then search the JDT index themselves. In
+ *  `noTimeoutMode`, lookups wait for a part that isn't up to date to be built, unless they
+ *  are made on the UI thread.
+ *
+ *  This class is thread safe.
+ */
+class TypeNameIndex(javaProject: IJavaProject) extends HasLogger {
+  import TypeNameIndex._
+
+  private val libraries = new Part[LibraryTypes]("libraries") {
+    override protected def compute(monitor: IProgressMonitor): LibraryTypes = {
+      val roots = javaProject.getAllPackageFragmentRoots.toSeq filter (_.getKind == IPackageFragmentRoot.K_BINARY)
+      new LibraryTypes(roots map (root => root.getPath.toString -> typesOf(root, monitor)))
+    }
+  }
+
+  private val sources = new Part[SortedTypes]("sources") {
+    override protected def compute(monitor: IProgressMonitor): SortedTypes =
+      SortedTypes(searchAll(javaProject, IJavaSearchScope.SOURCES | IJavaSearchScope.REFERENCED_PROJECTS, monitor))
+  }
+
+  // raw stats
+  private val hits, misses = new AtomicInteger
+
+  /** Return the types named `name`, or whose name starts with `name` if `prefixMatch` is true.
+   *
+   *  @param packageName if given, only the types of this package are returned. Like the JDT,
+   *         the package name is compared ignoring case.
+   *  @return `None` if the index isn't built yet.
+   */
+  def find(name: String, prefixMatch: Boolean, caseSensitive: Boolean = false, packageName: Option[String] = None): Option[Seq[IndexedType]] = {
+    val found = for {
+      libraryTypes <- libraries.get()
+      sourceTypes <- sources.get()
+    } yield {
+      def inPackage(tpe: IndexedType) = packageName forall (tpe.packageName.equalsIgnoreCase)
+      def matches(tpe: IndexedType) =
+        if (!prefixMatch) !caseSensitive || tpe.simpleTypeName == name
+        else !caseSensitive || tpe.simpleTypeName.startsWith(name)
+
+      (libraryTypes.find(name, prefixMatch) ++ sourceTypes.find(name, prefixMatch)) filter (tpe => inPackage(tpe) && matches(tpe))
+    }
+    if (found.isDefined) hits.incrementAndGet() else misses.incrementAndGet()
+    found
+  }
+
+  /** Forget the types of the libraries, for instance because the classpath changed. */
+  def invalidateLibraries(): Unit =
+    libraries.invalidate()
+
+  /** Forget the types of the libraries if they were found in one of the package fragment roots
+   *  at `paths`, because these roots changed.
+   */
+  def invalidateLibraryRoots(paths: Set[String]): Unit =
+    if (paths.nonEmpty && libraries.current.forall(types => paths exists types.contains))
+      libraries.invalidate()
+
+  /** Forget the types of the sources, because a source was added, removed or changed. */
+  def invalidateSources(): Unit =
+    sources.invalidate()
+
+  def invalidate(): Unit = {
+    invalidateLibraries()
+    invalidateSources()
+  }
+
+  def dispose(): Unit = {
+    libraries.dispose()
+    sources.dispose()
+  }
+
+  /** Return the number of lookups answered by the index and of those made before it was built. */
+  def getStats: (Int, Int) = (hits.get, misses.get)
+
+  /** The types of a part of the classpath, as of the last build. */
+  private abstract class Part[T <: Types](name: String) {
+    private var built: Option[T] = None
+    private var used = false
+    private var changes = 0L
+    private var builtAt = -1L
+
+    private val job = EclipseUtils.prepareJob(s"Indexing the type names of the $name of ${javaProject.getElementName}", priority = Job.DECORATE) { monitor =>
+      build(monitor)
+      Status.OK_STATUS
+    }
+    job.setSystem(true)
+
+    protected def compute(monitor: IProgressMonitor): T
+
+    def current: Option[T] = synchronized(built)
+
+    def get(): Option[T] = {
+      val upToDate = synchronized {
+        used = true
+        builtAt == changes
+      }
+      if (!upToDate) {
+        job.schedule()
+        // the tests expect the index to be up to date, but the UI thread never waits for it
+        if (IScalaPlugin().noTimeoutMode && Display.getCurrent == null)
+          job.join()
+      }
+      current
+    }
+
+    def invalidate(): Unit = {
+      val rebuild = synchronized {
+        changes += 1
+        used
+      }
+      // wait a bit, changes often come in bursts
+      if (rebuild && !IScalaPlugin().noTimeoutMode) job.schedule(RebuildDelay)
+    }
+
+    def dispose(): Unit =
+      job.cancel()
+
+    private def build(monitor: IProgressMonitor): Unit = {
+      val generation = synchronized(changes)
+      try {
+        val types = Utils.debugTimed(s"Indexing the type names of the $name of ${javaProject.getElementName}") {
+          compute(monitor)
+        }
+        synchronized {
+          // an older build that finishes last mustn't replace a newer one
+          if (generation > builtAt) {
+            built = Some(types)
+            builtAt = generation
+          }
+        }
+      } catch {
+        case _: OperationCanceledException =>
+        case NonFatal(e) => logger.error(s"Error while indexing the type names of ${javaProject.getElementName}", e)
+      }
+    }
+  }
+}
+
+/** A type found by a [[TypeNameIndex]], resolved to its `IType` only when it is asked for. */
+class IndexedTypeNameMatch(javaProject: IJavaProject, indexed: IndexedType) extends TypeNameMatch {
+  private lazy val tpe = javaProject.findType(indexed.fullyQualifiedName)
+
+  /** The type, or `null` if it no longer exists. */
+  override def getType(): IType = tpe
+  override def getModifiers(): Int = indexed.modifiers
+  override def getFullyQualifiedName(): String = indexed.fullyQualifiedName
+  override def getPackageName(): String = indexed.packageName
+  override def getSimpleTypeName(): String = indexed.simpleTypeName
+  override def getTypeQualifiedName(): String = (indexed.enclosingTypeNames :+ indexed.simpleTypeName) mkString "."
+  override def getTypeContainerName(): String = (indexed.packageName +: indexed.enclosingTypeNames) filter (_.nonEmpty) mkString "."
+  override def toString: String = indexed.fullyQualifiedName
+}
+
+object TypeNameIndex {
+
+  /** How long an invalidated part waits before it is built again, in milliseconds. */
+  private final val RebuildDelay = 500L
+
+  /** The types of each library root by path, shared by the indexes of the projects it is on.
+   *  The types of a root are dropped once no index refers to them.
+   */
+  private val rootTypes = mutable.HashMap.empty[String, WeakReference[SortedTypes]]
+  private var rootChanges = 0L
+
+  // raw stats
+  private val rootSearches, rootReuses = new AtomicInteger
+
+  /** Forget the types of the library root at `path`, because its content changed. */
+  def libraryRootChanged(path: String): Unit = rootTypes.synchronized {
+    rootChanges += 1
+    rootTypes -= path
+  }
+
+  /** Return the number of library roots searched, and of those whose types were shared. */
+  def libraryStats: (Int, Int) = (rootSearches.get, rootReuses.get)
+
+  private def typesOf(root: IPackageFragmentRoot, monitor: IProgressMonitor): SortedTypes = {
+    val path = root.getPath.toString
+    val (known, generation) = rootTypes.synchronized((rootTypes.get(path) flatMap (_.get), rootChanges))
+    known match {
+      case Some(types) =>
+        rootReuses.incrementAndGet()
+        types
+      case None =>
+        rootSearches.incrementAndGet()
+        val types = SortedTypes(searchAll(root, IJavaSearchScope.APPLICATION_LIBRARIES | IJavaSearchScope.SYSTEM_LIBRARIES, monitor))
+        rootTypes.synchronized {
+          // the root may have changed during the search
+          if (generation == rootChanges) {
+            rootTypes.retain((_, ref) => ref.get.isDefined)
+            rootTypes(path) = new WeakReference(types)
+          }
+        }
+        types
+    }
+  }
+
+  /** Return all the types in `element`, restricted by `includeMask`. */
+  private def searchAll(element: IJavaElement, includeMask: Int, monitor: IProgressMonitor): Array[IndexedType] = {
+    val found = Array.newBuilder[IndexedType]
+    val names = new Interner
+
+    val requestor = new TypeNameRequestor() {
+      override def acceptType(modifiers: Int, packageName: Array[Char], simpleTypeName: Array[Char],
+        enclosingTypeNames: Array[Array[Char]], path: String): Unit =
+        found += IndexedType(
+          names(new String(packageName)),
+          enclosingTypeNames.map(chars => names(new String(chars))).toSeq,
+          new String(simpleTypeName),
+          modifiers)
+    }
+
+    new SearchEngine().searchAllTypeNames(
+      null,
+      SearchPattern.R_EXACT_MATCH,
+      null,
+      SearchPattern.R_PREFIX_MATCH,
+      IJavaSearchConstants.TYPE,
+      SearchEngine.createJavaSearchScope(Array(element), includeMask),
+      requestor,
+      IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH,
+      monitor)
+
+    found.result()
+  }
+
+  /** Shares the many copies of the same package and enclosing type names. */
+  private class Interner extends (String => String) {
+    private val known = mutable.HashMap.empty[String, String]
+    def apply(name: String): String = known.getOrElseUpdate(name, name)
+  }
+
+  private def key(name: String): String = name.toLowerCase(Locale.ENGLISH)
+
+  private[search] trait Types {
+
+    /** The types whose simple name is `name`, or starts with it if `prefixMatch` is true, ignoring case. */
+    def find(name: String, prefixMatch: Boolean): Seq[IndexedType]
+  }
+
+  /** The types of the library roots on the classpath of a project, by root path. */
+  private[search] class LibraryTypes(roots: Seq[(String, SortedTypes)]) extends Types {
+    def contains(rootPath: String): Boolean = roots exists (_._1 == rootPath)
+
+    override def find(name: String, prefixMatch: Boolean): Seq[IndexedType] =
+      roots flatMap (_._2.find(name, prefixMatch))
+  }
+
+  /** Types sorted by their simple name, ignoring case. */
+  private[search] class SortedTypes(keys: Array[String], types: Array[IndexedType]) extends Types {
+
+    override def find(name: String, prefixMatch: Boolean): Seq[IndexedType] = {
+      val k = key(name)
+      val found = Seq.newBuilder[IndexedType]
+      var i = firstNotBefore(k)
+      while (i < keys.length && (if (prefixMatch) keys(i).startsWith(k) else keys(i) == k)) {
+        found += types(i)
+        i += 1
+      }
+      found.result()
+    }
+
+    private def firstNotBefore(k: String): Int = {
+      var low = 0
+      var high = keys.length
+      while (low < high) {
+        val mid = (low + high) >>> 1
+        if (keys(mid) < k) low = mid + 1 else high = mid
+      }
+      low
+    }
+  }
+
+  private[search] object SortedTypes {
+    def apply(types: Array[IndexedType]): SortedTypes = {
+      val keyed = types.map(tpe => (key(tpe.simpleTypeName), tpe)).sortBy(_._1)
+      new SortedTypes(keyed.map(_._1), keyed.map(_._2))
+    }
+  }
+}
@@ -2,22 +2,30 @@ package org.scalaide.core.internal.lexical
 
 import org.eclipse.jface.text._
 import org.eclipse.jface.text.IDocument.DEFAULT_CONTENT_TYPE
-import scala.collection.mutable.ListBuffer
-import org.scalaide.core.lexical.ScalaCodePartitioner
+import scala.collection.mutable.ArrayBuilder
 
+/** Keeps the partitions of a Scala document up to date.
+ *
+ *  On a change, the document is lexed again from the last partition before the change where
+ *  the tokeniser is at top level, and only until the tokeniser is back in sync with the old
+ *  partitions after the change. The old partitions after that point are shifted and reused.
+ *
+ *  The partitions are stored as a sorted array of start offsets, so that looking up the partition
+ *  at an offset is a binary search, and `computePartitioning` returns a slice of that array.
+ */
 class ScalaDocumentPartitioner(conservative: Boolean = false) extends IDocumentPartitioner with IDocumentPartitionerExtension with IDocumentPartitionerExtension2 {
 
   import ScalaDocumentPartitioner._
   import org.scalaide.util.eclipse.RegionUtils.RichTypedRegion
 
-  private var partitionRegions: List[ITypedRegion] = Nil
+  private var partitions: Partitions = Partitions.empty
 
   def connect(document: IDocument): Unit = {
-    partitionRegions = ScalaCodePartitioner.partition(document.get)
+    partitions = lex(new DocumentText(document), 0)(_ => false)
   }
 
   def disconnect(): Unit = {
-    partitionRegions = Nil
+    partitions = Partitions.empty
   }
 
   def documentAboutToBeChanged(event: DocumentEvent): Unit = {}
@@ -25,69 +33,134 @@ class ScalaDocumentPartitioner(conservative: Boolean = false) extends IDocumentP
   def documentChanged(event: DocumentEvent): Boolean = documentChanged2(event) != null
 
   def documentChanged2(event: DocumentEvent): IRegion = {
-    val oldPartitions = partitionRegions
-    val newPartitions = ScalaCodePartitioner.partition(event.getDocument.get)
-    partitionRegions = newPartitions
+    val oldPartitions = partitions
+    val offset = event.getOffset
+    val length = event.getLength
+    val textLength = Option(event.getText).fold(0)(_.length)
+    val delta = textLength - length
+    val text = new DocumentText(event.getDocument)
+
+    val from = restartIndex(oldPartitions, offset)
+    var until = oldPartitions.size
+    var next = from
+    // the old partitions are reused from the first one that starts after the change where the tokeniser is at top level
+    def inSync(position: Int): Boolean = position > offset + textLength && {
+      while (next < oldPartitions.size && oldPartitions.start(next) + delta < position)
+        next += 1
+      val synced = next < oldPartitions.size && oldPartitions.start(next) + delta == position && oldPartitions.isTopLevel(next)
+      if (synced) until = next
+      synced
+    }
+    val restart = if (from < oldPartitions.size) oldPartitions.start(from) else 0
+    val relexed = lex(text, restart)(inSync)
+    partitions = oldPartitions.splice(from, until, relexed, delta, text.length)
+
     if (conservative)
       new Region(0, event.getDocument.getLength)
     else
-      calculateDirtyRegion(oldPartitions, newPartitions, event.getOffset, event.getLength, event.getText)
+      calculateDirtyRegion(oldPartitions, from, until, relexed, offset, length, delta)
   }
 
-  private def calculateDirtyRegion(oldPartitions: List[ITypedRegion], newPartitions: List[ITypedRegion], offset: Int, length: Int, text: String): IRegion =
-    if (newPartitions.isEmpty)
+  /** The index of the last partition the tokeniser can restart from, without looking at the changed text. */
+  private def restartIndex(oldPartitions: Partitions, offset: Int): Int = {
+    var index = oldPartitions.indexOf(offset) match {
+      case -1 => oldPartitions.size - 1
+      case i => i
+    }
+    while (index > 0 && !(oldPartitions.isTopLevel(index) && oldPartitions.start(index) + MaxLookahead <= offset))
+      index -= 1
+    index max 0
+  }
+
+  /** Lex `text` from `start`, until the end of the text or until `inSync` returns `true` for
+   *  the position of the tokeniser at top level.
+   */
+  private def lex(text: CharSequence, start: Int)(inSync: Int => Boolean): Partitions = {
+    val starts = new ArrayBuilder.ofInt
+    val types = new ArrayBuilder.ofRef[String]
+    val topLevel = new ArrayBuilder.ofBoolean
+    val tokeniser = new ScalaPartitionTokeniser(text, start)
+    while (tokeniser.tokensRemain && !(tokeniser.atTopLevel && inSync(tokeniser.position))) {
+      val atTopLevel = tokeniser.atTopLevel
+      val token = tokeniser.nextToken()
+      if (token.getLength > 0) {
+        starts += token.getOffset
+        types += token.getType
+        topLevel += atTopLevel
+      }
+    }
+    new Partitions(starts.result(), types.result(), topLevel.result(), tokeniser.position min text.length)
+  }
+
+  /** Compare the old partitions `from` (inclusive) `until` (exclusive) with the `relexed` ones
+   *  that replace them. All the other partitions are unchanged, up to the shift of `delta`.
+   */
+  private def calculateDirtyRegion(oldPartitions: Partitions, from: Int, until: Int, relexed: Partitions, offset: Int, length: Int, delta: Int): IRegion =
+    if (partitions.size == 0)
       new Region(0, 0)
-    else if (oldPartitions == newPartitions)
-      null
     else {
-      // Scan outside-in from both the beginning and the end of the document to match up undisturbed partitions:
-      val unchangedLeadingRegionCount = commonPrefixLength(oldPartitions, newPartitions)
-      val adjustedOldPartitions =
-        for (region <- oldPartitions if region.getOffset > offset + length - 1)
-          yield region.shift(text.length - length)
-      val unchangedTrailingRegionCount = commonPrefixLength(adjustedOldPartitions.reverse, newPartitions.reverse)
-      val dirtyOldPartitionCount = oldPartitions.size - unchangedTrailingRegionCount - unchangedLeadingRegionCount
-      val dirtyNewPartitionCount = newPartitions.size - unchangedTrailingRegionCount - unchangedLeadingRegionCount
+      def sameAs(oldIndex: Int, newIndex: Int, shift: Int) =
+        oldPartitions.start(oldIndex) + shift == relexed.start(newIndex) &&
+          oldPartitions.end(oldIndex) + shift == relexed.end(newIndex) &&
+          oldPartitions.contentType(oldIndex) == relexed.contentType(newIndex)
+
+      // Scan outside-in from both the beginning and the end of the relexed text to match up undisturbed partitions:
+      val oldCount = until - from
+      var unchangedLeadingRegionCount = 0
+      while (unchangedLeadingRegionCount < (oldCount min relexed.size) &&
+        sameAs(from + unchangedLeadingRegionCount, unchangedLeadingRegionCount, 0))
+        unchangedLeadingRegionCount += 1
+      var unchangedTrailingRegionCount = 0
+      while (unchangedTrailingRegionCount < ((oldCount min relexed.size) - unchangedLeadingRegionCount) && {
+        val oldIndex = until - 1 - unchangedTrailingRegionCount
+        oldPartitions.start(oldIndex) > offset + length - 1 &&
+          sameAs(oldIndex, relexed.size - 1 - unchangedTrailingRegionCount, delta)
+      })
+        unchangedTrailingRegionCount += 1
+      val dirtyOldPartitionCount = oldCount - unchangedTrailingRegionCount - unchangedLeadingRegionCount
+      val dirtyNewPartitionCount = relexed.size - unchangedTrailingRegionCount - unchangedLeadingRegionCount
 
       // A very common case is changing the size of a single partition, which we want to optimise:
       val singleDirtyPartitionWithUnchangedContentType = dirtyOldPartitionCount == 1 && dirtyNewPartitionCount == 1 &&
-        oldPartitions(unchangedLeadingRegionCount).getType == newPartitions(unchangedLeadingRegionCount).getType
-      if (singleDirtyPartitionWithUnchangedContentType)
+        oldPartitions.contentType(from + unchangedLeadingRegionCount) == relexed.contentType(unchangedLeadingRegionCount)
+      if (dirtyOldPartitionCount == 0 && dirtyNewPartitionCount == 0)
+        null
+      else if (singleDirtyPartitionWithUnchangedContentType)
         null
       else if (dirtyNewPartitionCount == 0) // i.e. a deletion of partitions
         new Region(offset, 0)
       else {
         // Otherwise just the dirty region:
-        val firstDirtyPartition = newPartitions(unchangedLeadingRegionCount)
-        val lastDirtyPartition = newPartitions(unchangedLeadingRegionCount + dirtyNewPartitionCount - 1)
-        new Region(firstDirtyPartition.getOffset, lastDirtyPartition.getOffset + lastDirtyPartition.getLength - firstDirtyPartition.getOffset)
+        val firstDirtyPartitionStart = relexed.start(unchangedLeadingRegionCount)
+        val lastDirtyPartitionEnd = relexed.end(unchangedLeadingRegionCount + dirtyNewPartitionCount - 1)
+        new Region(firstDirtyPartitionStart, lastDirtyPartitionEnd - firstDirtyPartitionStart)
       }
     }
 
-  private def commonPrefixLength[X](xs: List[X], ys: List[X]) = xs.zip(ys).takeWhile(p => p._1 == p._2).size
-
   def getLegalContentTypes = LEGAL_CONTENT_TYPES
 
   def getContentType(offset: Int) = getToken(offset) map { _.getType } getOrElse DEFAULT_CONTENT_TYPE
 
-  private def getToken(offset: Int) = partitionRegions.find(_.containsPositionExclusive(offset))
+  private def getToken(offset: Int) = {
+    val current = partitions
+    val index = current.indexOf(offset)
+    if (index < 0) None else Some(current.region(index))
+  }
 
   def computePartitioning(offset: Int, length: Int): Array[ITypedRegion] = {
-    val regions = new ListBuffer[ITypedRegion]
-    var searchingForStart = true
-    for (partitionRegion <- partitionRegions)
-      if (searchingForStart) {
-        if (partitionRegion containsPositionExclusive offset) {
-          searchingForStart = false
-          regions += partitionRegion.crop(offset, length)
+    val current = partitions
+    val first = current.indexOf(offset)
+    if (first < 0)
+      Array()
+    else {
+      val last =
+        if (length <= 0) first
+        else current.indexOf(offset + length - 1) match {
+          case -1 => current.size - 1
+          case index => index
         }
-      } else {
-        if (partitionRegion.getOffset > offset + length - 1)
-          return regions.toArray
-        else
-          regions += partitionRegion.crop(offset, length)
-      }
-    regions.toArray
+      Array.tabulate[ITypedRegion](last - first + 1)(i => current.region(first + i).crop(offset, length))
+    }
   }
 
   def getPartition(offset: Int): ITypedRegion = getToken(offset) getOrElse new TypedRegion(offset, 0, NO_PARTITION_AT_ALL)
@@ -125,4 +198,66 @@ object ScalaDocumentPartitioner {
 
   final val EOF = '\u001A'
 
+  /** The number of characters after its position the tokeniser may look at before ending a token. */
+  private val MaxLookahead = 8
+
+  /** The partitions of a text, partition `i` starts at `starts(i)` and ends where the next one
+   *  starts, the last one ends at `endOffset`. `topLevel(i)` tells whether the tokeniser was at
+   *  top level at the start of partition `i`, so that it can be restarted from there.
+   */
+  private final class Partitions(val starts: Array[Int], val types: Array[String], val topLevel: Array[Boolean], val endOffset: Int) {
+    def size: Int = starts.length
+
+    def start(index: Int): Int = starts(index)
+
+    def end(index: Int): Int = if (index + 1 < size) starts(index + 1) else endOffset
+
+    def contentType(index: Int): String = types(index)
+
+    def isTopLevel(index: Int): Boolean = topLevel(index)
+
+    def region(index: Int): ITypedRegion = new TypedRegion(start(index), end(index) - start(index), types(index))
+
+    /** The index of the partition containing `offset`, or -1 if there is none, in O(log n). */
+    def indexOf(offset: Int): Int = {
+      val found = java.util.Arrays.binarySearch(starts, offset)
+      val index = if (found >= 0) found else -found - 2
+      if (index >= 0 && offset < end(index)) index else -1
+    }
+
+    /** Replace the partitions `from` (inclusive) `until` (exclusive) by `relexed`, and shift the
+     *  following ones by `delta`.
+     */
+    def splice(from: Int, until: Int, relexed: Partitions, delta: Int, newEndOffset: Int): Partitions = {
+      val tail = size - until
+      val count = from + relexed.size + tail
+      val newStarts = new Array[Int](count)
+      val newTypes = new Array[String](count)
+      val newTopLevel = new Array[Boolean](count)
+      System.arraycopy(starts, 0, newStarts, 0, from)
+      System.arraycopy(types, 0, newTypes, 0, from)
+      System.arraycopy(topLevel, 0, newTopLevel, 0, from)
+      System.arraycopy(relexed.starts, 0, newStarts, from, relexed.size)
+      System.arraycopy(relexed.types, 0, newTypes, from, relexed.size)
+      System.arraycopy(relexed.topLevel, 0, newTopLevel, from, relexed.size)
+      for (i <- 0 until tail)
+        newStarts(from + relexed.size + i) = starts(until + i) + delta
+      System.arraycopy(types, until, newTypes, from + relexed.size, tail)
+      System.arraycopy(topLevel, until, newTopLevel, from + relexed.size, tail)
+      new Partitions(newStarts, newTypes, newTopLevel, newEndOffset)
+    }
+  }
+
+  private object Partitions {
+    val empty = new Partitions(Array(), Array(), Array(), 0)
+  }
+
+  /** The text of a document, read without copying it to a `String`. */
+  private class DocumentText(document: IDocument) extends CharSequence {
+    override def length: Int = document.getLength
+    override def charAt(index: Int): Char = document.getChar(index)
+    override def subSequence(start: Int, end: Int): CharSequence = document.get(start, end - start)
+    override def toString: String = document.get
+  }
+
 }
@@ -25,15 +25,19 @@ object ScalaPartitionTokeniser {
 }
 
 /** @see org.scalaide.core.lexical.ScalaCodePartitioner
+ *
+ *  @param start the offset of the first token, which must be the start of a partition lexed
+ *               at top level (see `atTopLevel`). Characters before `start` are only looked at
+ *               to decide whether a string is interpolated or whether `<` starts XML.
  */
-class ScalaPartitionTokeniser(text: String) extends TokenTests {
+class ScalaPartitionTokeniser(text: CharSequence, start: Int = 0) extends TokenTests {
   import ScalaDocumentPartitioner.EOF
 
   private val length = text.length
 
-  private var pos = 0
+  private var pos = start
 
-  private var previousTokenEnd = -1
+  private var previousTokenEnd = start - 1
 
   private var contentTypeOpt: Option[String] = None
 
@@ -55,6 +59,15 @@ class ScalaPartitionTokeniser(text: String) extends TokenTests {
 
   def tokensRemain = pos < length
 
+  /** The offset of the next token. */
+  def position: Int = pos
+
+  /** Whether the next token is lexed outside of any XML literal, interpolated string or Scaladoc
+   *  code block. Tokenising the rest of the text from `position` with a fresh tokeniser gives the
+   *  same tokens in that case.
+   */
+  def atTopLevel: Boolean = modeStack.tail.isEmpty
+
   def nextToken(): ITypedRegion = {
     require(tokensRemain)
 
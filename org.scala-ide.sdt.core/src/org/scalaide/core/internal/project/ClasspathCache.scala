@@ -0,0 +1,54 @@
+package org.scalaide.core.internal.project
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.eclipse.core.resources.IProject
+
+/** A workspace-wide cache of classpath computations, by project.
+ *
+ *  Each value is cached with the projects it was computed from, so that a classpath change
+ *  of a project invalidates the values of all the projects that depend on it. A value
+ *  computed while an invalidation happened is not cached, since it may be stale already.
+ *
+ *  This class is thread safe.
+ */
+private[project] class ClasspathCache[A] {
+
+  private case class Entry(value: A, dependencies: Set[IProject])
+
+  private val entries = new ConcurrentHashMap[IProject, Entry]
+  @volatile private var invalidations = 0L
+
+  // raw stats
+  private val hits, misses = new AtomicInteger
+
+  def get(project: IProject): Option[A] = {
+    val found = Option(entries.get(project)) map (_.value)
+    if (found.isDefined) hits.incrementAndGet() else misses.incrementAndGet()
+    found
+  }
+
+  /** The generation of the cache, to pass to `put` once the value is computed. */
+  def generation: Long = invalidations
+
+  /** Cache the `value` of `project`, computed from `dependencies` since `generation`. */
+  def put(project: IProject, value: A, dependencies: Set[IProject], generation: Long): Unit = synchronized {
+    if (generation == invalidations)
+      entries.put(project, Entry(value, dependencies))
+  }
+
+  /** Drop the values computed from `project`. */
+  def invalidate(project: IProject): Unit = synchronized {
+    invalidations += 1
+    entries.entrySet.removeIf(entry => entry.getKey == project || entry.getValue.dependencies(project))
+  }
+
+  def clear(): Unit = synchronized {
+    invalidations += 1
+    entries.clear()
+  }
+
+  /** Return the number of hits and misses. */
+  def getStats: (Int, Int) = (hits.get, misses.get)
+}
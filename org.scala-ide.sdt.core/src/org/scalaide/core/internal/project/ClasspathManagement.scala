@@ -12,6 +12,7 @@ import scala.util.control.Exception
 import org.eclipse.core.resources.IFile
 import org.eclipse.core.resources.IFolder
 import org.eclipse.core.resources.IMarker
+import org.eclipse.core.resources.IProject
 import org.eclipse.core.resources.IResource
 import org.eclipse.core.resources.IStorage
 import org.eclipse.core.runtime.IPath
@@ -90,6 +91,18 @@ case class ScalaClasspath(
  */
 private final case class ScalaLibrary(location: IPath, version: Option[ScalaVersion], isProject: Boolean)
 
+/** The cached classpath breakdown of a project, with the Scala libraries found on it.
+ */
+private final case class ClasspathModel(scalaClasspath: ScalaClasspath, scalaLibraries: Seq[ScalaLibrary])
+
+/** The resolved classpath of a project, or what it contributes to the projects depending on it.
+ *
+ *  @param entries      The classpath entries, in the project-defined order
+ *  @param dependencies The projects it was computed from, including the project itself
+ *  @param complete     Whether no cyclic dependency was cut short while computing it
+ */
+private final case class JavaClasspath(entries: Seq[IPath], dependencies: Set[IProject], complete: Boolean)
+
 /** Only thought for internal use in [[ClasspathManagement]].
  */
 private final case class ClasspathErrorMarker(severity: Int, message: String, markerId: String)
@@ -131,16 +144,30 @@ trait ClasspathManagement extends HasLogger { self: ScalaProject =>
   @volatile
   private var classpathValid = false
 
-  /** Return the Scala classpath breakdown for the managed project. */
-  def scalaClasspath: ScalaClasspath = {
-    val jdkEntries = jdkPaths
-    val cp = javaClasspath.filterNot(jdkEntries.toSet)
-
-    scalaLibraries match {
-      case Seq(ScalaLibrary(pf, version, _), _*) =>
-        new ScalaClasspath(jdkEntries, Some(pf), cp.filterNot(_ == pf), version.map(_.unparse))
-      case _ =>
-        new ScalaClasspath(jdkEntries, None, cp, None)
+  /** Return the Scala classpath breakdown for the managed project.
+   *
+   *  It is cached until the classpath of the project, or of a project it depends on, changes.
+   */
+  def scalaClasspath: ScalaClasspath = classpathModel.scalaClasspath
+
+  private def classpathModel: ClasspathModel = {
+    import ClasspathManagement.classpathModels
+    classpathModels.get(underlying) getOrElse {
+      val generation = classpathModels.generation
+      val jdkEntries = jdkPaths
+      val JavaClasspath(javaCp, dependencies, _) = javaClasspath
+      val cp = javaCp.filterNot(jdkEntries.toSet)
+      val libraries = scalaLibraries
+
+      val scalaCp = libraries match {
+        case Seq(ScalaLibrary(pf, version, _), _*) =>
+          new ScalaClasspath(jdkEntries, Some(pf), cp.filterNot(_ == pf), version.map(_.unparse))
+        case _ =>
+          new ScalaClasspath(jdkEntries, None, cp, None)
+      }
+      val model = ClasspathModel(scalaCp, libraries)
+      classpathModels.put(underlying, model, dependencies, generation)
+      model
     }
   }
 
@@ -170,53 +197,78 @@ trait ClasspathManagement extends HasLogger { self: ScalaProject =>
    *  components at the head of the list. This method *does not* move them
    *  in front.
    */
-  private def javaClasspath: Seq[IPath] = {
-    val path = new mutable.LinkedHashSet[IPath]
+  private def javaClasspath: JavaClasspath =
+    computeClasspath(javaProject, isRoot = true, Nil)
+
+  /** Return the classpath that `project` contributes to the projects depending on it: its
+   *  exported entries and the output folders of its sources, followed by the contributions
+   *  of the projects it exports.
+   *
+   *  Contributions are shared by all the projects of the workspace. A contribution is not cached
+   *  if a cyclic dependency was cut short while computing it, since it then depends on the
+   *  project it was computed for.
+   */
+  private def exportedClasspath(project: IJavaProject, followedPath: List[IJavaProject]): JavaClasspath = {
+    import ClasspathManagement.exportedClasspaths
+    exportedClasspaths.get(project.getProject) getOrElse {
+      val generation = exportedClasspaths.generation
+      val exported = computeClasspath(project, isRoot = false, followedPath)
+      if (exported.complete)
+        exportedClasspaths.put(project.getProject, exported, exported.dependencies, generation)
+      exported
+    }
+  }
 
-    val computedClasspaths = mutable.HashSet[IJavaProject]()
-
-    def computeClasspath(project: IJavaProject, followedPath: List[IJavaProject]): Unit = {
-      // have we seen he project, or does is it part of a cyclic dependency
-      if (!computedClasspaths.contains(project) && !followedPath.contains(project)) {
-      val cpes = project.getResolvedClasspath(true)
-
-      for (
-        // we take only exported dependencies on classPath, except for the initial project for which we take all
-        cpe <- cpes if project == javaProject || cpe.isExported || cpe.getEntryKind == IClasspathEntry.CPE_SOURCE
-      ) cpe.getEntryKind match {
-        case IClasspathEntry.CPE_PROJECT =>
-          val depProject = EclipseUtils.workspaceRoot.getProject(cpe.getPath.lastSegment)
-          if (JavaProject.hasJavaNature(depProject)) {
-            computeClasspath(JavaCore.create(depProject), project :: followedPath)
+  private def computeClasspath(project: IJavaProject, isRoot: Boolean, followedPath: List[IJavaProject]): JavaClasspath = {
+    val path = new mutable.LinkedHashSet[IPath]
+    var dependencies = Set(project.getProject)
+    var complete = true
+
+    val cpes = project.getResolvedClasspath(true)
+
+    for (
+      // we take only exported dependencies on classPath, except for the initial project for which we take all
+      cpe <- cpes if isRoot || cpe.isExported || cpe.getEntryKind == IClasspathEntry.CPE_SOURCE
+    ) cpe.getEntryKind match {
+      case IClasspathEntry.CPE_PROJECT =>
+        val depProject = EclipseUtils.workspaceRoot.getProject(cpe.getPath.lastSegment)
+        dependencies += depProject
+        if (JavaProject.hasJavaNature(depProject)) {
+          val depJavaProject = JavaCore.create(depProject)
+          // is it part of a cyclic dependency
+          if (depJavaProject == project || followedPath.contains(depJavaProject))
+            complete = false
+          else {
+            val exported = exportedClasspath(depJavaProject, project :: followedPath)
+            path ++= exported.entries
+            dependencies ++= exported.dependencies
+            complete &&= exported.complete
           }
-        case IClasspathEntry.CPE_LIBRARY =>
-          if (cpe.getPath != null) {
-            val absPath = EclipseUtils.workspaceRoot.findMember(cpe.getPath)
-            if (absPath != null)
-              path += absPath.getLocation
-            else {
-              path += cpe.getPath
-            }
-          } else
-            logger.error("Classpath computation encountered a null path for " + cpe, null)
-        case IClasspathEntry.CPE_SOURCE =>
-          val cpeOutput = cpe.getOutputLocation
-          val outputLocation = if (cpeOutput != null) cpeOutput else project.getOutputLocation
-
-          if (outputLocation != null) {
-            val absPath = EclipseUtils.workspaceRoot.findMember(outputLocation)
-            if (absPath != null)
-              path += absPath.getLocation
+        }
+      case IClasspathEntry.CPE_LIBRARY =>
+        if (cpe.getPath != null) {
+          val absPath = EclipseUtils.workspaceRoot.findMember(cpe.getPath)
+          if (absPath != null)
+            path += absPath.getLocation
+          else {
+            path += cpe.getPath
           }
+        } else
+          logger.error("Classpath computation encountered a null path for " + cpe, null)
+      case IClasspathEntry.CPE_SOURCE =>
+        val cpeOutput = cpe.getOutputLocation
+        val outputLocation = if (cpeOutput != null) cpeOutput else project.getOutputLocation
+
+        if (outputLocation != null) {
+          val absPath = EclipseUtils.workspaceRoot.findMember(outputLocation)
+          if (absPath != null)
+            path += absPath.getLocation
+        }
 
-        case _ =>
-          logger.warn("Classpath computation encountered unknown entry: " + cpe)
-      }
-        computedClasspaths += project
-      }
+      case _ =>
+        logger.warn("Classpath computation encountered unknown entry: " + cpe)
     }
-    computeClasspath(javaProject, List())
-    path.toList
+    JavaClasspath(path.toList, dependencies, complete)
   }
 
   private def isCheckingClasspath(): Boolean = java.lang.Thread.holdsLock(classpathCheckLock)
@@ -238,6 +290,9 @@ trait ClasspathManagement extends HasLogger { self: ScalaProject =>
    *  @param queue Do not trust an ongoing check to deal with the classPath
    */
   def classpathHasChanged(queue: Boolean = true) = {
+    ClasspathManagement.invalidate(underlying)
+    invalidateSourceInventory()
+    typeNameIndex.invalidate()
     if (queue || !isCheckingClasspath()){
       classpathCheckLock.synchronized {
         // mark as in progress
@@ -255,6 +310,9 @@ trait ClasspathManagement extends HasLogger { self: ScalaProject =>
   }
 
   protected def resetClasspathCheck(): Unit = {
+    ClasspathManagement.invalidate(underlying)
+    invalidateSourceInventory()
+    typeNameIndex.invalidate()
     // mark the classpath as not checked
     classpathCheckLock.synchronized {
       classpathHasBeenChecked = false
@@ -350,7 +408,7 @@ trait ClasspathManagement extends HasLogger { self: ScalaProject =>
     val withVersionClasspathValidator =
       storage.getBoolean(SettingConverterUtil.convertNameToProperty(ScalaPluginSettings.withVersionClasspathValidator.name))
     val errors =
-      validateScalaLibrary(scalaLibraries, canFixInstallationFromScalaLib) ++
+      validateScalaLibrary(classpathModel.scalaLibraries, canFixInstallationFromScalaLib) ++
         (if (withVersionClasspathValidator) {
           validateBinaryVersionsOnClasspath() ++ validateCompilerPlugins()
         } else {
@@ -537,3 +595,24 @@ trait ClasspathManagement extends HasLogger { self: ScalaProject =>
     }
   }
 }
+
+object ClasspathManagement extends HasLogger {
+
+  /** The classpath breakdown of each Scala project. */
+  private val classpathModels = new ClasspathCache[ClasspathModel]
+
+  /** What each project contributes to the classpath of the projects depending on it. */
+  private val exportedClasspaths = new ClasspathCache[JavaClasspath]
+
+  /** Drop the cached classpaths computed from `project`, because its classpath changed. */
+  def invalidate(project: IProject): Unit = {
+    classpathModels.invalidate(project)
+    exportedClasspaths.invalidate(project)
+    logger.debug(s"Classpath caches invalidated by ${project.getName}: ${getStats}")
+  }
+
+  /** Return the number of hits and misses of the classpath breakdowns, and of the contributions
+   *  of dependent projects.
+   */
+  def getStats: ((Int, Int), (Int, Int)) = (classpathModels.getStats, exportedClasspaths.getStats)
+}
@@ -1,7 +1,9 @@
 package org.scalaide.core.internal.project
 
 import java.io.File
+import java.lang.ref.SoftReference
 
+import scala.collection.mutable
 import scala.tools.nsc.Settings
 
 import org.eclipse.core.resources.IFile
@@ -42,10 +44,11 @@ class SbtScopesBuildManager(val owningProject: IScalaProject, managerSettings: S
 
   override def build(addedOrUpdated: Set[IFile], removed: Set[IFile], monitor: SubMonitor): Unit = {
     owningProject.underlying.deleteMarkers(SdtConstants.ProblemMarkerId, true, IResource.DEPTH_INFINITE)
+    val upstreamErrors = new UpstreamErrors(owningProject.transitiveDependencies)
     val scopesAndProjectsInError = buildScopeUnits.filter {
       _.sources.nonEmpty
     }.map { unit =>
-      ScopeUnitWithProjectsInError(unit, findProjectsInError(unit))
+      ScopeUnitWithProjectsInError(unit, upstreamErrors.projectsInError(unit.scope))
     }
     scopesAndProjectsInError.foreach { scopePotentiallyToRebuild =>
       if (scopePotentiallyToRebuild.projectsInError.isEmpty || shouldBuildContinueOnErrors) {
@@ -69,17 +72,24 @@ class SbtScopesBuildManager(val owningProject: IScalaProject, managerSettings: S
   override def clean(implicit monitor: IProgressMonitor): Unit = buildScopeUnits.foreach { _.clean }
   override def canTrackDependencies: Boolean = true
 
-  private def findProjectsInError(scopeUnit: BuildScopeUnit) = {
-    def hasErrors(project: IProject, scope: CompileScope): Boolean =
-      IScalaPlugin().asScalaProject(project).map {
+  /**
+   * The error state of the upstream projects, looked up once per project and scope. It
+   * doesn't change while this project builds, so all its scopes share one snapshot.
+   */
+  private class UpstreamErrors(dependencies: Seq[IProject]) {
+    private val inError = mutable.Map.empty[(IProject, CompileScope), Boolean]
+
+    private def hasErrors(project: IProject, scope: CompileScope): Boolean =
+      inError.getOrElseUpdate((project, scope), IScalaPlugin().asScalaProject(project).map {
         _.buildManager match {
           case manager: SbtScopesBuildManager => manager.hasErrors(scope)
           case manager: EclipseBuildManager => manager.hasErrors
         }
-      }.getOrElse(false)
-    for {
-      scope <- scopeUnit.scope.dependentScopesInUpstreamProjects
-      project <- owningProject.transitiveDependencies if hasErrors(project, scope)
+      }.getOrElse(false))
+
+    def projectsInError(scope: CompileScope): Seq[IProject] = for {
+      upstreamScope <- scope.dependentScopesInUpstreamProjects
+      project <- dependencies if hasErrors(project, upstreamScope)
     } yield project
   }
 
@@ -106,8 +116,20 @@ class SbtScopesBuildManager(val owningProject: IScalaProject, managerSettings: S
     }
   }
 
-  override def latestAnalysis: Analysis = buildScopeUnits.foldLeft(Analysis.Empty) { (analysis, unit) =>
-    analysis ++ unit.latestAnalysis
+  /** The scope analyses and their merge, kept until one of them changes. Softly referenced, so that
+   *  the analyses replaced since the last merge can be collected before the next one.
+   */
+  @volatile private var merged = new SoftReference[(Seq[Analysis], Analysis)](null)
+
+  override def latestAnalysis: Analysis = {
+    val analyses = buildScopeUnits.map(_.latestAnalysis)
+    Option(merged.get) collect {
+      case (mergedFrom, analysis) if mergedFrom.corresponds(analyses)(_ eq _) => analysis
+    } getOrElse {
+      val analysis = analyses.foldLeft(Analysis.Empty)(_ ++ _)
+      merged = new SoftReference((analyses, analysis))
+      analysis
+    }
   }
 
   override def buildManagerOf(outputFile: File): Option[EclipseBuildManager] =
@@ -4,7 +4,6 @@ import java.io.File.pathSeparator
 import java.io.IOException
 
 import scala.annotation.tailrec
-import scala.collection.immutable
 import scala.collection.mutable.Publisher
 import scala.tools.nsc.Settings
 import scala.util.control.NonFatal
@@ -14,8 +13,7 @@ import org.eclipse.core.resources.IFile
 import org.eclipse.core.resources.IMarker
 import org.eclipse.core.resources.IProject
 import org.eclipse.core.resources.IResource
-import org.eclipse.core.resources.IResourceProxy
-import org.eclipse.core.resources.IResourceProxyVisitor
+import org.eclipse.core.resources.IResourceDelta
 import org.eclipse.core.resources.ProjectScope
 import org.eclipse.core.runtime.CoreException
 import org.eclipse.core.runtime.IPath
@@ -30,7 +28,6 @@ import org.eclipse.jdt.core.WorkingCopyOwner
 import org.eclipse.jdt.internal.core.DefaultWorkingCopyOwner
 import org.eclipse.jdt.internal.core.JavaProject
 import org.eclipse.jdt.internal.core.SearchableEnvironment
-import org.eclipse.jdt.internal.core.util.Util
 import org.eclipse.jface.preference.IPersistentPreferenceStore
 import org.eclipse.jface.preference.IPreferenceStore
 import org.eclipse.ui.IEditorPart
@@ -43,11 +40,14 @@ import org.scalaide.core.IScalaProject
 import org.scalaide.core.IScalaProjectEvent
 import org.scalaide.core.SdtConstants
 import org.scalaide.core.compiler.IScalaPresentationCompiler
+import org.scalaide.core.internal.ScalaPlugin
 import org.scalaide.core.internal.builder.EclipseBuildManager
+import org.scalaide.core.internal.builder.zinc.ApiHashes
 import org.scalaide.core.internal.compiler.PresentationCompilerActivityListener
 import org.scalaide.core.internal.compiler.PresentationCompilerProxy
 import org.scalaide.core.internal.compiler.ScalaPresentationCompiler
 import org.scalaide.core.internal.jdt.model.ScalaSourceFile
+import org.scalaide.core.internal.jdt.search.TypeNameIndex
 import org.scalaide.core.resources.EclipseResource
 import org.scalaide.logging.HasLogger
 import org.scalaide.ui.internal.actions.PartAdapter
@@ -152,6 +152,11 @@ class ScalaProject private(val underlying: IProject) extends ClasspathManagement
   private var buildManager0: EclipseBuildManager = null
   private var hasBeenBuilt = false
 
+  private val publicApiLock = new Object
+  private var publicApi0: Option[ApiHashes] = None
+  /** The public API of each dependency as of the last successful build of this project. */
+  @volatile private var dependencyApis = Map.empty[IProject, ApiHashes]
+
   private val worbenchPartListener: IPartListener = new ScalaProject.ProjectPartListener(this)
 
   @deprecated("Don't use or depend on this because it will be removed soon.", since = "4.0.0")
@@ -167,6 +172,7 @@ class ScalaProject private(val underlying: IProject) extends ClasspathManagement
    */
   private def init(): Unit = {
     presentationCompiler.subscribe(watchdog)
+    ScalaPlugin().presentationCompilerPool.register(underlying.getName, presentationCompiler, ScalaEditor.projectHasOpenEditors(this))
 
     if (!IScalaPlugin().headlessMode)
       SWTUtils.getWorkbenchWindow map (_.getPartService().addPartListener(worbenchPartListener))
@@ -268,25 +274,13 @@ class ScalaProject private(val underlying: IProject) extends ClasspathManagement
     allFilesInSourceDirs() filter (f => FileUtils.isBuildable(f.getName))
   }
 
-  def allFilesInSourceDirs(): Set[IFile] = {
+  def allFilesInSourceDirs(): Set[IFile] =
+    if (isUnderlyingValid) sourceInventory.get() else Set.empty
+
+  private val sourceInventory = new SourceInventory(() => {
     /* Cache it for the duration of this call */
     lazy val currentSourceOutputFolders = sourceOutputFolders
 
-    /* Return the inclusion patterns of `entry` as an Array[Array[Char]], ready for consumption
-     * by the JDT.
-     *
-     * @see org.eclipse.jdt.internal.core.ClassPathEntry.fullInclusionPatternChars()
-     */
-    def fullPatternChars(entry: IClasspathEntry, patterns: Array[IPath]): Array[Array[Char]] = {
-      if (patterns.isEmpty)
-        null
-      else {
-        val prefixPath = entry.getPath().removeTrailingSeparator();
-        for (pattern <- patterns)
-        yield prefixPath.append(pattern).toString().toCharArray();
-      }
-    }
-
     /* Logic is copied from existing code ('isExcludedFromProject'). Code is trying to
      * see if the given path is a source or output folder for any source entry in the
      * classpath of this project.
@@ -300,48 +294,26 @@ class ScalaProject private(val underlying: IProject) extends ClasspathManagement
       }
     }
 
-    var sourceFiles = new immutable.HashSet[IFile]
+    for (srcEntry <- resolvedClasspath if srcEntry.getEntryKind() == IClasspathEntry.CPE_SOURCE)
+      yield new SourceFolderFilter(srcEntry, sourceOrBinaryFolder)
+  })
 
-    for {
-      srcEntry <- javaProject.getResolvedClasspath(true)
-      if srcEntry.getEntryKind() == IClasspathEntry.CPE_SOURCE
-      srcFolder = EclipseUtils.workspaceRoot.findMember(srcEntry.getPath())
-      if srcFolder ne null
-    } {
-      val inclusionPatterns = fullPatternChars(srcEntry, srcEntry.getInclusionPatterns())
-      val exclusionPatterns = fullPatternChars(srcEntry, srcEntry.getExclusionPatterns())
-      val isAlsoProject = srcFolder == underlying // source folder is the project itself
-
-      srcFolder.accept(
-        new IResourceProxyVisitor {
-          def visit(proxy: IResourceProxy): Boolean = {
-            proxy.getType match {
-              case IResource.FILE =>
-                if (!Util.isExcluded(proxy.requestFullPath(), inclusionPatterns, exclusionPatterns, false))
-                  sourceFiles += proxy.requestResource().asInstanceOf[IFile] // must be an IFile, otherwise we wouldn't be here
-
-                false // don't recurse, it's a file anyway
-
-              case IResource.FOLDER =>
-                if (isAlsoProject) {
-                  !sourceOrBinaryFolder(proxy.requestFullPath) // recurse if not on a source or binary folder path
-                } else if (exclusionPatterns != null) {
-                  if (Util.isExcluded(proxy.requestFullPath, inclusionPatterns, exclusionPatterns, true)) {
-                    // must walk children if inclusionPatterns != null, can skip them if == null
-                    // but folder is excluded so do not create it in the output folder
-                    inclusionPatterns != null
-                  } else true
-                } else true // recurse into subfolders
-
-              case _ =>
-                true
-            }
-          }
-        }, IResource.NONE)
-    }
+  /** Keep the files in the source folders up to date with the changes in `projectDelta`. */
+  private[scalaide] def sourcesChanged(projectDelta: IResourceDelta): Unit =
+    if ((projectDelta.getFlags & IResourceDelta.OPEN) != 0)
+      sourceInventory.invalidate()
+    else
+      sourceInventory.update(projectDelta)
 
-    sourceFiles
-  }
+  /** Forget the files in the source folders, for instance because the source folders changed. */
+  private[project] def invalidateSourceInventory(): Unit =
+    sourceInventory.invalidate()
+
+  /** Return the number of walks of the source folders and of applied resource deltas. */
+  def sourceInventoryStats: (Int, Int) = sourceInventory.getStats
+
+  /** The types on the classpath of this project, for completion and the import quick fixes. */
+  private[scalaide] val typeNameIndex = new TypeNameIndex(javaProject)
 
   private def cleanOutputFolders(implicit monitor: IProgressMonitor) = {
     def delete(container: IContainer, deleteDirs: Boolean)(f: String => Boolean): Unit =
@@ -592,6 +564,7 @@ class ScalaProject private(val underlying: IProject) extends ClasspathManagement
   def build(addedOrUpdated: Set[IFile], removed: Set[IFile], monitor: SubMonitor): Unit = {
     hasBeenBuilt = true
 
+    val apiBefore = publicApi
     clearBuildProblemMarker()
     buildManager.build(addedOrUpdated, removed, monitor)
     refreshOutputFolders()
@@ -599,27 +572,69 @@ class ScalaProject private(val underlying: IProject) extends ClasspathManagement
     // Already performs saving the dependencies
 
     if (!buildManager.hasErrors) {
-      // reset presentation compilers of projects that depend on this one
-      // since the output directory now contains the up-to-date version of this project
-      // note: ScalaBuilder resets the presentation compiler when a referred project
-      // is built, but only when it has changes! this call makes sure that a rebuild,
-      // even when there are no changes, propagates the classpath to dependent projects
-      resetDependentProjects()
+      invalidatePublicApi()
+      val changedClasses = apiBefore.changedIn(publicApi)
+      dependencyApis = (for {
+        dependency <- directDependencies
+        upstream <- ScalaPlugin().asScalaProject(dependency)
+      } yield dependency -> upstream.publicApi).toMap
+
+      // reset presentation compilers of projects that depend on this one, since the output
+      // directory now contains the up-to-date version of this project. Their view of this
+      // project is only stale if its public API changed.
+      val dependents = dependentProjects
+      if (changedClasses.nonEmpty) {
+        logger.info(s"[$this] Public API of ${changedClasses.size} classes changed, restarting ${dependents.size} dependent presentation compilers")
+        resetDependentProjects()
+      } else if (dependents.nonEmpty)
+        logger.info(s"[$this] Public API unchanged, the presentation compilers of ${dependents.mkString(", ")} are kept")
+      else
+        logger.debug(s"[$this] Public API unchanged")
       publish(BuildSuccess())
     }
   }
 
+  /** The open Scala projects that depend on this one. */
+  private def dependentProjects: Seq[IScalaProject] = for {
+    prj <- underlying.getReferencingProjects()
+    if prj.isOpen() && ScalaProject.isScalaProject(prj)
+    dependentScalaProject <- IScalaPlugin().asScalaProject(prj)
+  } yield dependentScalaProject
+
   def resetDependentProjects(): Unit = {
-    for {
-      prj <- underlying.getReferencingProjects()
-      if prj.isOpen() && ScalaProject.isScalaProject(prj)
-      dependentScalaProject <- IScalaPlugin().asScalaProject(prj)
-    } {
+    for (dependentScalaProject <- dependentProjects) {
       logger.debug("[%s] Reset PC of referring project %s".format(this, dependentScalaProject))
       dependentScalaProject.presentationCompiler.askRestart()
     }
   }
 
+  /** The API hashes of the classes of this project, as of its latest build. */
+  def publicApi: ApiHashes = publicApiLock.synchronized {
+    publicApi0 getOrElse {
+      val api = ApiHashes.of(buildManager.latestAnalysis)
+      publicApi0 = Some(api)
+      api
+    }
+  }
+
+  private def invalidatePublicApi(): Unit = publicApiLock.synchronized {
+    publicApi0 = None
+  }
+
+  /**
+   * Returns the classes of `dependencies` whose public API changed since this project was last
+   * built successfully, or `None` if that isn't known for one of them.
+   */
+  def dependencyApiChanges(dependencies: Seq[IProject]): Option[Set[String]] = {
+    val changes = for (dependency <- dependencies) yield for {
+      compiledAgainst <- dependencyApis.get(dependency)
+      upstream <- ScalaPlugin().asScalaProject(dependency)
+    } yield compiledAgainst.changedIn(upstream.publicApi)
+
+    if (changes contains None) None
+    else Some(changes.flatten.flatten.toSet)
+  }
+
   def clean(implicit monitor: IProgressMonitor) = {
     clearAllBuildProblemMarkers()
     resetClasspathCheck()
@@ -632,8 +647,11 @@ class ScalaProject private(val underlying: IProject) extends ClasspathManagement
   }
 
   private def resetBuildCompiler(): Unit = {
+    ScalaPlugin().buildCompilerCache.invalidate(this)
     buildManager0 = null
     hasBeenBuilt = false
+    invalidatePublicApi()
+    dependencyApis = Map.empty
   }
 
   protected def resetCompilers(implicit monitor: IProgressMonitor = null) = {
@@ -653,6 +671,8 @@ class ScalaProject private(val underlying: IProject) extends ClasspathManagement
     if (!IScalaPlugin().headlessMode)
       SWTUtils.getWorkbenchWindow map (_.getPartService().removePartListener(worbenchPartListener))
     projectSpecificStorage.removePropertyChangeListener(compilerSettingsListener)
+    ScalaPlugin().presentationCompilerPool.unregister(presentationCompiler)
+    typeNameIndex.dispose()
     shutDownCompilers()
   }
 
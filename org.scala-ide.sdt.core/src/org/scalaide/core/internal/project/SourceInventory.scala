@@ -0,0 +1,177 @@
+package org.scalaide.core.internal.project
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.eclipse.core.resources.IContainer
+import org.eclipse.core.resources.IFile
+import org.eclipse.core.resources.IResource
+import org.eclipse.core.resources.IResourceDelta
+import org.eclipse.core.resources.IResourceDeltaVisitor
+import org.eclipse.core.resources.IResourceProxy
+import org.eclipse.core.resources.IResourceProxyVisitor
+import org.eclipse.core.runtime.IPath
+import org.eclipse.jdt.core.IClasspathEntry
+import org.eclipse.jdt.internal.core.util.Util
+import org.scalaide.util.eclipse.EclipseUtils
+
+/** Decides which resources under the source folder of `entry` are part of the sources of a
+ *  project, the way the JDT does.
+ *
+ *  @param sourceOrBinaryFolder whether a path is a source or output folder of the project,
+ *         which are skipped when the source folder is the project itself.
+ */
+private[project] class SourceFolderFilter(entry: IClasspathEntry, sourceOrBinaryFolder: IPath => Boolean) {
+
+  val path: IPath = entry.getPath
+
+  /* Return the inclusion patterns of `entry` as an Array[Array[Char]], ready for consumption
+   * by the JDT.
+   *
+   * @see org.eclipse.jdt.internal.core.ClassPathEntry.fullInclusionPatternChars()
+   */
+  private def fullPatternChars(patterns: Array[IPath]): Array[Array[Char]] = {
+    if (patterns.isEmpty)
+      null
+    else {
+      val prefixPath = path.removeTrailingSeparator()
+      for (pattern <- patterns)
+      yield prefixPath.append(pattern).toString().toCharArray()
+    }
+  }
+
+  private val inclusionPatterns = fullPatternChars(entry.getInclusionPatterns())
+  private val exclusionPatterns = fullPatternChars(entry.getExclusionPatterns())
+  private val isAlsoProject = path.segmentCount == 1 // source folder is the project itself
+
+  /** The source folder, if it exists. */
+  def folder: Option[IContainer] =
+    Option(EclipseUtils.workspaceRoot.findMember(path)) collect { case container: IContainer => container }
+
+  def includesFile(filePath: IPath): Boolean =
+    !Util.isExcluded(filePath, inclusionPatterns, exclusionPatterns, false)
+
+  /** Whether the files under the folder at `folderPath` may be sources. */
+  def entersFolder(folderPath: IPath): Boolean =
+    if (isAlsoProject) {
+      folderPath == path || !sourceOrBinaryFolder(folderPath) // recurse if not on a source or binary folder path
+    } else if (exclusionPatterns != null) {
+      if (Util.isExcluded(folderPath, inclusionPatterns, exclusionPatterns, true)) {
+        // must walk children if inclusionPatterns != null, can skip them if == null
+        inclusionPatterns != null
+      } else true
+    } else true // recurse into subfolders
+
+  /** Return the files under `container` that are part of the sources. */
+  def walk(container: IContainer): Set[IFile] = {
+    val files = Set.newBuilder[IFile]
+    container.accept(
+      new IResourceProxyVisitor {
+        def visit(proxy: IResourceProxy): Boolean = {
+          proxy.getType match {
+            case IResource.FILE =>
+              if (includesFile(proxy.requestFullPath()))
+                files += proxy.requestResource().asInstanceOf[IFile] // must be an IFile, otherwise we wouldn't be here
+              false // don't recurse, it's a file anyway
+
+            case IResource.FOLDER =>
+              entersFolder(proxy.requestFullPath())
+
+            case _ =>
+              true
+          }
+        }
+      }, IResource.NONE)
+    files.result()
+  }
+}
+
+/** The files in the source folders of a project.
+ *
+ *  They are found by walking the source folders the first time they are needed, and then kept
+ *  up to date from the resource deltas of the project, so that a change to a few files doesn't
+ *  cost a walk of the whole tree. Applying the same delta twice has no effect, so the deltas
+ *  seen by the builder can be applied on top of the ones seen by the resource listener. The
+ *  inventory must be invalidated when the source folders or their patterns change.
+ *
+ *  This class is thread safe.
+ */
+private[project] class SourceInventory(filters: () => Seq[SourceFolderFilter]) {
+
+  private var files: Option[Set[IFile]] = None
+  private var changes = 0L
+
+  // raw stats
+  private val walks, deltas = new AtomicInteger
+
+  def get(): Set[IFile] = {
+    val (known, generation) = synchronized((files, changes))
+    known getOrElse {
+      // walk without holding the lock, and only keep the result if nothing changed meanwhile
+      walks.incrementAndGet()
+      val all = filters().flatMap(filter => filter.folder.toSeq.flatMap(filter.walk)).toSet
+      synchronized {
+        if (files.isEmpty && generation == changes)
+          files = Some(all)
+      }
+      all
+    }
+  }
+
+  def invalidate(): Unit = synchronized {
+    changes += 1
+    files = None
+  }
+
+  /** Apply the changes in `projectDelta`, the delta of the project rooted at the workspace. */
+  def update(projectDelta: IResourceDelta): Unit = synchronized {
+    changes += 1
+    for (current <- files) {
+      deltas.incrementAndGet()
+      var updated = current
+      val sourceFoldersChanged = filters() exists { filter =>
+        Option(projectDelta.findMember(filter.path.removeFirstSegments(1))) exists { folderDelta =>
+          // a source folder that appears or disappears changes the inventory wholesale
+          if (folderDelta.getKind != IResourceDelta.CHANGED)
+            true
+          else {
+            folderDelta.accept(new IResourceDeltaVisitor {
+              def visit(delta: IResourceDelta): Boolean = {
+                val resource = delta.getResource
+                val path = resource.getFullPath
+                resource match {
+                  case file: IFile =>
+                    if (filter.includesFile(path)) delta.getKind match {
+                      case IResourceDelta.ADDED => updated += file
+                      case IResourceDelta.REMOVED => updated -= file
+                      case _ =>
+                    }
+                    false
+
+                  case folder: IContainer if resource.getType == IResource.FOLDER =>
+                    filter.entersFolder(path) && (delta.getKind match {
+                      case IResourceDelta.ADDED =>
+                        updated ++= filter.walk(folder)
+                        false
+                      case IResourceDelta.REMOVED =>
+                        updated = updated filterNot (file => path.isPrefixOf(file.getFullPath))
+                        false
+                      case _ =>
+                        true
+                    })
+
+                  case _ =>
+                    true
+                }
+              }
+            })
+            false
+          }
+        }
+      }
+      files = if (sourceFoldersChanged) None else Some(updated)
+    }
+  }
+
+  /** Return the number of full walks and of applied deltas. */
+  def getStats: (Int, Int) = (walks.get, deltas.get)
+}
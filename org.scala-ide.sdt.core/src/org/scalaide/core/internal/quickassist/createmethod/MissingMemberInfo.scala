@@ -59,7 +59,7 @@ class MissingMemberInfo(
       }
     }
     logger.debug(s"Ended up with $bestMatch")
-    bestMatch.map(_.getType.getCompilationUnit)
+    bestMatch.flatMap(m => Option(m.getType)).map(_.getCompilationUnit)
   }
 }
 
@@ -2,6 +2,7 @@ package org.scalaide.core.internal
 
 import scala.util.matching.Regex
 
+import org.eclipse.core.runtime.IProgressMonitor
 import org.eclipse.core.runtime.NullProgressMonitor
 import org.eclipse.jdt.core.IJavaElement
 import org.eclipse.jdt.core.IJavaProject
@@ -9,7 +10,9 @@ import org.eclipse.jdt.core.search.IJavaSearchConstants
 import org.eclipse.jdt.core.search.SearchEngine
 import org.eclipse.jdt.core.search.TypeNameMatch
 import org.eclipse.jdt.internal.corext.util.TypeNameMatchCollector
+import org.scalaide.core.internal.jdt.search.IndexedTypeNameMatch
 import org.scalaide.core.quickassist.BasicCompletionProposal
+import org.scalaide.core.internal.ScalaPlugin
 
 package object quickassist {
 
@@ -29,19 +32,32 @@ package object quickassist {
     }
   }
 
-  def searchForTypes(project: IJavaProject, name: String): Seq[TypeNameMatch] = {
-    val resultCollector = new java.util.ArrayList[TypeNameMatch]
-    val scope = SearchEngine.createJavaSearchScope(Array[IJavaElement](project))
-    val typesToSearch = Array(name.toArray)
-    new SearchEngine().searchAllTypeNames(
-        null,
-        typesToSearch,
-        scope,
-        new TypeNameMatchCollector(resultCollector),
-        IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH,
-        new NullProgressMonitor)
-
-    import scala.collection.JavaConverters._
-    resultCollector.asScala
+  /** Returns the types on the classpath of `project` named `name`.
+   *
+   *  They are looked up in the type name index of the project, or searched by the JDT while the
+   *  index isn't built yet. The types found in the index are only resolved by `getType`, which
+   *  returns `null` for a type that no longer exists.
+   */
+  def searchForTypes(project: IJavaProject, name: String, pm: IProgressMonitor = new NullProgressMonitor): Seq[TypeNameMatch] = {
+    val index = ScalaPlugin().getScalaProject(project.getProject).typeNameIndex
+    val indexed = index.find(name, prefixMatch = false, caseSensitive = true) map { types =>
+      types map (tpe => new IndexedTypeNameMatch(project, tpe))
+    }
+
+    indexed getOrElse {
+      val resultCollector = new java.util.ArrayList[TypeNameMatch]
+      val scope = SearchEngine.createJavaSearchScope(Array[IJavaElement](project))
+      val typesToSearch = Array(name.toArray)
+      new SearchEngine().searchAllTypeNames(
+          null,
+          typesToSearch,
+          scope,
+          new TypeNameMatchCollector(resultCollector),
+          IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH,
+          pm)
+
+      import scala.collection.JavaConverters._
+      resultCollector.asScala
+    }
   }
 }
@@ -9,13 +9,9 @@ import scala.tools.refactoring.implementations.OrganizeImports.OrganizeImportsCo
 import scala.util.Properties
 
 import org.eclipse.core.runtime.IProgressMonitor
-import org.eclipse.jdt.core.IJavaElement
 import org.eclipse.jdt.core.compiler.IProblem
-import org.eclipse.jdt.core.search.IJavaSearchConstants
-import org.eclipse.jdt.core.search.SearchEngine
 import org.eclipse.jdt.core.search.TypeNameMatch
 import org.eclipse.jdt.internal.corext.util.QualifiedTypeNameHistory
-import org.eclipse.jdt.internal.corext.util.TypeNameMatchCollector
 import org.eclipse.jdt.internal.ui.actions.ActionMessages
 import org.eclipse.jdt.internal.ui.dialogs.MultiElementListSelectionDialog
 import org.eclipse.jdt.internal.ui.util.TypeNameMatchLabelProvider
@@ -24,6 +20,7 @@ import org.eclipse.jface.window.Window
 import org.scalaide.core.internal.jdt.model.LazyToplevelClass
 import org.scalaide.core.internal.jdt.model.ScalaElement
 import org.scalaide.core.internal.jdt.model.ScalaSourceFile
+import org.scalaide.core.internal.quickassist.searchForTypes
 import org.scalaide.core.internal.statistics.Features.OrganizeImports
 import org.scalaide.ui.internal.preferences.OrganizeImportsPreferences._
 import org.scalaide.util.eclipse.EditorUtils
@@ -36,7 +33,7 @@ import org.scalaide.util.internal.eclipse.TextEditUtils
  * errors in the source file:
  *
  *  - With no errors, the refactoring simply calls the Refactoring Library's Organize Imports with the users' configuration settings.
- *  - When there are errors, specifically missing types, Organize Imports uses a SearchEngine to find the missing types to import. If
+ *  - When there are errors, specifically missing types, Organize Imports looks up the missing types to import in the type name index. If
  *    there are ambiguities, the user is prompted to select the correct import.
  *
  */
@@ -63,20 +60,17 @@ class OrganizeImports extends RefactoringExecutorWithoutWizard {
     }
 
     /**
-     * Uses a SearchEngine to find all possible types that match the missing type's names.
+     * Uses the type name index of the project to find all possible types that match the missing type's names.
      * Only types that are visible are returned, types that are inner classes of other
      * classes are filtered because they cannot be imported at the top level.
      *
      * @return Groups of types that are candidates for a missing type.
      */
     def findSuggestionsForMissingTypes(missingTypes: Array[String], file: ScalaSourceFile, pm: IProgressMonitor): Iterable[Array[TypeNameMatch]] = {
-      val resultCollector = new java.util.ArrayList[TypeNameMatch]
-      val scope = SearchEngine.createJavaSearchScope(Array[IJavaElement](file.getJavaProject))
-      val typesToSearch =  missingTypes map (_.toArray)
-      new SearchEngine().searchAllTypeNames(null, typesToSearch, scope, new TypeNameMatchCollector(resultCollector), IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, pm)
-      val allFoundTypes = resultCollector.toArray[TypeNameMatch](Array[TypeNameMatch]())
+      val allFoundTypes = missingTypes.distinct flatMap (searchForTypes(file.getJavaProject, _, pm))
       val visibleTypes = allFoundTypes filter { typeNameMatch =>
         typeNameMatch.getType match {
+          case null => false // removed since it was indexed
           case se: ScalaElement => se.isVisible
           case tpe =>
             // if it's not a ScalaElement, it could still be an inner class,
@@ -0,0 +1,29 @@
+package org.scalaide.ui.internal.actions
+
+import scala.collection.mutable.ListBuffer
+
+import org.eclipse.core.commands.ExecutionEvent
+import org.eclipse.core.resources.IProject
+import org.eclipse.jface.action.IAction
+import org.scalaide.core.internal.builder.ParallelProjectsBuildJob
+
+/** Rebuilds all selected Scala projects in one job, compiling independent projects in parallel. */
+class ParallelBuildAction extends AbstractPopupAction {
+  private val selectedProjects = ListBuffer[IProject]()
+
+  override def performAction(project: IProject): Unit =
+    selectedProjects += project
+
+  override def execute(event: ExecutionEvent): AnyRef =
+    buildSelected(super.execute(event))
+
+  override def run(action: IAction): Unit =
+    buildSelected(super.run(action))
+
+  private def buildSelected[A](collect: => A): A = {
+    selectedProjects.clear()
+    val result = collect
+    ParallelProjectsBuildJob(selectedProjects.toList).schedule()
+    result
+  }
+}
@@ -79,7 +79,7 @@ class ScalaCompletionProposalImpl(proposal: CompletionProposal)
   }
 
   /** Position after the opening parenthesis of this proposal */
-  private val startOfArgumentList = startPos + completion.length + 1
+  private lazy val startOfArgumentList = startPos + completion.length + 1
 
   override def getRelevance = relevance
   override def getImage = image
@@ -90,9 +90,15 @@ class ScalaCompletionProposalImpl(proposal: CompletionProposal)
       new ScalaContextInformation(display, tooltip, image, startOfArgumentList)
     else null
 
-  /** A simple display string
+  /** A simple display string, made of the name and the extra details only.
+   *
+   *  JDT sorts the proposals of equal relevance by their display string, so it is asked for the
+   *  display string of every proposal. The signature is only computed by the styled display
+   *  string, for the proposals that are actually shown.
    */
-  override def getDisplayString(): String = display
+  override def getDisplayString(): String =
+    if (displayDetail != null && displayDetail.length > 0) s"$completion - $displayDetail"
+    else completion
 
   /** A display string with grayed out extra details
    */
@@ -24,8 +24,16 @@ import org.scalaide.util.internal.eclipse.AnnotationUtils._
  */
 trait MarkOccurrencesEditorExtension extends ScalaCompilationUnitEditor {
 
-  // needs to be lazy because [[getInteractiveCompilationUnit]] succeeds only after the editor is fully loaded
-  private lazy val occurrencesFinder = new ScalaOccurrencesFinder(getInteractiveCompilationUnit)
+  // created on first use because [[getInteractiveCompilationUnit]] succeeds only after the editor is fully loaded
+  private var occurrencesFinderOpt: Option[ScalaOccurrencesFinder] = None
+
+  private def occurrencesFinder: ScalaOccurrencesFinder = synchronized {
+    occurrencesFinderOpt getOrElse {
+      val finder = new ScalaOccurrencesFinder(getInteractiveCompilationUnit)
+      occurrencesFinderOpt = Some(finder)
+      finder
+    }
+  }
 
   private var occurrenceAnnotations: Set[Annotation] = Set()
   private var occurencesFinderInstalled = false
@@ -58,6 +66,14 @@ trait MarkOccurrencesEditorExtension extends ScalaCompilationUnitEditor {
     removeScalaOccurrenceAnnotations()
   }
 
+  override def dispose(): Unit = {
+    super.dispose()
+    synchronized {
+      occurrencesFinderOpt foreach (_.dispose())
+      occurrencesFinderOpt = None
+    }
+  }
+
   /** Clear the existing Mark Occurrences annotations.
    */
   private def removeScalaOccurrenceAnnotations() = {
@@ -51,6 +51,7 @@ import org.scalaide.refactoring.internal.source.GenerateHashcodeAndEquals
 import org.scalaide.refactoring.internal.source.IntroduceProductNTrait
 import org.scalaide.ui.editor.hover.IScalaHover
 import org.scalaide.ui.internal.actions
+import org.scalaide.ui.internal.editor.decorators.SemanticActionPipeline
 import org.scalaide.ui.internal.editor.decorators.semantichighlighting.TextPresentationEditorHighlighter
 import org.scalaide.ui.internal.editor.decorators.semantichighlighting.TextPresentationHighlighter
 import org.scalaide.ui.internal.editor.hover.FocusedControlCreator
@@ -97,14 +98,13 @@ class ScalaSourceFileEditor
       }
     }
 
+    /** Runs the participants that look at the typed tree in a single traversal. */
+    val pipeline = new SemanticActionPipeline(exts)
+
     override def aboutToBeReconciled() = ()
     override def reconciled(ast: CompilationUnit, forced: Boolean, progressMonitor: IProgressMonitor) = {
       getInteractiveCompilationUnit() match {
-        case scu: ScalaCompilationUnit => exts foreach { ext =>
-          EclipseUtils.withSafeRunner(s"Error occurred while executing '${nameOf(ext)}'") {
-            ext(scu)
-          }
-        }
+        case scu: ScalaCompilationUnit => pipeline(scu)
         case _ =>
       }
     }
@@ -115,7 +115,7 @@ class ScalaSourceFileEditor
 
   override def dispose() = {
     super.dispose()
-    semanticHighlightingParticipants.exts foreach (_.dispose())
+    semanticHighlightingParticipants.pipeline.dispose()
   }
 
   override protected def createActions(): Unit = {
@@ -19,6 +19,8 @@ import org.eclipse.jface.util.PropertyChangeEvent
 import org.eclipse.swt.SWT
 import org.eclipse.ui.editors.text.EditorsUI
 import org.scalaide.core.IScalaPlugin
+import org.scalaide.core.compiler.IScalaPresentationCompiler.Implicits._
+import org.scalaide.core.internal.compiler.RequestScheduler
 import org.scalaide.core.internal.compiler.ScalaPresentationCompiler
 import org.scalaide.core.internal.jdt.model.ScalaCompilationUnit
 import org.scalaide.logging.HasLogger
@@ -56,7 +58,7 @@ abstract class BaseSemanticAction(
   sourceViewer: ISourceViewer,
   annotationId: String,
   preferencePageId: Option[String])
-    extends SemanticAction
+    extends TreeSemanticAction
     with IPropertyChangeListener
     with HasLogger {
 
@@ -131,19 +133,33 @@ abstract class BaseSemanticAction(
     ColorManager.colorManager.getColor(rgb)
   }
 
-  protected def findAll(compiler: ScalaPresentationCompiler, scu: ScalaCompilationUnit, sourceFile: SourceFile): Map[Annotation, JFacePosition]
+  /** Returns a collector for the annotations of this action. Called on the compiler thread. */
+  protected def annotationCollector(compiler: ScalaPresentationCompiler, scu: ScalaCompilationUnit, sourceFile: SourceFile): TreeAnnotationCollector
+
+  private def isActive: Boolean =
+    propertiesOpt forall (properties => prefStore.getBoolean(properties.active)) // properties disabled, count as active
+
+  override def collector(compiler: ScalaPresentationCompiler, scu: ScalaCompilationUnit, sourceFile: SourceFile): Option[TreeAnnotationCollector] =
+    if (isActive) Some(annotationCollector(compiler, scu, sourceFile)) else None
+
+  override def update(annotations: Map[Annotation, JFacePosition]): Unit =
+    AnnotationUtils.update(sourceViewer, annotationId, annotations)
 
   //TODO monitor P_ACTIVATE to register/unregister update
   //TODO monitor P_ACTIVATE to remove existings annotation (true => false) or update openning file (false => true)
   override def apply(scu: ScalaCompilationUnit): Unit = {
-    scu.scalaProject.presentationCompiler.internal { compiler =>
+    RequestScheduler.withPriority(RequestScheduler.Highlighting)(scu.scalaProject.presentationCompiler.internal { compiler =>
 
       def findAnnotations(): Map[Annotation, JFacePosition] = {
         val sourceFile = scu.lastSourceMap().sourceFile
         val response = compiler.askLoadedTyped(sourceFile, false)
         response.get(200) match {
-          case Some(Left(_)) =>
-            findAll(compiler, scu, sourceFile)
+          case Some(Left(tree)) =>
+            compiler.asyncExec {
+              TreeAnnotationCollector.traverse(compiler)(tree, Seq(annotationCollector(compiler, scu, sourceFile))).head.annotations
+            }.getOrElse(Map.empty[Annotation, JFacePosition])()
+          case Some(Right(_: RequestScheduler.ObsoleteRequestException)) =>
+            Map.empty
           case Some(Right(exc)) =>
             logger.error("An exception was thrown while waiting for `askLoadedTyped` during semantic highlighting.", exc)
             Map.empty
@@ -153,14 +169,8 @@ abstract class BaseSemanticAction(
         }
       }
 
-      val annotationsToAdd: Map[Annotation, JFacePosition] = propertiesOpt match {
-        case Some(properties) if prefStore.getBoolean(properties.active) => findAnnotations()
-        case None => findAnnotations() // properties disabled, count as active
-        case _ => Map.empty
-      }
-
-      AnnotationUtils.update(sourceViewer, annotationId, annotationsToAdd)
-    }
+      update(if (isActive) findAnnotations() else Map.empty)
+    })
   }
 
   private def refresh() = {
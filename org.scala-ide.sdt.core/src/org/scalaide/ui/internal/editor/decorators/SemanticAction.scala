@@ -1,5 +1,10 @@
 package org.scalaide.ui.internal.editor.decorators
 
+import scala.reflect.internal.util.SourceFile
+
+import org.eclipse.jface.text.Position
+import org.eclipse.jface.text.source.Annotation
+import org.scalaide.core.internal.compiler.ScalaPresentationCompiler
 import org.scalaide.core.internal.jdt.model.ScalaCompilationUnit
 
 trait SemanticAction extends (ScalaCompilationUnit => Unit) {
@@ -7,3 +12,19 @@ trait SemanticAction extends (ScalaCompilationUnit => Unit) {
 
   def dispose(): Unit
 }
+
+/**
+ * A semantic action that finds its annotations in the typed tree of a compilation unit, so
+ * that a [[SemanticActionPipeline]] can run it in a traversal shared with other actions.
+ */
+trait TreeSemanticAction extends SemanticAction {
+
+  /**
+   * Returns a collector for the annotations of this action, or `None` if the action is
+   * disabled. Called on the compiler thread.
+   */
+  def collector(compiler: ScalaPresentationCompiler, scu: ScalaCompilationUnit, sourceFile: SourceFile): Option[TreeAnnotationCollector]
+
+  /** Replaces the annotations shown by this action. */
+  def update(annotations: Map[Annotation, Position]): Unit
+}
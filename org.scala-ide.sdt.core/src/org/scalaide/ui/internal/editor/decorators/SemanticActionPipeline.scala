@@ -0,0 +1,109 @@
+package org.scalaide.ui.internal.editor.decorators
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+import scala.collection.JavaConverters._
+
+import org.scalaide.core.compiler.IScalaPresentationCompiler.Implicits._
+import org.scalaide.core.internal.compiler.RequestScheduler
+import org.scalaide.core.internal.jdt.model.ScalaCompilationUnit
+import org.scalaide.logging.HasLogger
+import org.scalaide.util.eclipse.EclipseUtils
+
+/**
+ * Runs the semantic actions of an editor after each reconcile.
+ *
+ * The [[TreeSemanticAction]]s share a single traversal of the typed tree on the compiler
+ * thread, each of them getting the annotations found by its collector. The other actions
+ * are applied one by one, as before.
+ *
+ * Semantic highlighting is not one of these actions. Its `SymbolClassification` skips the trees
+ * outside of the viewport on its first pass and the top-level definitions found in its
+ * `ClassificationCache`, and it stops as soon as the document changes. A collector is handed
+ * every node of the unit and can do neither. Both get the typed tree with `askLoadedTyped`, so
+ * the unit is type-checked only once.
+ *
+ * The time spent by each action is logged for every reconcile and added up in `timings`,
+ * which are logged when the pipeline is disposed.
+ */
+class SemanticActionPipeline(actions: Seq[SemanticAction]) extends HasLogger {
+
+  private val (treeActions, otherActions) = actions.foldRight((List.empty[TreeSemanticAction], List.empty[SemanticAction])) {
+    case (action: TreeSemanticAction, (tree, other)) => (action :: tree, other)
+    case (action, (tree, other)) => (tree, action :: other)
+  }
+
+  private val totalNanos = new ConcurrentHashMap[String, AtomicLong]
+
+  private def nameOf(action: SemanticAction) = action.getClass.getName
+
+  def apply(scu: ScalaCompilationUnit): Unit = {
+    otherActions foreach { action =>
+      EclipseUtils.withSafeRunner(s"Error occurred while executing '${nameOf(action)}'") {
+        timed(action)(action(scu))
+      }
+    }
+    if (treeActions.nonEmpty)
+      runTreeActions(scu)
+  }
+
+  def dispose(): Unit = {
+    val totals = timings
+    if (totals.nonEmpty)
+      logger.info("Time spent by semantic actions: " + totals.toSeq.sortBy(-_._2).map {
+        case (name, nanos) => f"${name.substring(name.lastIndexOf('.') + 1)} ${nanos / 1e6}%.1fms"
+      }.mkString(", "))
+    actions foreach (_.dispose())
+  }
+
+  /** Returns the total time spent by each action so far, in nanoseconds, by class name. */
+  def timings: Map[String, Long] =
+    totalNanos.asScala.map { case (name, nanos) => name -> nanos.get }.toMap
+
+  private def timed[A](action: SemanticAction)(op: => A): A = {
+    val start = System.nanoTime
+    try op finally record(action, System.nanoTime - start)
+  }
+
+  private def record(action: SemanticAction, nanos: Long): Unit =
+    totalNanos.computeIfAbsent(nameOf(action), _ => new AtomicLong).addAndGet(nanos)
+
+  private def runTreeActions(scu: ScalaCompilationUnit): Unit =
+    RequestScheduler.withPriority(RequestScheduler.Highlighting)(scu.scalaProject.presentationCompiler.internal { compiler =>
+      val sourceFile = scu.lastSourceMap().sourceFile
+      compiler.askLoadedTyped(sourceFile, false).get(200) match {
+        case Some(Left(tree)) =>
+          val start = System.nanoTime
+          val results = compiler.asyncExec {
+            val collectors = for (action <- treeActions) yield {
+              action -> EclipseUtils.withSafeRunner(s"Error occurred while preparing '${nameOf(action)}'") {
+                action.collector(compiler, scu, sourceFile)
+              }.flatten
+            }
+            val timed = TreeAnnotationCollector.traverse(compiler)(tree, collectors.flatMap(_._2)).iterator
+            for ((action, collector) <- collectors) yield (action, collector map (_ => timed.next()))
+          }.getOption() getOrElse Nil
+          val elapsed = System.nanoTime - start
+
+          for ((action, result) <- results) {
+            result foreach { timed =>
+              timed.failure foreach (e => logger.error(s"Error occurred while executing '${nameOf(action)}'", e))
+              record(action, timed.nanos)
+            }
+            EclipseUtils.withSafeRunner(s"Error occurred while updating '${nameOf(action)}'") {
+              action.update(result map (_.annotations) getOrElse Map.empty)
+            }
+          }
+          logger.debug(f"Decorated ${sourceFile.file.name} in ${elapsed / 1e6}%.1fms: " + results.collect {
+            case (action, Some(timed)) => f"${action.getClass.getSimpleName} ${timed.nanos / 1e6}%.1fms"
+          }.mkString(", "))
+        case Some(Right(_: RequestScheduler.ObsoleteRequestException)) =>
+          logger.debug(s"${sourceFile.file.name} changed before it was decorated")
+        case Some(Right(exc)) =>
+          logger.error("An exception was thrown while waiting for `askLoadedTyped` during semantic highlighting.", exc)
+        case None =>
+          logger.warn("Timeout while waiting for `askLoadedTyped` during semantic highlighting.")
+      }
+    })
+}
@@ -0,0 +1,81 @@
+package org.scalaide.ui.internal.editor.decorators
+
+import scala.reflect.internal.util.SourceFile
+import scala.util.control.NonFatal
+
+import org.eclipse.jface.text.Position
+import org.eclipse.jface.text.source.Annotation
+import org.scalaide.core.compiler.{ IScalaPresentationCompiler => SPC }
+import org.scalaide.core.compiler.IScalaPresentationCompiler.Implicits._
+import org.scalaide.logging.HasLogger
+
+/**
+ * Collects the annotations of a semantic action from the nodes of a typed tree.
+ *
+ * A collector is handed every node of the tree in a traversal that may be shared with the
+ * collectors of other actions. It is always called on the compiler thread.
+ */
+trait TreeAnnotationCollector {
+
+  /** Looks at a single node of the tree, without descending into its children. */
+  def collect(tree: SPC#Tree): Unit
+
+  /** The annotations found so far. */
+  def annotations: Map[Annotation, Position]
+}
+
+object TreeAnnotationCollector extends HasLogger {
+
+  /** A collector, with the time it spent on its nodes and whether it failed. */
+  final class Timed(val collector: TreeAnnotationCollector) {
+    private[decorators] var nanos = 0L
+    private[decorators] var failure: Option[Throwable] = None
+
+    /** The annotations of the collector, or none at all if it failed. */
+    def annotations: Map[Annotation, Position] =
+      if (failure.isDefined) Map.empty else collector.annotations
+  }
+
+  /**
+   * Traverses `tree` once, handing each node to all `collectors` and measuring the time each
+   * of them takes. A collector that throws is left out of the rest of the traversal. Must be
+   * called on the compiler thread.
+   */
+  def traverse(compiler: SPC)(tree: compiler.Tree, collectors: Seq[TreeAnnotationCollector]): Seq[Timed] = {
+    val timed = collectors map (new Timed(_))
+    var active = timed
+
+    new compiler.Traverser {
+      override def traverse(tree: compiler.Tree): Unit = {
+        for (t <- active) {
+          val start = System.nanoTime
+          try t.collector.collect(tree)
+          catch {
+            case NonFatal(e) =>
+              t.failure = Some(e)
+              active = active filterNot (_ eq t)
+          }
+          t.nanos += System.nanoTime - start
+        }
+        super.traverse(tree)
+      }
+    }.traverse(tree)
+
+    timed
+  }
+
+  /** Finds the annotations of a single `collector` in the typed tree of `sourceFile`. */
+  def findAll(compiler: SPC, sourceFile: SourceFile, collector: TreeAnnotationCollector): Map[Annotation, Position] =
+    compiler.askLoadedTyped(sourceFile, keepLoaded = false).get match {
+      case Left(tree) =>
+        compiler.asyncExec {
+          traverse(compiler)(tree, Seq(collector)).head
+        }.getOption() map { timed =>
+          timed.failure foreach (e => logger.error(s"Error while collecting annotations in ${sourceFile.file.name}", e))
+          timed.annotations
+        } getOrElse Map.empty
+      case Right(e) =>
+        logger.error(s"Error while loading the typed tree of ${sourceFile.file.name}", e)
+        Map.empty
+    }
+}
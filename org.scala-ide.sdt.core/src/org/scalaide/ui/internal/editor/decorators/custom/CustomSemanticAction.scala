@@ -5,12 +5,11 @@ package org.scalaide.ui.internal.editor.decorators.custom
 
 import scala.reflect.internal.util.SourceFile
 
-import org.eclipse.jface.text.Position
-import org.eclipse.jface.text.source.Annotation
 import org.eclipse.jface.text.source.ISourceViewer
 import org.scalaide.core.internal.compiler.{ ScalaPresentationCompiler => SPC }
 import org.scalaide.core.internal.jdt.model.{ ScalaCompilationUnit => SCU }
 import org.scalaide.ui.internal.editor.decorators.BaseSemanticAction
+import org.scalaide.ui.internal.editor.decorators.TreeAnnotationCollector
 
 /**
  * Used for creating custom semantic action based on [[org.scalaide.ui.internal.editor.decorators.custom.TraverserRef]]s.
@@ -27,7 +26,6 @@ class CustomSemanticAction(
   preferencePageId: Option[String] = None)
   extends BaseSemanticAction(sourceViewer, annotationId, preferencePageId) {
 
-  protected final override def findAll(compiler: SPC, scu: SCU, sourceFile: SourceFile): Map[Annotation, Position] = {
-    TraverserImpl.extract(compiler)(sourceFile, annotationId, traversers.map(_.init(compiler))).toMap
-  }
+  protected final override def annotationCollector(compiler: SPC, scu: SCU, sourceFile: SourceFile): TreeAnnotationCollector =
+    TraverserImpl.collector(annotationId, traversers.map(_.init(compiler)))
 }
\ No newline at end of file
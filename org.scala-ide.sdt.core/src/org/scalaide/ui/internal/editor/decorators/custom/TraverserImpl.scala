@@ -11,6 +11,7 @@ import org.eclipse.jface.text.source.Annotation
 import org.scalaide.core.compiler.{ IScalaPresentationCompiler => SPC }
 import org.scalaide.core.compiler.IScalaPresentationCompiler.Implicits._
 import org.scalaide.logging.HasLogger
+import org.scalaide.ui.internal.editor.decorators.TreeAnnotationCollector
 
 /**
  * Base trait for traverser implementations.
@@ -52,19 +53,28 @@ object TraverserImpl extends HasLogger {
    * Extracts all annotations from given source using given traversers.
    */
   final def extract(compiler: SPC)(sourceFile: SourceFile, annotationId: String, traversers: Seq[TraverserImpl]): Seq[(Annotation, Position)] = {
-    var regions = IndexedSeq.empty[(Annotation, Position)]
-
-    new compiler.Traverser {
-      override def traverse(tree: compiler.Tree): Unit = {
-        for {
-          traverser <- traversers
-          (pos, msg) <- traverser(tree)
-          annotation <- createAnnotation(pos, msg, annotationId)
-        } regions :+= annotation
-        super.traverse(tree)
-      }
-    }.traverse(compiler.askLoadedTyped(sourceFile, keepLoaded = false).get.fold(identity, _ => compiler.EmptyTree))
-    regions
+    val found = collector(annotationId, traversers)
+    TreeAnnotationCollector.findAll(compiler, sourceFile, found)
+    found.regions
+  }
+
+  /**
+   * Collects the annotations found by given traversers, in the order of the traversal.
+   */
+  final def collector(annotationId: String, traversers: Seq[TraverserImpl]): Collector =
+    new Collector(annotationId, traversers)
+
+  final class Collector private[TraverserImpl] (annotationId: String, traversers: Seq[TraverserImpl]) extends TreeAnnotationCollector {
+    private[TraverserImpl] var regions = IndexedSeq.empty[(Annotation, Position)]
+
+    override def collect(tree: SPC#Tree): Unit =
+      for {
+        traverser <- traversers
+        (pos, msg) <- traverser(tree)
+        annotation <- createAnnotation(pos, msg, annotationId)
+      } regions :+= annotation
+
+    override def annotations: Map[Annotation, Position] = regions.toMap
   }
 
   /** Helper for creating annotations */
@@ -5,6 +5,7 @@ package org.scalaide.ui.internal.editor.decorators.implicits
 
 import scala.reflect.internal.util.SourceFile
 import org.scalaide.ui.internal.editor.decorators.BaseSemanticAction
+import org.scalaide.ui.internal.editor.decorators.TreeAnnotationCollector
 import org.eclipse.jface.preference.IPreferenceStore
 import org.eclipse.jface.text.Position
 import org.eclipse.jface.text.Region
@@ -25,8 +26,8 @@ class ImplicitHighlightingPresenter(sourceViewer: ISourceViewer)
     ImplicitAnnotation.ID,
     Some("implicit")) {
 
-  protected override def findAll(compiler: ScalaPresentationCompiler, scu: ScalaCompilationUnit, sourceFile: SourceFile): Map[Annotation, Position] =
-    ImplicitHighlightingPresenter.findAllImplicitConversions(compiler, scu, sourceFile)
+  protected override def annotationCollector(compiler: ScalaPresentationCompiler, scu: ScalaCompilationUnit, sourceFile: SourceFile): TreeAnnotationCollector =
+    ImplicitHighlightingPresenter.implicitConversionsCollector(compiler, sourceFile)
 }
 
 object ImplicitHighlightingPresenter {
@@ -34,9 +35,11 @@ object ImplicitHighlightingPresenter {
 
   private def pluginStore: IPreferenceStore = IScalaPlugin().getPreferenceStore
 
-  def findAllImplicitConversions(compiler: IScalaPresentationCompiler, scu: ScalaCompilationUnit, sourceFile: SourceFile) = {
-    import compiler.Tree
-    import compiler.Traverser
+  def findAllImplicitConversions(compiler: IScalaPresentationCompiler, scu: ScalaCompilationUnit, sourceFile: SourceFile): Map[Annotation, Position] =
+    TreeAnnotationCollector.findAll(compiler, sourceFile, implicitConversionsCollector(compiler, sourceFile))
+
+  /** Collects the implicit conversions and, unless disabled, the implicit arguments. */
+  def implicitConversionsCollector(compiler: IScalaPresentationCompiler, sourceFile: SourceFile): TreeAnnotationCollector = {
     import compiler.ApplyImplicitView
     import compiler.ApplyToImplicitArgs
 
@@ -82,23 +85,20 @@ object ImplicitHighlightingPresenter {
       (annotation, pos)
     }
 
-    var implicits = Map[Annotation, Position]()
+    val conversionsOnly = pluginStore.getBoolean(ImplicitsPreferencePage.PConversionsOnly)
 
-    new Traverser {
-      override def traverse(t: Tree): Unit = {
-        t match {
-          case v: ApplyImplicitView =>
-            val (annotation, pos) = mkImplicitConversionAnnotation(v)
-            implicits += (annotation -> pos)
-          case v: ApplyToImplicitArgs if !pluginStore.getBoolean(ImplicitsPreferencePage.PConversionsOnly) =>
-            val (annotation, pos) = mkImplicitArgumentAnnotation(v)
-            implicits += (annotation -> pos)
-          case _ =>
-        }
-        super.traverse(t)
-      }
-    }.traverse(compiler.askLoadedTyped(sourceFile, keepLoaded = false).get.fold(identity _, _ => compiler.EmptyTree))
+    new TreeAnnotationCollector {
+      var annotations = Map[Annotation, Position]()
 
-    implicits
+      override def collect(t: IScalaPresentationCompiler#Tree): Unit = t match {
+        case v: ApplyImplicitView =>
+          val (annotation, pos) = mkImplicitConversionAnnotation(v)
+          annotations += (annotation -> pos)
+        case v: ApplyToImplicitArgs if !conversionsOnly =>
+          val (annotation, pos) = mkImplicitArgumentAnnotation(v)
+          annotations += (annotation -> pos)
+        case _ =>
+      }
+    }
   }
 }
@@ -10,8 +10,13 @@ import org.eclipse.jface.text.IDocumentListener
 import org.eclipse.jface.text.IPositionUpdater
 import org.eclipse.jface.text.IRegion
 import org.eclipse.jface.text.ITextInputListener
+import org.eclipse.jface.text.ITextViewer
+import org.eclipse.jface.text.IViewportListener
+import org.eclipse.jface.text.Region
+import org.scalaide.core.internal.compiler.RequestScheduler
 import org.scalaide.core.internal.decorators.semantichighlighting.Position
 import org.scalaide.core.internal.decorators.semantichighlighting.PositionsTracker
+import org.scalaide.core.internal.decorators.semantichighlighting.classifier.ClassificationCache
 import org.scalaide.core.internal.decorators.semantichighlighting.classifier.SymbolClassification
 import org.scalaide.logging.HasLogger
 import org.scalaide.ui.editor.InteractiveCompilationUnitEditor
@@ -44,9 +49,16 @@ class Presenter(
   /** Keep tracks of all semantically highlighted positions in the editor.*/
   private val positionsTracker = new PositionsTracker
 
+  /** The classifications of the definitions that didn't change since the last run of the job. */
+  private val classificationCache = new ClassificationCache
+
+  /** The part of the document visible in the editor, highlighted first. */
+  @volatile private var viewport: Option[IRegion] = None
+
   private val documentSwapListener = new DocumentSwapListener(self, job)
   private val documentContentListener = new DocumentContentListener(job)
   private val positionUpdater = new PositionUpdater(positionsTracker)
+  private val viewportListener = new ViewportListener(self)
 
   /** Should be called right after creating an instance of `this` class.
     *
@@ -58,11 +70,24 @@ class Presenter(
     presentationHighlighter.initialize(job, positionsTracker)
     Option(presentationHighlighter.sourceViewer) foreach { sv =>
       sv.addTextInputListener(documentSwapListener)
+      sv.addViewportListener(viewportListener)
+      updateViewport(sv)
       manageDocument(sv.getDocument)
     }
     if (forceRefresh) refresh()
   }
 
+  /** @note Must be called from within the UI Thread */
+  private def refreshViewport(): Unit =
+    Option(presentationHighlighter.sourceViewer) foreach updateViewport
+
+  /** @note Must be called from within the UI Thread */
+  private def updateViewport(viewer: ITextViewer): Unit = {
+    val start = viewer.getTopIndexStartOffset
+    val end = viewer.getBottomIndexEndOffset
+    viewport = if (end > start) Some(new Region(start, end - start)) else None
+  }
+
   private def manageDocument(document: IDocument): Unit = {
     if (document != null) {
       document.addPositionUpdater(positionUpdater)
@@ -89,7 +114,10 @@ class Presenter(
      * (because `presentationHighlighter` contains the logic for applying the styles). */
     if (removesHighlights) removesAllHighlightings()
     presentationHighlighter.dispose()
-    Option(presentationHighlighter.sourceViewer) foreach { sv => releaseDocument(sv.getDocument) }
+    Option(presentationHighlighter.sourceViewer) foreach { sv =>
+      sv.removeViewportListener(viewportListener)
+      releaseDocument(sv.getDocument)
+    }
   }
 
   /** Asynchronously refresh all semantic highlighting styles in the editor. */
@@ -105,6 +133,10 @@ class Presenter(
   }
 
   /** A background job that performs semantic highlighting.
+    *
+    * The positions of the visible part of the document are computed and published first, then
+    * the ones of the whole compilation unit. Top-level definitions that didn't change since the
+    * previous run are not classified again, see [[ClassificationCache]].
     *
     * @note This class is thread-safe.
     */
@@ -112,33 +144,45 @@ class Presenter(
 
     override def run(monitor: IProgressMonitor): IStatus = {
       if (monitor.isCanceled()) Status.CANCEL_STATUS
-      else performSemanticHighlighting(monitor)
+      else RequestScheduler.withPriority(RequestScheduler.Highlighting)(performSemanticHighlighting(monitor))
     }
 
     private def performSemanticHighlighting(monitor: IProgressMonitor): IStatus = {
       Option(editor.getInteractiveCompilationUnit).flatMap(_.withSourceFile { (sourceFile, compiler) =>
         logger.debug("performing semantic highlighting on " + sourceFile.file.name)
         positionsTracker.startComputingNewPositions()
-        val symbolInfos =
-          try new SymbolClassification(sourceFile, compiler, preferences.isUseSyntacticHintsEnabled()).classifySymbols(monitor)
-          catch {
-            case e: Exception =>
-              logger.error("Error while performing semantic highlighting", e)
-              Nil
-          }
-        val newPositions = Position.from(symbolInfos)
-        val positionsChange = positionsTracker.createPositionsChange(newPositions)
+        val classification = new SymbolClassification(sourceFile, compiler, preferences.isUseSyntacticHintsEnabled(), classificationCache)
+        def classifyPositions(region: Option[IRegion]): Array[Position] = {
+          val symbolInfos =
+            try classification.classifySymbols(monitor, region)
+            catch {
+              case e: Exception =>
+                logger.error("Error while performing semantic highlighting", e)
+                Nil
+            }
+          Position.from(symbolInfos).sorted.toArray
+        }
+
+        for (region <- viewport if region.getLength < sourceFile.length && !monitor.isCanceled()) {
+          val regionPositions = classifyPositions(Some(region))
+          if (!monitor.isCanceled() && !positionsTracker.isDirty)
+            runRegionUpdateInUiThread(region, regionPositions)
+        }
+
+        val sortedPositions = classifyPositions(None)
+        // the viewport update may swap the positions before the update below runs, see `runPositionsUpdateInUiThread`
+        val generation = positionsTracker.generation
+        val positionsChange = positionsTracker.createPositionsChange(sortedPositions)
         val damagedRegion = positionsChange.affectedRegion()
 
         if (damagedRegion.getLength > 0) {
-          val sortedPositions = newPositions.sorted.toArray
           /* if the positions held by the `positionsTracker` have changed, then
            * it's useless to proceed because the `newPositions` have computed on a
            * not up-to-date compilation unit. Let the next reconciler run take care
            * of re-computing the correct positions with the up-to-date content.
            */
           if (!positionsTracker.isDirty) {
-            runPositionsUpdateInUiThread(sortedPositions, damagedRegion)
+            runPositionsUpdateInUiThread(sortedPositions, damagedRegion, generation)
             Job.ASYNC_FINISH
           } else Status.OK_STATUS
         }
@@ -146,16 +190,39 @@ class Presenter(
       }) getOrElse (Status.OK_STATUS)
     }
 
-    private def runPositionsUpdateInUiThread(newPositions: Array[Position], damagedRegion: IRegion): Unit =
+    /** Publish the positions of `region`, keeping the current positions elsewhere. */
+    private def runRegionUpdateInUiThread(region: IRegion, regionPositions: Array[Position]): Unit =
+      uiThread.asyncExec {
+        try {
+          if (!positionsTracker.isDirty) {
+            val newPositions = positionsTracker.positionsWithRegionReplaced(region, regionPositions)
+            val damagedRegion = positionsTracker.createPositionsChange(newPositions).affectedRegion()
+            if (damagedRegion.getLength > 0) {
+              positionsTracker.swapPositions(newPositions)
+              presentationHighlighter.updateTextPresentation(damagedRegion)
+            }
+          }
+        }
+        catch { case e: Exception => logger.error("Error while updating the semantic highlighting of the visible region", e) }
+      }
+
+    /** Publish `newPositions`, whose changes from the positions of `generation` are in `damagedRegion`.
+      * If the positions were swapped since `generation`, the damaged region is computed again.
+      */
+    private def runPositionsUpdateInUiThread(newPositions: Array[Position], damagedRegion: IRegion, generation: Long): Unit =
       uiThread.asyncExec {
         try {
           setThread(uiThread.get)
           if (!positionsTracker.isDirty) {
+            val damaged =
+              if (positionsTracker.generation == generation) damagedRegion
+              else positionsTracker.createPositionsChange(newPositions).affectedRegion()
             positionsTracker.swapPositions(newPositions)
-            presentationHighlighter.updateTextPresentation(damagedRegion)
+            if (damaged.getLength > 0)
+              presentationHighlighter.updateTextPresentation(damaged)
           }
         }
-        catch { case _: Exception => () }
+        catch { case e: Exception => logger.error("Error while updating the semantic highlighting", e) }
         finally done(Status.OK_STATUS)
       }
   }
@@ -170,6 +237,7 @@ private object Presenter {
        * Though, it makes sense to avoid the colors flickering and that's why `positionsTracker`'s state is reset.)
        */
       presenter.positionsTracker.reset()
+      presenter.classificationCache.clear()
       presenter.releaseDocument(oldInput)
     }
     override def inputDocumentChanged(oldInput: IDocument, newInput: IDocument): Unit =
@@ -181,6 +249,10 @@ private object Presenter {
     override def documentChanged(event: DocumentEvent): Unit = ()
   }
 
+  class ViewportListener(presenter: Presenter) extends IViewportListener {
+    override def viewportChanged(verticalOffset: Int): Unit = presenter.refreshViewport()
+  }
+
   class PositionUpdater(positionsTracker: PositionsTracker) extends IPositionUpdater with HasLogger {
     override def update(event: DocumentEvent): Unit =
       positionsTracker.updatePositions(event)
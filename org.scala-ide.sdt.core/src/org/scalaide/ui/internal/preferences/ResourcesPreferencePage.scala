@@ -26,6 +26,7 @@ class ResourcesPreferencePage extends FieldEditorPreferencePage(FieldEditorPrefe
   // vars due to proper ordering of initialization
   private var presCompGroup: Group = null
   private var presCompInnerGroup: Composite = null
+  private var builderGroup: Group = null
 
   // these ones are disposed by parent class
   private var closingEnabledEditor: BooleanFieldEditor = null
@@ -59,6 +60,31 @@ class ResourcesPreferencePage extends FieldEditorPreferencePage(FieldEditorPrefe
     }
     maxIdlenessLengthEditor.setValidRange(10, Integer.MAX_VALUE)
     addField(maxIdlenessLengthEditor)
+
+    addField(new BooleanFieldEditor(PRES_COMP_RESTART_IN_BACKGROUND, "Restart compiler instances in the background", presCompGroup))
+
+    val maxLiveEditor = new IntegerFieldEditor(PRES_COMP_MAX_LIVE, "Maximum number of live compiler instances (0 for no limit)", presCompGroup)
+    maxLiveEditor.setValidRange(0, 1000)
+    addField(maxLiveEditor)
+
+    val heapBudgetEditor = new IntegerFieldEditor(PRES_COMP_HEAP_BUDGET_MB, "Estimated heap used by all compiler instances, in MB (0 for no limit)", presCompGroup)
+    heapBudgetEditor.setValidRange(0, Integer.MAX_VALUE)
+    addField(heapBudgetEditor)
+
+    builderGroup = new Group(getFieldEditorParent, SWT.NONE)
+    builderGroup.setText("Scala Builder")
+    builderGroup.setLayout(new GridLayout(1, true))
+    builderGroup.setLayoutData(new GridData(SWT.FILL, SWT.DEFAULT, true, false))
+
+    val compilerCacheSizeEditor = new IntegerFieldEditor(BUILDER_COMPILER_CACHE_SIZE, "Number of compiler instances kept between builds (0 to disable)", builderGroup)
+    compilerCacheSizeEditor.setValidRange(0, 64)
+    addField(compilerCacheSizeEditor)
+
+    val parallelBuildsEditor = new IntegerFieldEditor(BUILDER_PARALLEL_BUILDS, "Number of projects rebuilt at the same time by 'Rebuild Projects in Parallel'", builderGroup)
+    parallelBuildsEditor.setValidRange(1, 64)
+    addField(parallelBuildsEditor)
+
+    addField(new BooleanFieldEditor(BUILDER_PREBUILD_COMPILER_BRIDGES, "Build the compiler-bridges of all Scala installations at startup", builderGroup))
   }
 
   override def initialize(): Unit = {
@@ -76,6 +102,7 @@ class ResourcesPreferencePage extends FieldEditorPreferencePage(FieldEditorPrefe
   override def dispose(): Unit = {
     if (presCompGroup != null) presCompGroup.dispose()
     if (presCompInnerGroup != null) presCompInnerGroup.dispose()
+    if (builderGroup != null) builderGroup.dispose()
     super.dispose()
   }
 
@@ -118,6 +145,24 @@ object ResourcesPreferences {
    * related preferences are stored.
    */
   val PRES_COMP_PREFERENCES_CHANGE_MARKER = "org.scala-ide.sdt.core.resources.presentationCompiler.preferencesChangeMarker"
+
+  /** Prepare a restarted presentation compiler in the background, while the old one keeps serving requests. */
+  val PRES_COMP_RESTART_IN_BACKGROUND = "org.scala-ide.sdt.core.resources.presentationCompiler.restartInBackground"
+
+  /** Maximum number of presentation compilers alive in the workspace, `0` means no limit. */
+  val PRES_COMP_MAX_LIVE = "org.scala-ide.sdt.core.resources.presentationCompiler.maxLive"
+
+  /** Maximum estimated heap used by all presentation compilers, in MB, `0` means no limit. */
+  val PRES_COMP_HEAP_BUDGET_MB = "org.scala-ide.sdt.core.resources.presentationCompiler.heapBudget"
+
+  /** Maximum number of resident scalac instances kept by the builder, `0` means a fresh compiler for each build. */
+  val BUILDER_COMPILER_CACHE_SIZE = "org.scala-ide.sdt.core.resources.builder.compilerCacheSize"
+
+  /** Maximum number of independent projects compiled at the same time by a parallel rebuild. */
+  val BUILDER_PARALLEL_BUILDS = "org.scala-ide.sdt.core.resources.builder.parallelBuilds"
+
+  /** Compile the compiler-bridges of all known Scala installations in the background when the plugin starts. */
+  val BUILDER_PREBUILD_COMPILER_BRIDGES = "org.scala-ide.sdt.core.resources.builder.prebuildCompilerBridges"
 }
 
 class ResourcesPreferencePageInitializer extends AbstractPreferenceInitializer {
@@ -128,5 +173,11 @@ class ResourcesPreferencePageInitializer extends AbstractPreferenceInitializer {
     store.setDefault(PRES_COMP_CLOSE_UNUSED, true)
     store.setDefault(PRES_COMP_MAX_IDLENESS_LENGTH, 120)
     store.setDefault(PRES_COMP_PREFERENCES_CHANGE_MARKER, true)
+    store.setDefault(PRES_COMP_RESTART_IN_BACKGROUND, false)
+    store.setDefault(PRES_COMP_MAX_LIVE, 0)
+    store.setDefault(PRES_COMP_HEAP_BUDGET_MB, 0)
+    store.setDefault(BUILDER_COMPILER_CACHE_SIZE, 2)
+    store.setDefault(BUILDER_PARALLEL_BUILDS, Runtime.getRuntime.availableProcessors)
+    store.setDefault(BUILDER_PREBUILD_COMPILER_BRIDGES, false)
   }
 }
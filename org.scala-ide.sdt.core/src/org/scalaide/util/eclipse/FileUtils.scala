@@ -84,6 +84,17 @@ object FileUtils {
   def hasBuildErrors(file: IResource): Boolean =
     file.findMarkers(SdtConstants.ProblemMarkerId, true, IResource.DEPTH_INFINITE).exists(_.getAttribute(IMarker.SEVERITY) == IMarker.SEVERITY_ERROR)
 
+  /**
+   * Returns the files under `container` that bear problem markers with error severity, with a single
+   * marker query rather than one per file.
+   */
+  def filesWithBuildErrors(container: IResource): Set[IFile] =
+    container.findMarkers(SdtConstants.ProblemMarkerId, true, IResource.DEPTH_INFINITE).collect {
+      case marker if marker.getAttribute(IMarker.SEVERITY) == IMarker.SEVERITY_ERROR => marker.getResource
+    }.collect {
+      case file: IFile => file
+    }.toSet
+
   /** Delete directory recursively. Does nothing if dir is not a directory. */
   def deleteDir(dir: File): Unit = {
     if (dir.isDirectory()) {